@@ -0,0 +1,196 @@
+package com.barkoder_flutter;
+
+import android.graphics.Bitmap;
+
+import com.barkoder.Barkoder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns the full result sets that AR mode reports on every overlay refresh into deltas: barcodes
+ * that were added, barcodes whose location changed and barcodes that are gone. Every barcode gets a
+ * stable id when it's first seen. Barcodes with the same content (e.g. identical labels on a
+ * shelf) are told apart by matching each one to the nearest known location.
+ * <p>
+ * The SDK doesn't report which barcodes the user selected, only the barcodes of the result set, so
+ * the selection state of a barcode is the one the caller passes with the result set it's in.
+ * <p>
+ * Not thread safe, it's used on the result serializer thread only.
+ */
+class ArDeltaTracker {
+
+    static class Tracked {
+        final int id;
+        // Copied, so later frames can't change them: x0, y0, x1, y1, ...
+        float[] locationPoints;
+        float centerX;
+        float centerY;
+        boolean selected;
+
+        Tracked(int id) {
+            this.id = id;
+        }
+    }
+
+    static class Added {
+        final Tracked tracked;
+        final Barkoder.Result result;
+        // Only set if images were requested
+        final Bitmap thumbnail;
+
+        Added(Tracked tracked, Barkoder.Result result, Bitmap thumbnail) {
+            this.tracked = tracked;
+            this.result = result;
+            this.thumbnail = thumbnail;
+        }
+    }
+
+    static class Delta {
+        final List<Added> added = new ArrayList<>();
+        // Moved or selection changed
+        final List<Tracked> updated = new ArrayList<>();
+        final List<Integer> removed = new ArrayList<>();
+
+        boolean isEmpty() {
+            return added.isEmpty() && updated.isEmpty() && removed.isEmpty();
+        }
+    }
+
+    // Smaller movements are not reported as updates, in pixels
+    private static final float MIN_MOVEMENT = 1f;
+
+    private final boolean includeImages;
+    // Content key -> barcodes with that content
+    private final Map<String, List<Tracked>> trackedByKey = new HashMap<>();
+    private int nextId = 1;
+
+    ArDeltaTracker(boolean includeImages) {
+        this.includeImages = includeImages;
+    }
+
+    /**
+     * @param selected selection state of the barcodes in the result set
+     */
+    Delta update(Barkoder.Result[] results, Bitmap[] thumbnails, boolean selected) {
+        Delta delta = new Delta();
+        Map<String, List<Tracked>> unmatched = new HashMap<>();
+        for (Map.Entry<String, List<Tracked>> entry : trackedByKey.entrySet()) {
+            unmatched.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+
+        if (results != null) {
+            for (int i = 0; i < results.length; i++) {
+                Barkoder.Result result = results[i];
+                String key = result.barcodeTypeName + "|" + result.textualData;
+                Barkoder.BKPoint[] points = result.location != null ? result.location.points : null;
+
+                Tracked tracked = takeNearest(unmatched.get(key), points);
+                if (tracked == null) {
+                    tracked = new Tracked(nextId++);
+                    setLocation(tracked, points);
+                    tracked.selected = selected;
+
+                    List<Tracked> sameKey = trackedByKey.get(key);
+                    if (sameKey == null) {
+                        sameKey = new ArrayList<>();
+                        trackedByKey.put(key, sameKey);
+                    }
+                    sameKey.add(tracked);
+
+                    Bitmap thumbnail = includeImages && thumbnails != null && i < thumbnails.length
+                            ? thumbnails[i]
+                            : null;
+                    delta.added.add(new Added(tracked, result, thumbnail));
+                } else {
+                    boolean moved = hasMoved(tracked.locationPoints, points);
+                    if (moved) setLocation(tracked, points);
+
+                    if (moved || tracked.selected != selected) {
+                        tracked.selected = selected;
+                        delta.updated.add(tracked);
+                    }
+                }
+            }
+        }
+
+        // Whatever wasn't matched isn't reported anymore
+        for (Map.Entry<String, List<Tracked>> entry : unmatched.entrySet()) {
+            if (entry.getValue().isEmpty()) continue;
+
+            List<Tracked> sameKey = trackedByKey.get(entry.getKey());
+            for (Tracked gone : entry.getValue()) {
+                sameKey.remove(gone);
+                delta.removed.add(gone.id);
+            }
+            if (sameKey.isEmpty()) trackedByKey.remove(entry.getKey());
+        }
+
+        return delta;
+    }
+
+    private static Tracked takeNearest(List<Tracked> candidates, Barkoder.BKPoint[] points) {
+        if (candidates == null || candidates.isEmpty()) return null;
+
+        float[] center = center(points);
+        Tracked nearest = null;
+        float nearestDistance = Float.MAX_VALUE;
+
+        for (Tracked candidate : candidates) {
+            float dx = candidate.centerX - center[0];
+            float dy = candidate.centerY - center[1];
+            float distance = dx * dx + dy * dy;
+            if (distance < nearestDistance) {
+                nearest = candidate;
+                nearestDistance = distance;
+            }
+        }
+
+        candidates.remove(nearest);
+        return nearest;
+    }
+
+    private static boolean hasMoved(float[] previous, Barkoder.BKPoint[] current) {
+        if (previous == null || current == null) return (previous == null) != (current == null);
+        if (previous.length != current.length * 2) return true;
+
+        for (int i = 0; i < current.length; i++) {
+            if (Math.abs(previous[i * 2] - current[i].x) > MIN_MOVEMENT
+                    || Math.abs(previous[i * 2 + 1] - current[i].y) > MIN_MOVEMENT) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static void setLocation(Tracked tracked, Barkoder.BKPoint[] points) {
+        float[] center = center(points);
+
+        if (points != null) {
+            tracked.locationPoints = new float[points.length * 2];
+            for (int i = 0; i < points.length; i++) {
+                tracked.locationPoints[i * 2] = points[i].x;
+                tracked.locationPoints[i * 2 + 1] = points[i].y;
+            }
+        } else {
+            tracked.locationPoints = null;
+        }
+        tracked.centerX = center[0];
+        tracked.centerY = center[1];
+    }
+
+    private static float[] center(Barkoder.BKPoint[] points) {
+        if (points == null || points.length == 0) return new float[]{0, 0};
+
+        float x = 0, y = 0;
+        for (Barkoder.BKPoint point : points) {
+            x += point.x;
+            y += point.y;
+        }
+
+        return new float[]{x / points.length, y / points.length};
+    }
+}
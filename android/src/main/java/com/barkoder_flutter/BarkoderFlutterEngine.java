@@ -0,0 +1,225 @@
+package com.barkoder_flutter;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.barkoder.Barkoder;
+import com.barkoder.BarkoderConfig;
+import com.barkoder.BarkoderHelper;
+import com.barkoder.BarkoderLog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import io.flutter.plugin.common.BinaryMessenger;
+import io.flutter.plugin.common.MethodCall;
+import io.flutter.plugin.common.MethodChannel;
+import io.flutter.plugin.common.StandardMethodCodec;
+
+/**
+ * Headless scanning engine that decodes still images and raw camera frames without a
+ * {@link BarkoderFlutterView}.
+ * It is registered per Flutter engine, so it is also available in background engines
+ * (e.g. WorkManager tasks) and from background isolates. Calls are handled on a background
+ * task queue, results are delivered directly as method results.
+ * <p>
+ * The SDK reports decoded images on the main thread, so serializing the results and decoding the
+ * next image of a batch are moved to the result executor right away.
+ */
+@SuppressWarnings("NullableProblems") // To avoid androidX library
+class BarkoderFlutterEngine implements MethodChannel.MethodCallHandler {
+    private static final String TAG = BarkoderFlutterEngine.class.getSimpleName();
+
+    private static final String METHOD_CHANEL_NAME = "barkoder_flutter_engine";
+
+    private final Context applicationContext;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService resultExecutor = Executors.newSingleThreadExecutor();
+    private final FrameScanner frameScanner = new FrameScanner();
+
+    private MethodChannel methodChannel;
+    private volatile BarkoderConfig config;
+
+    BarkoderFlutterEngine(Context applicationContext, BinaryMessenger binaryMessenger) {
+        this.applicationContext = applicationContext;
+
+        methodChannel = new MethodChannel(binaryMessenger, METHOD_CHANEL_NAME, StandardMethodCodec.INSTANCE,
+                binaryMessenger.makeBackgroundTaskQueue());
+        methodChannel.setMethodCallHandler(this);
+    }
+
+    void dispose() {
+        methodChannel.setMethodCallHandler(null);
+        methodChannel = null;
+        config = null;
+        resultExecutor.shutdown();
+    }
+
+    @Override
+    public void onMethodCall(MethodCall call, MethodChannel.Result result) {
+        if (call.method.equals("initialize")) {
+            initialize(call.argument("licenseKey"), result);
+            return;
+        }
+
+        if (config == null) {
+            sendErrorResult(BarkoderFlutterErrors.BARKODER_ENGINE_NOT_INITIALIZED, null, result);
+            return;
+        }
+
+        switch (call.method) {
+            case "configureBarkoder":
+                configureBarkoder((String) call.arguments, result);
+                break;
+            case "scanImage":
+                scanImage((String) call.arguments, result);
+                break;
+            case "scanImages":
+                scanImages(call.arguments, result);
+                break;
+            case "scanFrame":
+                scanFrame(call, result);
+                break;
+            case "release":
+                release(result);
+                break;
+            default:
+                result.notImplemented();
+        }
+    }
+
+    //region Methods
+
+    private void initialize(String licenseKey, MethodChannel.Result methodResult) {
+        config = new BarkoderConfig(applicationContext, licenseKey, licenseCheckResult -> {
+            BarkoderLog.i(TAG, "License Info: " + Barkoder.GetLicenseInfo());
+        });
+
+        sendSuccessResult(null, methodResult);
+    }
+
+    private void configureBarkoder(String barkoderConfigAsJsonString, MethodChannel.Result methodResult) {
+        try {
+            Util.applyJsonStringToConfig(config, barkoderConfigAsJsonString);
+
+            sendSuccessResult(null, methodResult);
+        } catch (Exception ex) {
+            sendErrorResult(BarkoderFlutterErrors.BARKODER_CONFIG_IS_NOT_VALID, ex.getMessage(), methodResult);
+        }
+    }
+
+    private void scanImage(String base64image, MethodChannel.Result methodResult) {
+        Bitmap image = Util.decodeBase64BitmapOrNull(base64image);
+        if (image == null) {
+            sendErrorResult(BarkoderFlutterErrors.INVALID_IMAGE, null, methodResult);
+            return;
+        }
+
+        BarkoderHelper.scanImage(image, config, (results, thumbnails, resultImage) ->
+                runOnResultExecutor(() -> sendSuccessResult(
+                        Util.barkoderResultsToJsonString(results, thumbnails, resultImage), methodResult)),
+                applicationContext);
+    }
+
+    private void scanImages(Object arguments, MethodChannel.Result methodResult) {
+        if (!(arguments instanceof List)) {
+            sendErrorResult(BarkoderFlutterErrors.INVALID_IMAGE, "A list of images is required", methodResult);
+            return;
+        }
+
+        // Anything that isn't a string can't be decoded and gets a null entry like a broken image
+        List<?> imageArguments = (List<?>) arguments;
+        List<String> base64images = new ArrayList<>(imageArguments.size());
+        for (Object base64image : imageArguments) {
+            base64images.add(base64image instanceof String ? (String) base64image : null);
+        }
+
+        scanNextImage(base64images, new ArrayList<>(base64images.size()), config, methodResult);
+    }
+
+    /**
+     * Images are decoded one by one, so only one decoded bitmap is alive at a time.
+     * An image that can't be decoded gets a null entry in the results.
+     */
+    private void scanNextImage(List<String> base64images, List<String> resultsJson, BarkoderConfig batchConfig,
+                               MethodChannel.Result methodResult) {
+        while (resultsJson.size() < base64images.size()) {
+            Bitmap image = Util.decodeBase64BitmapOrNull(base64images.get(resultsJson.size()));
+            if (image != null) {
+                BarkoderHelper.scanImage(image, batchConfig, (results, thumbnails, resultImage) ->
+                        runOnResultExecutor(() -> {
+                            resultsJson.add(Util.barkoderResultsToJsonString(results, thumbnails, resultImage));
+                            scanNextImage(base64images, resultsJson, batchConfig, methodResult);
+                        }), applicationContext);
+                return;
+            }
+
+            resultsJson.add(null);
+        }
+
+        sendSuccessResult(resultsJson, methodResult);
+    }
+
+    private void scanFrame(MethodCall call, MethodChannel.Result methodResult) {
+        final Bitmap frame;
+        try {
+            frame = frameScanner.prepareFrame(FrameScanner.Frame.fromArguments(call));
+        } catch (IllegalArgumentException ex) {
+            sendErrorResult(BarkoderFlutterErrors.INVALID_FRAME, ex.getMessage(), methodResult);
+            return;
+        }
+
+        // Previous frame is still in use, so this one is skipped
+        if (frame == null) {
+            sendSuccessResult(null, methodResult);
+            return;
+        }
+
+        frameScanner.decode(frame, config, applicationContext, (results, thumbnails, resultImage) ->
+                runOnResultExecutor(() -> {
+                    String resultsJson;
+                    try {
+                        resultsJson = Util.barkoderResultsToJsonString(results, thumbnails, resultImage);
+                    } finally {
+                        // The result bitmaps may be backed by the reused frame bitmap
+                        frameScanner.releaseFrame();
+                    }
+                    sendSuccessResult(resultsJson, methodResult);
+                }));
+    }
+
+    private void release(MethodChannel.Result methodResult) {
+        config = null;
+
+        sendSuccessResult(null, methodResult);
+    }
+
+    //endregion Methods
+
+    //region Helper f-ons
+
+    private void runOnResultExecutor(Runnable runnable) {
+        try {
+            resultExecutor.execute(runnable);
+        } catch (RejectedExecutionException ex) {
+            // Engine is disposed, nobody listens anymore
+            BarkoderLog.d(TAG, "Results dropped, engine is disposed");
+        }
+    }
+
+    private void sendSuccessResult(Object value, MethodChannel.Result result) {
+        mainHandler.post(() -> result.success(value));
+    }
+
+    private void sendErrorResult(BarkoderFlutterErrors error, String message, MethodChannel.Result result) {
+        mainHandler.post(() -> result.error(error.getErrorCode(), error.getErrorMessage()
+                + (message != null ? message : ""), null));
+    }
+
+    //endregion Helper f-ons
+}
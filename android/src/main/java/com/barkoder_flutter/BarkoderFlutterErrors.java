@@ -16,7 +16,23 @@ enum BarkoderFlutterErrors {
     BARKODER_CONFIG_IS_NOT_VALID("12", ""),
     MAXIMUM_RESULTS_TYPE_NOT_FOUNDED("13", "Maximum result value can't be founded. "),
     DUPLICATES_DELAY_NOT_FOUNDED("14", "Duplicates delay value can't be founded. "),
-    INVALID_CAMERA_POSITION("15", "Invalid camera position. ");
+    INVALID_CAMERA_POSITION("15", "Invalid camera position. "),
+    INVALID_FRAME("16", "Frame is not valid. "),
+    SCAN_IMAGE_CACHE_NOT_CONFIGURED("17", "Scan image cache is not configured. "),
+    BARKODER_ENGINE_NOT_INITIALIZED("18", "Barkoder engine is not initialized. "),
+    INVALID_IMAGE("19", "Image can't be decoded. "),
+    METHOD_CALL_FAILED("20", "Method call failed. "),
+    FRAME_BUDGET_GOVERNOR_NOT_CONFIGURED("21", "Frame budget governor is not configured. "),
+    DECODE_RATE_LIMIT_NOT_SET("22", "Decode rate limit is not set. "),
+    SYMBOLOGY_LEARNING_NOT_STARTED("23", "Symbology learning is not started. "),
+    TRACE_NOT_DUMPED("24", "Trace can't be written. "),
+    LOCATION_POINTS_ENCODING_NOT_FOUNDED("25", "Location points encoding can't be founded. "),
+    THUMBNAIL_OPTIONS_NOT_SET("26", "Thumbnail options are not set. "),
+    ICON_NOT_FOUNDED("27", "Icon can't be founded. "),
+    FRAME_NOT_CAPTURED("28", "Frame can't be captured. "),
+    RESULT_IMAGE_MODE_NOT_SET("29", "Result image mode is not set. "),
+    SESSION_END_EXPORT_NOT_SET("30", "Session end export is not set. "),
+    MEMORY_BUDGET_NOT_SET("31", "Memory budget is not set. ");
 
     private final String errorCode;
     private final String errorMessage;
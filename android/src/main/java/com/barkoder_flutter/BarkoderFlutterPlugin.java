@@ -10,36 +10,69 @@ public class BarkoderFlutterPlugin implements FlutterPlugin, ActivityAware {
 
     private static final String BARKODER_VIEW_TYPE_ID = "BarkoderNativeView";
     private FlutterPluginBinding flutterPluginBinding;
+    private BarkoderFlutterEngine barkoderEngine;
+    // Shared by all views of the engine
+    private IconCache iconCache;
+    private MemoryBudget memoryBudget;
+    private BarkoderFlutterViewFactory viewFactory;
 
     @Override
     public void onAttachedToEngine(FlutterPluginBinding flutterPluginBinding) {
         this.flutterPluginBinding = flutterPluginBinding;
+
+        // Not tied to an activity, so it is available in background engines as well
+        barkoderEngine = new BarkoderFlutterEngine(flutterPluginBinding.getApplicationContext(),
+                flutterPluginBinding.getBinaryMessenger());
+
+        iconCache = new IconCache(flutterPluginBinding.getApplicationContext().getAssets(),
+                flutterPluginBinding.getFlutterAssets());
+        memoryBudget = new MemoryBudget();
+        memoryBudget.addTrimListener(iconCache::clear);
+        flutterPluginBinding.getApplicationContext().registerComponentCallbacks(memoryBudget);
     }
 
     @Override
     public void onDetachedFromEngine(FlutterPluginBinding binding) {
+        barkoderEngine.dispose();
+        barkoderEngine = null;
+        binding.getApplicationContext().unregisterComponentCallbacks(memoryBudget);
+        memoryBudget = null;
+        iconCache = null;
+        viewFactory = null;
         flutterPluginBinding = null;
     }
 
     @Override
     public void onAttachedToActivity(ActivityPluginBinding binding) {
-        flutterPluginBinding
-                .getPlatformViewRegistry()
-                .registerViewFactory(BARKODER_VIEW_TYPE_ID, new BarkoderFlutterViewFactory(binding.getActivity(), flutterPluginBinding.getBinaryMessenger()));
+        // The registry ignores a second factory with the same id, so it's registered only once and
+        // gets the new activity on later attaches
+        if (viewFactory == null) {
+            viewFactory = new BarkoderFlutterViewFactory(binding.getActivity(),
+                    flutterPluginBinding.getBinaryMessenger(), iconCache, memoryBudget);
+            flutterPluginBinding
+                    .getPlatformViewRegistry()
+                    .registerViewFactory(BARKODER_VIEW_TYPE_ID, viewFactory);
+        } else {
+            viewFactory.setActivity(binding.getActivity());
+        }
     }
 
     @Override
     public void onDetachedFromActivityForConfigChanges() {
-        // NO-OP
+        // Views keep their BarkoderView, config and session, only the camera is released with the
+        // activity's window. Flutter moves the views to the new activity's window.
+        viewFactory.setActivity(null);
     }
 
     @Override
     public void onReattachedToActivityForConfigChanges(ActivityPluginBinding binding) {
-        // NO-OP
+        // Views resume their camera, and live session if one was running, on the new activity
+        viewFactory.setActivity(binding.getActivity());
     }
 
     @Override
     public void onDetachedFromActivity() {
-        // NO-OP
+        // Doesn't keep the finished activity alive
+        viewFactory.setActivity(null);
     }
 }
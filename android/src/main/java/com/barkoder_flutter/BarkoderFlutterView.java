@@ -2,8 +2,12 @@ package com.barkoder_flutter;
 
 import android.app.Activity;
 import android.content.Context;
+import android.content.MutableContextWrapper;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.view.View;
 
 import com.barkoder.Barkoder;
@@ -16,14 +20,29 @@ import com.barkoder.enums.BarkoderARLocationType;
 import com.barkoder.enums.BarkoderARMode;
 import com.barkoder.enums.BarkoderResolution;
 import com.barkoder.enums.BarkoderCameraPosition;
+import com.barkoder.interfaces.BarkoderResultCallback;
 import com.barkoder.overlaymanager.BarkoderAROverlayRefresh;
 
 import org.json.JSONObject;
 
-import java.lang.ref.SoftReference;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.flutter.plugin.common.BasicMessageChannel;
+import io.flutter.plugin.common.BinaryCodec;
 import io.flutter.plugin.common.BinaryMessenger;
 import io.flutter.plugin.common.EventChannel;
 import io.flutter.plugin.common.MethodCall;
@@ -37,8 +56,28 @@ class BarkoderFlutterView implements PlatformView, MethodChannel.MethodCallHandl
     private static final String METHOD_CHANEL_NAME = "barkoder_flutter";
     private static final String SCANNING_RESULTS_EVENT_NAME = "barkoder_flutter_scanningResultsEvent";
     private static final String UI_EVENTS_EVENT_NAME        = "barkoder_flutter_uiEvents";
+    private static final String METRICS_EVENT_NAME          = "barkoder_flutter_metricsEvent";
+    private static final String BINARY_RESULTS_CHANNEL_NAME = "barkoder_flutter_binaryResults";
     private static final String LICENSE_PARAM_KEY = "licenseKey";
 
+    private static final int SESSION_EXPORT_OFF = 0;
+    private static final int SESSION_EXPORT_CHUNKED = 1;
+    private static final int SESSION_EXPORT_FILE = 2;
+    private static final int DEFAULT_SESSION_EXPORT_CHUNK_SIZE = 20;
+
+    // Calls that parse JSON or decode images. They are prepared on the background executor and
+    // only the part that touches the view or the config runs on the main thread.
+    private static final Set<String> BACKGROUND_METHODS = new HashSet<>(Arrays.asList(
+            "configureBarkoder",
+            "scanImage",
+            "scanFrame",
+            "configureCloseButton",
+            "configureFlashButton",
+            "configureZoomButton",
+            "registerIcon",
+            "dumpTrace"
+    ));
+
     private MethodChannel methodChannel;
     private EventChannel scanningResultsEvent;
     private EventChannel.EventSink scanningResultsEventSink;
@@ -46,13 +85,129 @@ class BarkoderFlutterView implements PlatformView, MethodChannel.MethodCallHandl
     private EventChannel uiEventsEvent;
     private EventChannel.EventSink uiEventsEventSink;
 
-    private BarkoderView bkdView;
+    private EventChannel metricsEvent;
+    private BasicMessageChannel<ByteBuffer> binaryResultsChannel;
 
-    BarkoderFlutterView(Activity context, Map<String, Object> creationParams, BinaryMessenger binaryMessenger) {
+    private BarkoderView bkdView;
+    // Context of bkdView, moved to the current activity so the view can outlive the one it was
+    // created with
+    private final MutableContextWrapper viewContext;
+    // For everything that isn't tied to the view's window, e.g. configs and still image decodes
+    private final Context appContext;
+    // Whether the app started the camera and didn't stop it, so it's started again on a new activity
+    private boolean cameraStarted = false;
+    // Set from the activity detaching until the next one is attached
+    private boolean activityDetached = false;
+    private boolean resumeLiveSessionOnAttach = false;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService backgroundExecutor = Executors.newSingleThreadExecutor();
+    // Touched on the main thread only
+    private int pendingBackgroundCalls = 0;
+
+    private final SessionStats sessionStats = new SessionStats();
+    private final MetricsEmitter metricsEmitter = new MetricsEmitter(this::fillMetricsSnapshot);
+
+    // Sole producer of the delivery queue, so results are serialized off the decoder callback
+    // and handed over to the main thread in order
+    private final ExecutorService resultSerializer = Executors.newSingleThreadExecutor();
+    // Encodes deferred thumbnails and captured frames, so they never hold up the results
+    private final ExecutorService imageExecutor = Executors.newSingleThreadExecutor();
+    private final AtomicLong resultIds = new AtomicLong();
+    private final ResultDeliveryQueue<String> resultDeliveryQueue = new ResultDeliveryQueue<>(
+            ResultDeliveryQueue.DEFAULT_CAPACITY, resultsJson -> {
+                onResultsDequeued(resultsJson);
+
+                if (scanningResultsEventSink != null) {
+                    long traceStart = PluginTrace.begin("deliverResults", null);
+                    scanningResultsEventSink.success(resultsJson);
+                    PluginTrace.end("deliverResults", null, traceStart);
+                    sessionStats.onEventDelivered();
+                } else {
+                    onEventDropped();
+                }
+            });
+
+    private final BinaryResultsEncoder binaryResultsEncoder = new BinaryResultsEncoder();
+    // Same hand-over as the JSON results, the result serializer is its only producer as well
+    private final ResultDeliveryQueue<ByteBuffer> binaryDeliveryQueue = new ResultDeliveryQueue<>(
+            ResultDeliveryQueue.DEFAULT_CAPACITY, frame -> {
+                if (binaryResultsChannel != null) {
+                    long traceStart = PluginTrace.begin("deliverBinaryResults", null);
+                    binaryResultsChannel.send(frame);
+                    PluginTrace.end("deliverBinaryResults", null, traceStart);
+                    sessionStats.onEventDelivered();
+                } else {
+                    onEventDropped();
+                }
+                // The message is copied on send
+                binaryResultsEncoder.recycle(frame);
+            });
+
+    private interface ResultsSerializer {
+        /**
+         * @return null if there is nothing to deliver
+         */
+        String serialize();
+    }
+    private final FrameScanner frameScanner = new FrameScanner();
+    private final DecodeRateLimiter decodeRateLimiter = new DecodeRateLimiter();
+    private final LiveScanThrottle liveScanThrottle = new LiveScanThrottle();
+    // Callback of the running live session, kept so the throttle can resume it
+    private BarkoderResultCallback liveResultCallback;
+    private final SymbologyProfiler symbologyProfiler = new SymbologyProfiler(barcodeTypeOrdinals -> {
+        if (bkdView != null) applyEnabledBarcodeTypes(barcodeTypeOrdinals);
+    });
+    private final RegionOfInterestTracker regionOfInterestTracker = new RegionOfInterestTracker(
+            (left, top, width, height) -> mainHandler.post(() -> {
+                if (bkdView == null) return;
+
+                try {
+                    bkdView.config.setRegionOfInterest(left, top, width, height);
+                } catch (IllegalArgumentException ex) {
+                    BarkoderLog.d(TAG, "Auto region of interest not set: " + ex.getMessage());
+                }
+            }), liveScanThrottle::scanningNanos);
+
+    private String licenseKey;
+    // Created on the first escalated scanImage, it keeps its step configs between images
+    private DecodingEscalation decodingEscalation;
+    // Read off the main thread, so it's resolved once up front
+    private final File filesDir;
+    private final File cacheDir;
+    private final IconCache iconCache;
+    private final MemoryBudget memoryBudget;
+    // In flight bitmaps and serialized results of this view
+    private final MemoryBudget.Account memoryAccount;
+    private boolean scanImageEscalationEnabled = false;
+    // Read by the decoder callbacks
+    private volatile int locationPointsEncoding = LocationPointsEncoder.OBJECTS;
+    private volatile ImageEncoder thumbnailEncoder = ImageEncoder.DEFAULT;
+    private volatile ResultImageCropper resultImageCropper = ResultImageCropper.DEFAULT;
+    private int sessionExportMode = SESSION_EXPORT_OFF;
+    private int sessionExportChunkSize = DEFAULT_SESSION_EXPORT_CHUNK_SIZE;
+    private final ScanResultCache scanResultCache = new ScanResultCache();
+    private final MemoryBudget.TrimListener trimListener = scanResultCache::clear;
+    private final ThreadsLimitTuner threadsLimitTuner = new ThreadsLimitTuner();
+    private final FrameBudgetGovernor frameBudgetGovernor = new FrameBudgetGovernor();
+    // Created with the first governed decode
+    private GovernedConfig governedConfig;
+
+    BarkoderFlutterView(Activity context, Map<String, Object> creationParams, BinaryMessenger binaryMessenger,
+                        IconCache iconCache, MemoryBudget memoryBudget) {
         BarkoderLog.i(TAG, "Initializing BarkoderFlutterView");
 
-        bkdView = new BarkoderView(context);
-        configureBarkoderView(context, creationParams);
+        viewContext = new MutableContextWrapper(context);
+        appContext = context.getApplicationContext();
+        bkdView = new BarkoderView(viewContext);
+        filesDir = context.getFilesDir();
+        cacheDir = context.getCacheDir();
+        this.iconCache = iconCache;
+        this.memoryBudget = memoryBudget;
+        memoryAccount = memoryBudget.openAccount();
+        memoryBudget.addTrimListener(trimListener);
+        // Not bound to the activity, it's kept when the view moves to another one
+        configureBarkoderView(appContext, creationParams);
 
         methodChannel = new MethodChannel(binaryMessenger, METHOD_CHANEL_NAME);
         methodChannel.setMethodCallHandler(this);
@@ -70,6 +225,12 @@ class BarkoderFlutterView implements PlatformView, MethodChannel.MethodCallHandl
                 uiEventsEventSink = null;
             }
         });
+
+        metricsEvent = new EventChannel(binaryMessenger, METRICS_EVENT_NAME);
+        metricsEvent.setStreamHandler(metricsEmitter);
+
+        binaryResultsChannel = new BasicMessageChannel<>(binaryMessenger, BINARY_RESULTS_CHANNEL_NAME,
+                BinaryCodec.INSTANCE);
     }
 
     @Override
@@ -85,15 +246,70 @@ class BarkoderFlutterView implements PlatformView, MethodChannel.MethodCallHandl
 
         scanningResultsEvent.setStreamHandler(null);
         if (uiEventsEvent != null) uiEventsEvent.setStreamHandler(null);
+        metricsEvent.setStreamHandler(null);
+        metricsEmitter.stop();
         methodChannel.setMethodCallHandler(null);
+        liveScanThrottle.stop();
         bkdView.stopScanning();
+        symbologyProfiler.stop();
+        backgroundExecutor.shutdown();
+        resultSerializer.shutdown();
+        imageExecutor.shutdown();
+        resultDeliveryQueue.close();
+        binaryDeliveryQueue.close();
+        binaryResultsEncoder.close();
+        memoryBudget.removeTrimListener(trimListener);
+        // Gives back whatever was still queued or waiting to be serialized
+        memoryAccount.close();
 
         scanningResultsEventSink = null;
         uiEventsEventSink = null;
         scanningResultsEvent = null;
         uiEventsEvent = null;
+        metricsEvent = null;
+        binaryResultsChannel = null;
         methodChannel = null;
         bkdView = null;
+        viewContext.setBaseContext(appContext);
+    }
+
+    boolean isDisposed() {
+        return bkdView == null;
+    }
+
+    /**
+     * Called when the activity is gone, e.g. recreated for a config change. The camera goes with the
+     * activity's window, while the view, its config and the session state are kept for the next
+     * activity. Main thread only.
+     */
+    void onActivityDetached() {
+        if (bkdView == null || activityDetached) return;
+
+        activityDetached = true;
+        resumeLiveSessionOnAttach = liveResultCallback != null;
+        liveScanThrottle.stop();
+        bkdView.stopScanning();
+        // Doesn't keep the old activity alive until the next one is attached
+        viewContext.setBaseContext(appContext);
+    }
+
+    /**
+     * Moves the view to the new activity and starts the camera again, resuming the live session if
+     * one was running. A frozen session resumes unfrozen. Main thread only.
+     */
+    void onActivityAttached(Activity activity) {
+        if (bkdView == null || !activityDetached) return;
+
+        activityDetached = false;
+        viewContext.setBaseContext(activity);
+
+        // Unless the app stopped or paused the session meanwhile
+        if (resumeLiveSessionOnAttach && liveResultCallback != null) {
+            bkdView.startScanning(liveResultCallback);
+            startLiveScanThrottle();
+        } else if (cameraStarted) {
+            bkdView.startCamera();
+        }
     }
 
     @Override
@@ -113,6 +329,76 @@ class BarkoderFlutterView implements PlatformView, MethodChannel.MethodCallHandl
             return;
         }
 
+        long traceStart = PluginTrace.begin("onMethodCall", call.method);
+        try {
+            // While heavy calls are in flight every call takes the same route, so calls are still
+            // applied in the order they were made
+            if (pendingBackgroundCalls > 0 || BACKGROUND_METHODS.contains(call.method)) {
+                handleMethodCallInBackground(call, result);
+                return;
+            }
+
+            handleMethodCall(call, result);
+        } finally {
+            PluginTrace.end("onMethodCall", call.method, traceStart);
+        }
+    }
+
+    private void handleMethodCallInBackground(MethodCall call, MethodChannel.Result result) {
+        pendingBackgroundCalls++;
+
+        backgroundExecutor.execute(() -> {
+            Runnable onMainThread;
+            try {
+                onMainThread = prepareMethodCall(call, result);
+            } catch (RuntimeException ex) {
+                onMainThread = () -> sendErrorResult(BarkoderFlutterErrors.METHOD_CALL_FAILED, ex.getMessage(), result);
+            }
+
+            final Runnable prepared = onMainThread;
+
+            mainHandler.post(() -> {
+                pendingBackgroundCalls--;
+
+                if (bkdView == null) {
+                    sendErrorResult(BarkoderFlutterErrors.BARKODER_VIEW_DESTROYED, null, result);
+                    return;
+                }
+
+                prepared.run();
+            });
+        });
+    }
+
+    /**
+     * Does the heavy part of a call on the background executor.
+     *
+     * @return the remaining part of the call, that needs to run on the main thread
+     */
+    private Runnable prepareMethodCall(MethodCall call, MethodChannel.Result result) {
+        switch (call.method) {
+            case "configureBarkoder":
+                return configureBarkoder((String) call.arguments, result);
+            case "scanImage":
+                return scanImage((String) call.arguments, result);
+            case "scanFrame":
+                return scanFrame(call, result);
+            case "configureCloseButton":
+                return configureCloseButton(call, result);
+            case "configureFlashButton":
+                return configureFlashButton(call, result);
+            case "configureZoomButton":
+                return configureZoomButton(call, result);
+            case "registerIcon":
+                return registerIcon(call, result);
+            case "dumpTrace":
+                return dumpTrace(call, result);
+            default:
+                return () -> handleMethodCall(call, result);
+        }
+    }
+
+    private void handleMethodCall(MethodCall call, MethodChannel.Result result) {
         switch (call.method) {
             case "getMaxZoomFactor":
                 getMaxZoomFactor(result);
@@ -133,7 +419,7 @@ class BarkoderFlutterView implements PlatformView, MethodChannel.MethodCallHandl
                 startCamera(result);
                 break;
             case "startScanning":
-                startScanning(result);
+                startScanning(call, result);
                 break;
             case "stopScanning":
                 stopScanning(result);
@@ -142,16 +428,28 @@ class BarkoderFlutterView implements PlatformView, MethodChannel.MethodCallHandl
                 pauseScanning(result);
                 break;
             case "freezeScanning":
-                freezeScanning(result);
+                freezeScanning(call, result);
                 break;
             case "unfreezeScanning":
                 unfreezeScanning(result);
                 break;
             case "captureImage":
-                captureImage(result);
+                captureImage(call, result);
                 break;
-            case "scanImage":
-                scanImage((String) call.arguments, result);
+            case "setScanImageEscalationEnabled":
+                setScanImageEscalationEnabled((boolean) call.arguments, result);
+                break;
+            case "isScanImageEscalationEnabled":
+                isScanImageEscalationEnabled(result);
+                break;
+            case "configureScanImageCache":
+                configureScanImageCache(call, result);
+                break;
+            case "getScanImageCacheStats":
+                getScanImageCacheStats(result);
+                break;
+            case "clearScanImageCache":
+                clearScanImageCache(result);
                 break;
             case "getLocationLineColorHex":
                 getLocationLineColorHex(result);
@@ -216,6 +514,81 @@ class BarkoderFlutterView implements PlatformView, MethodChannel.MethodCallHandl
             case "setThreadsLimit":
                 setThreadsLimit((int) call.arguments, result);
                 break;
+            case "setAdaptiveThreadsLimit":
+                setAdaptiveThreadsLimit(call, result);
+                break;
+            case "getAdaptiveThreadsLimitState":
+                getAdaptiveThreadsLimitState(result);
+                break;
+            case "setFrameBudgetGovernor":
+                setFrameBudgetGovernor(call, result);
+                break;
+            case "getFrameBudgetGovernorState":
+                getFrameBudgetGovernorState(result);
+                break;
+            case "setAutoRegionOfInterest":
+                setAutoRegionOfInterest(call, result);
+                break;
+            case "isAutoRegionOfInterestEnabled":
+                isAutoRegionOfInterestEnabled(result);
+                break;
+            case "startSymbologyLearning":
+                startSymbologyLearning(call, result);
+                break;
+            case "stopSymbologyLearning":
+                stopSymbologyLearning(result);
+                break;
+            case "getSymbologyProfile":
+                getSymbologyProfile(result);
+                break;
+            case "setTracingEnabled":
+                setTracingEnabled((boolean) call.arguments, result);
+                break;
+            case "isTracingEnabled":
+                isTracingEnabled(result);
+                break;
+            case "getSessionStats":
+                getSessionStats(result);
+                break;
+            case "resetSessionStats":
+                resetSessionStats(result);
+                break;
+            case "setDecodeRateLimit":
+                setDecodeRateLimit(call, result);
+                break;
+            case "getDecodeRateStats":
+                getDecodeRateStats(result);
+                break;
+            case "resetDecodeRateStats":
+                resetDecodeRateStats(result);
+                break;
+            case "setLocationPointsEncoding":
+                setLocationPointsEncoding((int) call.arguments, result);
+                break;
+            case "getLocationPointsEncoding":
+                getLocationPointsEncoding(result);
+                break;
+            case "unregisterIcon":
+                unregisterIcon((String) call.arguments, result);
+                break;
+            case "setThumbnailOptions":
+                setThumbnailOptions(call, result);
+                break;
+            case "getThumbnailOptions":
+                getThumbnailOptions(result);
+                break;
+            case "setResultImageMode":
+                setResultImageMode(call, result);
+                break;
+            case "setSessionEndExport":
+                setSessionEndExport(call, result);
+                break;
+            case "setMemoryBudget":
+                setMemoryBudget(call, result);
+                break;
+            case "getMemoryBudgetStats":
+                getMemoryBudgetStats(result);
+                break;
             case "isLocationInPreviewEnabled":
                 isLocationInPreviewEnabled(result);
                 break;
@@ -389,9 +762,6 @@ class BarkoderFlutterView implements PlatformView, MethodChannel.MethodCallHandl
             case "getMulticodeCachingDuration":
                 getMulticodeCachingDuration(result);
                 break;
-            case "configureBarkoder": //UNTIL THIS ONE TESTED
-                configureBarkoder((String) call.arguments, result);
-                break;
             case "setIdDocumentMasterChecksumEnabled":
                 setIdDocumentMasterChecksumEnabled((boolean) call.arguments, result);
                 break;
@@ -521,15 +891,6 @@ class BarkoderFlutterView implements PlatformView, MethodChannel.MethodCallHandl
             case "setARHeaderTextFormat":
                 setARHeaderTextFormat((String) call.arguments, result);
                 break;
-            case "configureCloseButton":
-                configureCloseButton(call, result);
-                break;
-            case "configureFlashButton":
-                configureFlashButton(call, result);
-                break;
-            case "configureZoomButton":
-                configureZoomButton(call, result);
-                break;
             case "selectVisibleBarcodes":
                 selectVisibleBarcodes(result);
                 break;
@@ -690,6 +1051,8 @@ class BarkoderFlutterView implements PlatformView, MethodChannel.MethodCallHandl
 
     private void setThreadsLimit(int threadsLimit, MethodChannel.Result methodResult) {
         try {
+            // Manually picked value wins over the adaptive one
+            threadsLimitTuner.disable();
             BarkoderConfig.SetThreadsLimit(threadsLimit);
 
             methodResult.success(null);
@@ -702,9 +1065,63 @@ class BarkoderFlutterView implements PlatformView, MethodChannel.MethodCallHandl
         methodResult.success(BarkoderConfig.GetThreadsLimit());
     }
 
+    private void setAdaptiveThreadsLimit(MethodCall call, MethodChannel.Result methodResult) {
+        Boolean enabled = call.argument("enabled");
+        Integer targetLatencyMs = call.argument("targetLatencyMs");
+
+        try {
+            threadsLimitTuner.configure(enabled != null && enabled,
+                    targetLatencyMs != null ? targetLatencyMs : ThreadsLimitTuner.DEFAULT_TARGET_LATENCY_MS);
+
+            methodResult.success(null);
+        } catch (IllegalArgumentException ex) {
+            sendErrorResult(BarkoderFlutterErrors.THREADS_LIMIT_NOT_SET, ex.getMessage(), methodResult);
+        }
+    }
+
+    private void getAdaptiveThreadsLimitState(MethodChannel.Result methodResult) {
+        Map<String, Object> state = new HashMap<>();
+        state.put("enabled", threadsLimitTuner.isEnabled());
+        state.put("threadsLimit", threadsLimitTuner.getThreadsLimit());
+        state.put("maxThreadsLimit", threadsLimitTuner.getMaxThreads());
+        state.put("averageLatencyMs", threadsLimitTuner.getLastAverageLatencyMs());
+
+        methodResult.success(state);
+    }
+
+    private void setFrameBudgetGovernor(MethodCall call, MethodChannel.Result methodResult) {
+        Boolean enabled = call.argument("enabled");
+        Integer frameBudgetMs = call.argument("frameBudgetMs");
+        Double targetSuccessRate = call.argument("targetSuccessRate");
+
+        try {
+            frameBudgetGovernor.configure(enabled != null && enabled,
+                    frameBudgetMs != null ? frameBudgetMs : FrameBudgetGovernor.DEFAULT_FRAME_BUDGET_MS,
+                    targetSuccessRate != null ? targetSuccessRate : FrameBudgetGovernor.DEFAULT_TARGET_SUCCESS_RATE,
+                    bkdView.config.getDecoderConfig().decodingSpeed);
+
+            methodResult.success(null);
+        } catch (IllegalArgumentException ex) {
+            sendErrorResult(BarkoderFlutterErrors.FRAME_BUDGET_GOVERNOR_NOT_CONFIGURED, ex.getMessage(), methodResult);
+        }
+    }
+
+    private void getFrameBudgetGovernorState(MethodChannel.Result methodResult) {
+        Map<String, Object> state = new HashMap<>();
+        state.put("enabled", frameBudgetGovernor.isEnabled());
+        state.put("level", frameBudgetGovernor.getLevel());
+        state.put("levelCount", frameBudgetGovernor.getLevelCount());
+        state.put("decodingSpeed", frameBudgetGovernor.isEnabled()
+                ? frameBudgetGovernor.getDecodingSpeed().ordinal()
+                : bkdView.config.getDecoderConfig().decodingSpeed.ordinal());
+
+        methodResult.success(state);
+    }
+
     private void setRegionOfInterest(double left, double top, double width, double height, MethodChannel.Result methodResult) {
         try {
             bkdView.config.setRegionOfInterest((float) left, (float) top, (float) width, (float) height);
+            regionOfInterestTracker.setFullRegion((float) left, (float) top, (float) width, (float) height);
 
             methodResult.success(null);
         } catch (IllegalArgumentException ex) {
@@ -720,6 +1137,31 @@ class BarkoderFlutterView implements PlatformView, MethodChannel.MethodCallHandl
         });
     }
 
+    private void setAutoRegionOfInterest(MethodCall call, MethodChannel.Result methodResult) {
+        Boolean enabled = call.argument("enabled");
+        Number marginPercent = call.argument("marginPercent");
+        Integer maxMisses = call.argument("maxMisses");
+        Number missTimeoutMs = call.argument("missTimeoutMs");
+
+        Barkoder.BKRect roiRect = bkdView.config.getRegionOfInterest();
+
+        try {
+            regionOfInterestTracker.configure(enabled != null && enabled,
+                    marginPercent != null ? marginPercent.floatValue() : RegionOfInterestTracker.DEFAULT_MARGIN_PERCENT,
+                    maxMisses != null ? maxMisses : RegionOfInterestTracker.DEFAULT_MAX_MISSES,
+                    missTimeoutMs != null ? missTimeoutMs.longValue() : RegionOfInterestTracker.DEFAULT_MISS_TIMEOUT_MS,
+                    new float[]{roiRect.left, roiRect.top, roiRect.width, roiRect.height});
+
+            methodResult.success(null);
+        } catch (IllegalArgumentException ex) {
+            sendErrorResult(BarkoderFlutterErrors.ROI_NOT_SET, ex.getMessage(), methodResult);
+        }
+    }
+
+    private void isAutoRegionOfInterestEnabled(MethodChannel.Result methodResult) {
+        methodResult.success(regionOfInterestTracker.isEnabled());
+    }
+
     private void setLocationInImageResultEnabled(boolean enabled, MethodChannel.Result methodResult) {
         bkdView.config.setLocationInImageResultEnabled(enabled);
 
@@ -819,49 +1261,256 @@ class BarkoderFlutterView implements PlatformView, MethodChannel.MethodCallHandl
     }
 
     private void pauseScanning(MethodChannel.Result methodResult) {
+        stopLiveSession();
         bkdView.pauseScanning();
 
         methodResult.success(null);
     }
 
-    private void freezeScanning(MethodChannel.Result methodResult) {
+    private void freezeScanning(MethodCall call, MethodChannel.Result methodResult) {
+        // The throttle would resume the frozen session
+        liveScanThrottle.stop();
         bkdView.freezeScanning();
 
+        // The frozen frame is only returned if it's asked for
+        if (call.arguments instanceof Map) {
+            captureFrame(call, methodResult);
+            return;
+        }
+
         methodResult.success(null);
     }
 
     private void unfreezeScanning(MethodChannel.Result methodResult) {
         bkdView.unfreezeScanning();
+        if (liveResultCallback != null) startLiveScanThrottle();
 
         methodResult.success(null);
     }
 
-    private void captureImage(MethodChannel.Result methodResult) {
+    private void captureImage(MethodCall call, MethodChannel.Result methodResult) {
         bkdView.captureImage();
 
+        // The captured frame is only returned if it's asked for
+        if (call.arguments instanceof Map) {
+            captureFrame(call, methodResult);
+            return;
+        }
+
         methodResult.success(null);
     }
 
+    private void captureFrame(MethodCall call, MethodChannel.Result methodResult) {
+        Integer maxSize = call.argument("maxSize");
+        Integer format = call.argument("format");
+        Integer quality = call.argument("quality");
+        Boolean asFile = call.argument("asFile");
+
+        final ImageEncoder encoder;
+        try {
+            encoder = new ImageEncoder(0, format != null ? format : ImageEncoder.FORMAT_JPEG,
+                    quality != null ? quality : 90, false);
+        } catch (IllegalArgumentException ex) {
+            sendErrorResult(BarkoderFlutterErrors.FRAME_NOT_CAPTURED, ex.getMessage(), methodResult);
+            return;
+        }
+
+        FrameCapture.capture(bkdView, maxSize != null ? Math.max(0, maxSize) : 0, frame -> {
+            if (frame == null) {
+                sendErrorResult(BarkoderFlutterErrors.FRAME_NOT_CAPTURED, "Camera preview isn't available", methodResult);
+                return;
+            }
+
+            try {
+                imageExecutor.execute(() -> {
+                    final int width = frame.getWidth();
+                    final int height = frame.getHeight();
+                    final byte[] bytes = encoder.encodeToBytes(frame);
+                    frame.recycle();
+
+                    if (bytes == null) {
+                        mainHandler.post(() -> sendErrorResult(BarkoderFlutterErrors.FRAME_NOT_CAPTURED, null, methodResult));
+                        return;
+                    }
+
+                    final Map<String, Object> capturedFrame = new HashMap<>();
+                    capturedFrame.put("width", width);
+                    capturedFrame.put("height", height);
+
+                    if (asFile != null && asFile) {
+                        File file = new File(cacheDir, "barkoder_frame_" + System.currentTimeMillis() + "."
+                                + encoder.fileExtension());
+                        try (FileOutputStream stream = new FileOutputStream(file)) {
+                            stream.write(bytes);
+                        } catch (IOException ex) {
+                            mainHandler.post(() -> sendErrorResult(BarkoderFlutterErrors.FRAME_NOT_CAPTURED,
+                                    ex.getMessage(), methodResult));
+                            return;
+                        }
+                        capturedFrame.put("filePath", file.getAbsolutePath());
+                    } else {
+                        capturedFrame.put("bytes", bytes);
+                    }
+
+                    mainHandler.post(() -> methodResult.success(capturedFrame));
+                });
+            } catch (RejectedExecutionException ex) {
+                frame.recycle();
+                sendErrorResult(BarkoderFlutterErrors.BARKODER_VIEW_DESTROYED, null, methodResult);
+            }
+        });
+    }
+
     private void stopScanning(MethodChannel.Result methodResult) {
+        stopLiveSession();
         bkdView.stopScanning();
+        cameraStarted = false;
 
         methodResult.success(null);
     }
 
-    private void startScanning(MethodChannel.Result methodResult) {
-        SoftReference<EventChannel.EventSink> scanningResultsEventSinkRef = new SoftReference<>(scanningResultsEventSink);
+    private void startScanning(MethodCall call, MethodChannel.Result methodResult) {
+        Boolean arDeltas = call.argument("arDeltas");
+        Boolean includeImages = call.argument("includeImages");
+        // Used on the result serializer thread only
+        final ArDeltaTracker arDeltaTracker = arDeltas != null && arDeltas
+                ? new ArDeltaTracker(includeImages != null && includeImages)
+                : null;
+        // Only session-end result sets are exported, live AR results stay small
+        final int exportMode = bkdView.config.getArConfig().getEmitResultsAtSessionEndOnly()
+                ? sessionExportMode
+                : SESSION_EXPORT_OFF;
+        final int exportChunkSize = sessionExportChunkSize;
+        Boolean binary = call.argument("binary");
+        final boolean binaryResults = binary != null && binary;
+
+        sessionStats.onScanningStarted();
+        liveResultCallback = (results, thumbnails, resultImage) -> {
+            if (bkdView.config.isCloseSessionOnResultEnabled()) {
+                // Session is over, the throttle must not start it again
+                stopLiveSession();
+            } else {
+                liveScanThrottle.onResults();
+            }
+            sessionStats.onScanningResult();
+            // Live decodes aren't timed by the SDK
+            metricsEmitter.onDecode(-1);
+            // Location points refer to the camera frame
+            final int[] frameSize = liveFrameSize(resultImage);
+            regionOfInterestTracker.onLiveResults(results, frameSize[0], frameSize[1]);
+            onResultsDecoded(results);
+
+            if (binaryResults) {
+                deliverBinaryResults(results, frameSize[0], frameSize[1]);
+                return;
+            }
+
+            // Bitmaps the format leaves out aren't held until the results are serialized
+            final ResultsFormat resultsFormat = reserveResultsFormat(frameSize[0], frameSize[1], thumbnails,
+                    resultImage);
+            final Bitmap[] heldThumbnails = resultsFormat.thumbnails != null ? thumbnails : null;
+            final Bitmap heldResultImage = resultsFormat.images != null ? resultImage : null;
+            final long thumbnailsBytes = MemoryBudget.bitmapBytes(heldThumbnails);
+            final long resultImageBytes = MemoryBudget.bitmapBytes(heldResultImage);
+
+            if (arDeltaTracker != null) {
+                // Interactive modes only report the barcodes that are selected, the others are
+                // reported as they're detected
+                final boolean selected =
+                        bkdView.config.getArConfig().getARMode() != BarkoderARMode.NonInteractive;
+                deliverResults(() -> {
+                    ArDeltaTracker.Delta delta = arDeltaTracker.update(results, heldThumbnails, selected);
+                    // Nothing changed, nothing is sent
+                    return delta.isEmpty()
+                            ? null
+                            : Util.arDeltaToJsonString(delta, resultsFormat);
+                }, thumbnailsBytes + resultImageBytes);
+                return;
+            }
 
-        bkdView.startScanning((results, thumbnails, resultImage) -> {
-            EventChannel.EventSink sink = scanningResultsEventSinkRef.get();
-            if (sink != null)
-                sink.success(Util.barkoderResultsToJsonString(results, thumbnails, resultImage));
-        });
+            if (exportMode != SESSION_EXPORT_OFF && results != null) {
+                deliverSessionExport(results, heldThumbnails, heldResultImage, resultsFormat, exportMode, exportChunkSize,
+                        thumbnailsBytes + resultImageBytes);
+                return;
+            }
+
+            if (resultsFormat.thumbnails != null && resultsFormat.thumbnails.isDeferred()
+                    && heldThumbnails != null && heldThumbnails.length > 0) {
+                final long resultId = resultIds.incrementAndGet();
+                deliverResults(() -> Util.deferredBarkoderResultsToJsonString(results, heldResultImage, resultId,
+                        resultsFormat), resultImageBytes);
+                deliverThumbnails(resultId, heldThumbnails, resultsFormat.thumbnails, thumbnailsBytes);
+                return;
+            }
+
+            deliverResults(() -> Util.barkoderResultsToJsonString(results, heldThumbnails, heldResultImage, resultsFormat),
+                    thumbnailsBytes + resultImageBytes);
+        };
+        bkdView.startScanning(liveResultCallback);
+        cameraStarted = true;
+        startLiveScanThrottle();
 
         methodResult.success(null);
     }
 
+    /**
+     * Size of the camera frame the location points of live results refer to: the result image if
+     * there is one, otherwise the capture size of the configured resolution, turned like the view.
+     * Main thread only.
+     *
+     * @return width, height
+     */
+    private int[] liveFrameSize(Bitmap resultImage) {
+        if (resultImage != null) return new int[]{resultImage.getWidth(), resultImage.getHeight()};
+
+        int longSide;
+        int shortSide;
+        switch (bkdView.config.getBarkoderResolution()) {
+            case UHD:
+                longSide = 3840;
+                shortSide = 2160;
+                break;
+            case FHD:
+                longSide = 1920;
+                shortSide = 1080;
+                break;
+            default:
+                longSide = 1280;
+                shortSide = 720;
+        }
+
+        // The SDK delivers frames upright, like the preview
+        return bkdView.getHeight() > bkdView.getWidth()
+                ? new int[]{shortSide, longSide}
+                : new int[]{longSide, shortSide};
+    }
+
+    /**
+     * Duty-cycles the running live session according to the decode rate limit. Main thread only.
+     */
+    private void startLiveScanThrottle() {
+        final BarkoderResultCallback callback = liveResultCallback;
+        liveScanThrottle.start(new LiveScanThrottle.Session() {
+            @Override
+            public void pause() {
+                bkdView.pauseScanning();
+            }
+
+            @Override
+            public void resume() {
+                bkdView.startScanning(callback);
+            }
+        });
+    }
+
+    private void stopLiveSession() {
+        liveScanThrottle.stop();
+        liveResultCallback = null;
+    }
+
     private void startCamera(MethodChannel.Result methodResult) {
         bkdView.startCamera();
+        cameraStarted = true;
 
         methodResult.success(null);
     }
@@ -917,6 +1566,8 @@ class BarkoderFlutterView implements PlatformView, MethodChannel.MethodCallHandl
                     bkdView.config.getDecoderConfig());
 
             if (specificConfig != null) {
+                // Learned profile is based on the previous set of types
+                symbologyProfiler.stop();
                 specificConfig.enabled = enabled;
                 methodResult.success(null);
             } else {
@@ -1037,6 +1688,8 @@ class BarkoderFlutterView implements PlatformView, MethodChannel.MethodCallHandl
     private void setDecodingSpeed(int decodingSpeedOrdinal, MethodChannel.Result methodResult) {
         try {
             bkdView.config.getDecoderConfig().decodingSpeed = Barkoder.DecodingSpeed.valueOf(decodingSpeedOrdinal);
+            // Manually picked value wins over the governor
+            frameBudgetGovernor.disable();
 
             methodResult.success(null);
         } catch (Exception ex) {
@@ -1360,7 +2013,7 @@ class BarkoderFlutterView implements PlatformView, MethodChannel.MethodCallHandl
         result.success(null);
     }
 
-    private void configureCloseButton(MethodCall call, MethodChannel.Result methodResult) {
+    private Runnable configureCloseButton(MethodCall call, MethodChannel.Result methodResult) {
         Boolean visible = call.argument("visible");
         Double positionX = call.argument("positionX");
         Double positionY = call.argument("positionY");
@@ -1379,28 +2032,35 @@ class BarkoderFlutterView implements PlatformView, MethodChannel.MethodCallHandl
         Boolean useCustomIcon = call.argument("useCustomIcon");
 
         String base64CustomIcon = call.argument("customIcon");
-        final Bitmap customIcon = Util.decodeBase64BitmapOrNull(base64CustomIcon);
-
-        bkdView.configureCloseButton(
-                visible,
-                new float[]{ positionX.floatValue(), positionY.floatValue() },
-                iconSize,
-                tintColor,
-                backgroundColor,
-                cornerRadius,
-                padding,
-                useCustomIcon,
-                customIcon,
-                () -> {
-                    if (uiEventsEventSink != null) {
-                        uiEventsEventSink.success("closeButtonTapped");
+        final Bitmap customIcon;
+        try {
+            customIcon = iconCache.resolve(base64CustomIcon);
+        } catch (IllegalArgumentException ex) {
+            return () -> sendErrorResult(BarkoderFlutterErrors.ICON_NOT_FOUNDED, ex.getMessage(), methodResult);
+        }
+
+        return () -> {
+            bkdView.configureCloseButton(
+                    visible,
+                    new float[]{ positionX.floatValue(), positionY.floatValue() },
+                    iconSize,
+                    tintColor,
+                    backgroundColor,
+                    cornerRadius,
+                    padding,
+                    useCustomIcon,
+                    customIcon,
+                    () -> {
+                        if (uiEventsEventSink != null) {
+                            uiEventsEventSink.success("closeButtonTapped");
+                        }
                     }
-                }
-        );
-        methodResult.success(null);
+            );
+            methodResult.success(null);
+        };
     }
 
-    private void configureFlashButton(MethodCall call, MethodChannel.Result methodResult) {
+    private Runnable configureFlashButton(MethodCall call, MethodChannel.Result methodResult) {
         Boolean visible = call.argument("visible");
         Double positionX = call.argument("positionX");
         Double positionY = call.argument("positionY");
@@ -1420,25 +2080,33 @@ class BarkoderFlutterView implements PlatformView, MethodChannel.MethodCallHandl
 
         String base64On  = call.argument("customIconFlashOn");
         String base64Off = call.argument("customIconFlashOff");
-        final Bitmap customIconFlashOn  = Util.decodeBase64BitmapOrNull(base64On);
-        final Bitmap customIconFlashOff = Util.decodeBase64BitmapOrNull(base64Off);
-
-        bkdView.configureFlashButton(
-                visible,
-                new float[]{ positionX.floatValue(), positionY.floatValue() },
-                iconSize,
-                tintColor,
-                backgroundColor,
-                cornerRadius,
-                padding,
-                useCustomIcon,
-                customIconFlashOn,
-                customIconFlashOff
-        );
-        methodResult.success(null);
+        final Bitmap customIconFlashOn;
+        final Bitmap customIconFlashOff;
+        try {
+            customIconFlashOn  = iconCache.resolve(base64On);
+            customIconFlashOff = iconCache.resolve(base64Off);
+        } catch (IllegalArgumentException ex) {
+            return () -> sendErrorResult(BarkoderFlutterErrors.ICON_NOT_FOUNDED, ex.getMessage(), methodResult);
+        }
+
+        return () -> {
+            bkdView.configureFlashButton(
+                    visible,
+                    new float[]{ positionX.floatValue(), positionY.floatValue() },
+                    iconSize,
+                    tintColor,
+                    backgroundColor,
+                    cornerRadius,
+                    padding,
+                    useCustomIcon,
+                    customIconFlashOn,
+                    customIconFlashOff
+            );
+            methodResult.success(null);
+        };
     }
 
-    private void configureZoomButton(MethodCall call, MethodChannel.Result methodResult) {
+    private Runnable configureZoomButton(MethodCall call, MethodChannel.Result methodResult) {
         Boolean visible = call.argument("visible");
         Double positionX = call.argument("positionX");
         Double positionY = call.argument("positionY");
@@ -1462,24 +2130,49 @@ class BarkoderFlutterView implements PlatformView, MethodChannel.MethodCallHandl
 
         String base64In  = call.argument("customIconZoomedIn");
         String base64Out = call.argument("customIconZoomedOut");
-        final Bitmap customIconZoomedIn  = Util.decodeBase64BitmapOrNull(base64In);
-        final Bitmap customIconZoomedOut = Util.decodeBase64BitmapOrNull(base64Out);
-
-        bkdView.configureZoomButton(
-                visible,
-                new float[]{ positionX.floatValue(), positionY.floatValue() },
-                iconSize,
-                tintColor,
-                backgroundColor,
-                cornerRadius,
-                padding,
-                useCustomIcon,
-                customIconZoomedIn,
-                customIconZoomedOut,
-                zoomedInFactor,
-                zoomedOutFactor
-        );
-        methodResult.success(null);
+        final Bitmap customIconZoomedIn;
+        final Bitmap customIconZoomedOut;
+        try {
+            customIconZoomedIn  = iconCache.resolve(base64In);
+            customIconZoomedOut = iconCache.resolve(base64Out);
+        } catch (IllegalArgumentException ex) {
+            return () -> sendErrorResult(BarkoderFlutterErrors.ICON_NOT_FOUNDED, ex.getMessage(), methodResult);
+        }
+
+        return () -> {
+            bkdView.configureZoomButton(
+                    visible,
+                    new float[]{ positionX.floatValue(), positionY.floatValue() },
+                    iconSize,
+                    tintColor,
+                    backgroundColor,
+                    cornerRadius,
+                    padding,
+                    useCustomIcon,
+                    customIconZoomedIn,
+                    customIconZoomedOut,
+                    zoomedInFactor,
+                    zoomedOutFactor
+            );
+            methodResult.success(null);
+        };
+    }
+
+    private Runnable registerIcon(MethodCall call, MethodChannel.Result methodResult) {
+        String id = call.argument("id");
+        String icon = call.argument("icon");
+
+        try {
+            iconCache.register(id, icon);
+        } catch (IllegalArgumentException ex) {
+            return () -> sendErrorResult(BarkoderFlutterErrors.ICON_NOT_FOUNDED, ex.getMessage(), methodResult);
+        }
+
+        return () -> methodResult.success(null);
+    }
+
+    private void unregisterIcon(String id, MethodChannel.Result methodResult) {
+        methodResult.success(iconCache.unregister(id));
     }
 
     private void selectVisibleBarcodes(MethodChannel.Result methodResult) {
@@ -1658,85 +2351,443 @@ class BarkoderFlutterView implements PlatformView, MethodChannel.MethodCallHandl
         methodResult.success(bkdView.config.isScanningIndicatorAlwaysVisible());
     }
 
-    private void configureBarkoder(String barkoderConfigAsJsonString, MethodChannel.Result methodResult) {
+    private Runnable configureBarkoder(String barkoderConfigAsJsonString, MethodChannel.Result methodResult) {
+        final JSONObject configAsJson;
+        long traceStart = PluginTrace.begin("configureBarkoder", "parse");
         try {
-            JSONObject configAsJson = new JSONObject(barkoderConfigAsJsonString);
+            configAsJson = Util.configJsonFromString(barkoderConfigAsJsonString);
+        } catch (Exception ex) {
+            return () -> sendErrorResult(BarkoderFlutterErrors.BARKODER_CONFIG_IS_NOT_VALID, ex.getMessage(), methodResult);
+        } finally {
+            PluginTrace.end("configureBarkoder", "parse", traceStart);
+        }
 
-            // Its easier for the users to send us hex color from the cross platform
+        return () -> {
+            long applyTraceStart = PluginTrace.begin("configureBarkoder", "apply");
+            try {
+                // Learned profile is based on the previous set of types
+                symbologyProfiler.stop();
+                Barkoder.DecodingSpeed previousSpeed = bkdView.config.getDecoderConfig().decodingSpeed;
+                BarkoderHelper.applyJsonToConfig(bkdView.config, configAsJson);
+                // Newly configured speed wins over the governor, like with setDecodingSpeed
+                if (bkdView.config.getDecoderConfig().decodingSpeed != previousSpeed)
+                    frameBudgetGovernor.disable();
 
-            if (configAsJson.has("roiLineColor")) {
-                String colorAsHex = configAsJson.getString("roiLineColor");
-                configAsJson.put("roiLineColor", Util.hexColorToIntColor(colorAsHex));
+                methodResult.success(null);
+            } catch (Exception ex) {
+                sendErrorResult(BarkoderFlutterErrors.BARKODER_CONFIG_IS_NOT_VALID, ex.getMessage(), methodResult);
+            } finally {
+                PluginTrace.end("configureBarkoder", "apply", applyTraceStart);
             }
+        };
+    }
 
-            if (configAsJson.has("roiOverlayBackgroundColor")) {
-                String colorAsHex = configAsJson.getString("roiOverlayBackgroundColor");
-                configAsJson.put("roiOverlayBackgroundColor", Util.hexColorToIntColor(colorAsHex));
-            }
+    private Runnable scanImage(String base64image, MethodChannel.Result methodResult) {
+        // Decode the base64 image string into a byte array using android.util.Base64
+        final byte[] imageData;
+        try {
+            imageData = android.util.Base64.decode(base64image, android.util.Base64.DEFAULT);
+        } catch (IllegalArgumentException ex) {
+            return () -> sendErrorResult(BarkoderFlutterErrors.INVALID_IMAGE, ex.getMessage(), methodResult);
+        }
+        if (imageData == null) {
+            return () -> sendErrorResult(BarkoderFlutterErrors.INVALID_IMAGE, null, methodResult);
+        }
 
-            if (configAsJson.has("locationLineColor")) {
-                String colorAsHex = configAsJson.getString("locationLineColor");
-                configAsJson.put("locationLineColor", Util.hexColorToIntColor(colorAsHex));
+        // The config can only be read on the main thread, so the final cache lookup happens there.
+        // Here it's only checked whether decoding the bitmap can be skipped.
+        final String imageHash = scanResultCache.isEnabled() ? ScanResultCache.hashImage(imageData) : null;
+        final Bitmap decodedImage = imageHash != null && scanResultCache.containsImage(imageHash)
+                ? null
+                : BitmapFactory.decodeByteArray(imageData, 0, imageData.length);
+
+        return () -> {
+            final long scanStartNanos = SystemClock.elapsedRealtimeNanos();
+            // Escalation steps are derived from the user's config, the governor only applies without them
+            final BarkoderConfig decodeConfig = scanImageEscalationEnabled ? bkdView.config : measuredDecodeConfig();
+            final String cacheKey = imageHash != null && scanResultCache.isEnabled()
+                    ? ScanResultCache.createKey(imageHash,
+                            Util.decodingConfigFingerprint(decodeConfig) + "|" + scanImageEscalationEnabled
+                                    + "|" + locationPointsEncoding + "|" + thumbnailEncoder.fingerprint()
+                                    + "|" + resultImageCropper.fingerprint())
+                    : null;
+
+            if (cacheKey != null) {
+                ScanResultCache.Entry cachedResults = scanResultCache.get(cacheKey);
+                if (cachedResults != null) {
+                    sessionStats.onScanImageFinished(SystemClock.elapsedRealtimeNanos() - scanStartNanos);
+                    onResultsDecoded(cachedResults.results);
+                    deliverResults(() -> cachedResults.resultsJson);
+
+                    methodResult.success(null);
+                    return;
+                }
             }
 
-            if (configAsJson.has("scanningIndicatorColor")) {
-                String colorAsHex = configAsJson.getString("scanningIndicatorColor");
-                configAsJson.put("scanningIndicatorColor", Util.hexColorToIntColor(colorAsHex));
+            // Only happens if the image was cached with a different config in the meantime
+            Bitmap image = decodedImage != null
+                    ? decodedImage
+                    : BitmapFactory.decodeByteArray(imageData, 0, imageData.length);
+            if (image == null) {
+                sendErrorResult(BarkoderFlutterErrors.INVALID_IMAGE, null, methodResult);
+                return;
             }
 
-            if (configAsJson.has("selectedLocationColor")) {
-                String colorAsHex = configAsJson.getString("selectedLocationColor");
-                configAsJson.put("selectedLocationColor", Util.hexColorToIntColor(colorAsHex));
+            // The scanned image is held until its results are serialized. It's decoded either way, but if
+            // it doesn't fit in the budget its results go text only.
+            int level = memoryBudget.level();
+            long heldImageBytes = MemoryBudget.bitmapBytes(image);
+            if (!memoryAccount.tryAcquire(heldImageBytes)) {
+                level = MemoryBudget.LEVEL_TEXT_ONLY;
+                heldImageBytes = 0;
             }
+            if (level != MemoryBudget.LEVEL_FULL) memoryBudget.onDecodeDegraded();
+            final int memoryLevel = level;
+            final long imageBytes = heldImageBytes;
+
+            // Location points refer to the scanned image
+            final ResultsFormat resultsFormat = resultsFormat(image.getWidth(), image.getHeight(), memoryLevel);
+            // Lighter results aren't cached, the same image is sent in full once memory is back
+            final String resultsCacheKey = memoryLevel == MemoryBudget.LEVEL_FULL ? cacheKey : null;
+            final int traceCookie = PluginTrace.nextCookie();
+            final long decodeTraceStart = PluginTrace.beginAsync("scanImage.decode", traceCookie);
+
+            if (scanImageEscalationEnabled) {
+                if (decodingEscalation == null)
+                    decodingEscalation = new DecodingEscalation(appContext, licenseKey);
+
+                decodingEscalation.scan(image, bkdView.config,
+                        (results, thumbnails, resultImage, step) -> {
+                            PluginTrace.endAsync("scanImage.decode", traceCookie, decodeTraceStart);
+                            sessionStats.onScanImageFinished(SystemClock.elapsedRealtimeNanos() - scanStartNanos);
+                            onResultsDecoded(results);
+
+                            deliverResults(() -> {
+                                String resultsJson = Util.barkoderResultsToJsonString(results, thumbnails, resultImage, step,
+                                        resultsFormat);
+                                if (resultsCacheKey != null)
+                                    scanResultCache.put(resultsCacheKey, resultsJson, results);
+
+                                return resultsJson;
+                            }, imageBytes);
+                        });
 
-            if (configAsJson.has("nonSelectedLocationColor")) {
-                String colorAsHex = configAsJson.getString("nonSelectedLocationColor");
-                configAsJson.put("nonSelectedLocationColor", Util.hexColorToIntColor(colorAsHex));
+                methodResult.success(null);
+                return;
             }
 
-            if (configAsJson.has("headerTextColorSelected")) {
-                String colorAsHex = configAsJson.getString("headerTextColorSelected");
-                configAsJson.put("headerTextColorSelected", Util.hexColorToIntColor(colorAsHex));
-            }
+            // Call the BarkoderHelper's scanImage function with the image, config, and result delegate
+            final long decodeStartNanos = onMeasuredDecodeStarting();
+            BarkoderHelper.scanImage(image, decodeConfig, (results, thumbnails, resultImage) -> {
+                // Taken first, before anything else runs in the callback
+                final long decodeNanos = SystemClock.elapsedRealtimeNanos() - decodeStartNanos;
+                PluginTrace.endAsync("scanImage.decode", traceCookie, decodeTraceStart);
+                onDecodeMeasured(decodeNanos, results);
+                sessionStats.onScanImageFinished(SystemClock.elapsedRealtimeNanos() - scanStartNanos);
+                onResultsDecoded(results);
+
+                deliverResults(() -> {
+                    String resultsJson = Util.barkoderResultsToJsonString(results, thumbnails, resultImage, resultsFormat);
+                    if (resultsCacheKey != null)
+                        scanResultCache.put(resultsCacheKey, resultsJson, results);
+
+                    return resultsJson;
+                }, imageBytes);
+            }, appContext);
 
-            if (configAsJson.has("headerTextColorNonSelected")) {
-                String colorAsHex = configAsJson.getString("headerTextColorNonSelected");
-                configAsJson.put("headerTextColorNonSelected", Util.hexColorToIntColor(colorAsHex));
-            }
+            methodResult.success(null);
+        };
+    }
 
-            BarkoderHelper.applyJsonToConfig(bkdView.config, configAsJson);
+    private void setScanImageEscalationEnabled(boolean enabled, MethodChannel.Result methodResult) {
+        scanImageEscalationEnabled = enabled;
+
+        methodResult.success(null);
+    }
+
+    private void isScanImageEscalationEnabled(MethodChannel.Result methodResult) {
+        methodResult.success(scanImageEscalationEnabled);
+    }
+
+    private void configureScanImageCache(MethodCall call, MethodChannel.Result methodResult) {
+        Boolean enabled = call.argument("enabled");
+        Integer maxEntries = call.argument("maxEntries");
+        Number maxAgeMs = call.argument("maxAgeMs");
+
+        try {
+            scanResultCache.configure(enabled != null && enabled,
+                    maxEntries != null ? maxEntries : ScanResultCache.DEFAULT_MAX_ENTRIES,
+                    maxAgeMs != null ? maxAgeMs.longValue() : ScanResultCache.DEFAULT_MAX_AGE_MS);
 
             methodResult.success(null);
-        } catch (Exception ex) {
-            sendErrorResult(BarkoderFlutterErrors.BARKODER_CONFIG_IS_NOT_VALID, ex.getMessage(), methodResult);
+        } catch (IllegalArgumentException ex) {
+            sendErrorResult(BarkoderFlutterErrors.SCAN_IMAGE_CACHE_NOT_CONFIGURED, ex.getMessage(), methodResult);
         }
     }
 
-    private void scanImage(String base64image, MethodChannel.Result methodResult) {
-        SoftReference<EventChannel.EventSink> scanningResultsEventSinkRef = new SoftReference<>(scanningResultsEventSink);
+    private void getScanImageCacheStats(MethodChannel.Result methodResult) {
+        methodResult.success(scanResultCache.getStats());
+    }
 
-        // Decode the base64 image string into a byte array using android.util.Base64
-        byte[] imageData = android.util.Base64.decode(base64image, android.util.Base64.DEFAULT);
-        if (imageData == null) {
-            return; // If decoding fails, exit
+    private void clearScanImageCache(MethodChannel.Result methodResult) {
+        scanResultCache.clear();
+
+        methodResult.success(null);
+    }
+
+    private void startSymbologyLearning(MethodCall call, MethodChannel.Result methodResult) {
+        Boolean autoApply = call.argument("autoApply");
+        Number windowMs = call.argument("windowMs");
+        Number probeIntervalMs = call.argument("probeIntervalMs");
+        Number probeDurationMs = call.argument("probeDurationMs");
+
+        try {
+            // A running profile is restored first, so the full set is read from the config
+            symbologyProfiler.stop();
+            symbologyProfiler.start(enabledBarcodeTypes(), autoApply != null && autoApply,
+                    windowMs != null ? windowMs.longValue() : 0,
+                    probeIntervalMs != null ? probeIntervalMs.longValue() : SymbologyProfiler.DEFAULT_PROBE_INTERVAL_MS,
+                    probeDurationMs != null ? probeDurationMs.longValue() : SymbologyProfiler.DEFAULT_PROBE_DURATION_MS);
+
+            methodResult.success(null);
+        } catch (IllegalArgumentException ex) {
+            sendErrorResult(BarkoderFlutterErrors.SYMBOLOGY_LEARNING_NOT_STARTED, ex.getMessage(), methodResult);
         }
+    }
+
+    private void stopSymbologyLearning(MethodChannel.Result methodResult) {
+        symbologyProfiler.stop();
+
+        methodResult.success(null);
+    }
+
+    private void getSymbologyProfile(MethodChannel.Result methodResult) {
+        methodResult.success(symbologyProfiler.getProfile());
+    }
+
+    private void setTracingEnabled(boolean enabled, MethodChannel.Result methodResult) {
+        PluginTrace.setEnabled(enabled);
+
+        methodResult.success(null);
+    }
+
+    private void isTracingEnabled(MethodChannel.Result methodResult) {
+        methodResult.success(PluginTrace.isEnabled());
+    }
 
-        // Create a Bitmap from the decoded byte array
-        Bitmap image = BitmapFactory.decodeByteArray(imageData, 0, imageData.length);
-        if (image == null) {
+    private Runnable dumpTrace(MethodCall call, MethodChannel.Result methodResult) {
+        String fileName = call.argument("fileName");
+        Boolean clear = call.argument("clear");
+
+        if (fileName != null && fileName.contains(File.separator)) {
+            return () -> sendErrorResult(BarkoderFlutterErrors.TRACE_NOT_DUMPED, "File name can't contain a path", methodResult);
+        }
+
+        File traceFile = new File(filesDir, fileName != null ? fileName : "barkoder_trace.json");
+        try {
+            PluginTrace.dump(traceFile);
+            if (clear != null && clear) PluginTrace.clear();
+        } catch (IOException ex) {
+            return () -> sendErrorResult(BarkoderFlutterErrors.TRACE_NOT_DUMPED, ex.getMessage(), methodResult);
+        }
+
+        return () -> methodResult.success(traceFile.getAbsolutePath());
+    }
+
+    private void getSessionStats(MethodChannel.Result methodResult) {
+        methodResult.success(sessionStats.toMap());
+    }
+
+    private void resetSessionStats(MethodChannel.Result methodResult) {
+        sessionStats.reset();
+
+        methodResult.success(null);
+    }
+
+    private void setDecodeRateLimit(MethodCall call, MethodChannel.Result methodResult) {
+        Integer maxDecodesPerSecond = call.argument("maxDecodesPerSecond");
+        Integer decodeEveryNthFrame = call.argument("decodeEveryNthFrame");
+
+        try {
+            decodeRateLimiter.configure(maxDecodesPerSecond != null ? maxDecodesPerSecond : 0,
+                    decodeEveryNthFrame != null ? decodeEveryNthFrame : 1);
+            liveScanThrottle.configure(maxDecodesPerSecond != null ? maxDecodesPerSecond : 0,
+                    decodeEveryNthFrame != null ? decodeEveryNthFrame : 1);
+
+            methodResult.success(null);
+        } catch (IllegalArgumentException ex) {
+            sendErrorResult(BarkoderFlutterErrors.DECODE_RATE_LIMIT_NOT_SET, ex.getMessage(), methodResult);
+        }
+    }
+
+    private void getDecodeRateStats(MethodChannel.Result methodResult) {
+        Map<String, Object> stats = decodeRateLimiter.getStats();
+        liveScanThrottle.fillStats(stats);
+
+        methodResult.success(stats);
+    }
+
+    private void resetDecodeRateStats(MethodChannel.Result methodResult) {
+        decodeRateLimiter.resetStats();
+        liveScanThrottle.resetStats();
+
+        methodResult.success(null);
+    }
+
+    private void setLocationPointsEncoding(int encoding, MethodChannel.Result methodResult) {
+        if (!LocationPointsEncoder.isValid(encoding)) {
+            sendErrorResult(BarkoderFlutterErrors.LOCATION_POINTS_ENCODING_NOT_FOUNDED, null, methodResult);
             return;
         }
 
-        // Call the BarkoderHelper's scanImage function with the image, config, and result delegate
-        BarkoderHelper.scanImage(image, bkdView.config, (results, thumbnails, resultImage) -> {
-            EventChannel.EventSink sink = scanningResultsEventSinkRef.get();
-            if (sink != null)
-                sink.success(Util.barkoderResultsToJsonString(results, thumbnails, resultImage));
-        }, this.bkdView.getContext());
+        locationPointsEncoding = encoding;
 
         methodResult.success(null);
     }
 
+    private void getLocationPointsEncoding(MethodChannel.Result methodResult) {
+        methodResult.success(locationPointsEncoding);
+    }
+
+    private void setThumbnailOptions(MethodCall call, MethodChannel.Result methodResult) {
+        Integer maxSize = call.argument("maxSize");
+        Integer format = call.argument("format");
+        Integer quality = call.argument("quality");
+        Boolean deferred = call.argument("deferred");
+
+        try {
+            thumbnailEncoder = new ImageEncoder(maxSize != null ? maxSize : 0,
+                    format != null ? format : ImageEncoder.FORMAT_PNG,
+                    quality != null ? quality : 100,
+                    deferred != null && deferred);
+
+            methodResult.success(null);
+        } catch (IllegalArgumentException ex) {
+            sendErrorResult(BarkoderFlutterErrors.THUMBNAIL_OPTIONS_NOT_SET, ex.getMessage(), methodResult);
+        }
+    }
+
+    private void getThumbnailOptions(MethodChannel.Result methodResult) {
+        methodResult.success(thumbnailEncoder.toMap());
+    }
+
+    private void setResultImageMode(MethodCall call, MethodChannel.Result methodResult) {
+        Integer mode = call.argument("mode");
+        Double margin = call.argument("margin");
+        Boolean deskew = call.argument("deskew");
+
+        try {
+            resultImageCropper = new ResultImageCropper(mode != null ? mode : ResultImageCropper.FULL,
+                    margin != null ? margin.floatValue() : 0,
+                    deskew != null && deskew);
+
+            methodResult.success(null);
+        } catch (IllegalArgumentException ex) {
+            sendErrorResult(BarkoderFlutterErrors.RESULT_IMAGE_MODE_NOT_SET, ex.getMessage(), methodResult);
+        }
+    }
+
+    private void setSessionEndExport(MethodCall call, MethodChannel.Result methodResult) {
+        Integer mode = call.argument("mode");
+        Integer chunkSize = call.argument("chunkSize");
+
+        if (mode == null || mode < SESSION_EXPORT_OFF || mode > SESSION_EXPORT_FILE) {
+            sendErrorResult(BarkoderFlutterErrors.SESSION_END_EXPORT_NOT_SET, "Unknown mode " + mode, methodResult);
+            return;
+        }
+        if (chunkSize != null && chunkSize <= 0) {
+            sendErrorResult(BarkoderFlutterErrors.SESSION_END_EXPORT_NOT_SET, "Chunk size must be > 0", methodResult);
+            return;
+        }
+
+        sessionExportMode = mode;
+        sessionExportChunkSize = chunkSize != null ? chunkSize : DEFAULT_SESSION_EXPORT_CHUNK_SIZE;
+
+        methodResult.success(null);
+    }
+
+    private void setMemoryBudget(MethodCall call, MethodChannel.Result methodResult) {
+        Number maxBytes = call.argument("maxBytes");
+
+        try {
+            memoryBudget.setMaxBytes(maxBytes != null ? maxBytes.longValue() : MemoryBudget.DEFAULT_MAX_BYTES);
+
+            methodResult.success(null);
+        } catch (IllegalArgumentException ex) {
+            sendErrorResult(BarkoderFlutterErrors.MEMORY_BUDGET_NOT_SET, ex.getMessage(), methodResult);
+        }
+    }
+
+    private void getMemoryBudgetStats(MethodChannel.Result methodResult) {
+        methodResult.success(memoryBudget.getStats());
+    }
+
+    private Runnable scanFrame(MethodCall call, MethodChannel.Result methodResult) {
+        final FrameScanner.Frame frameArguments;
+        try {
+            frameArguments = FrameScanner.Frame.fromArguments(call);
+        } catch (IllegalArgumentException ex) {
+            return () -> sendErrorResult(BarkoderFlutterErrors.INVALID_FRAME, ex.getMessage(), methodResult);
+        }
+
+        // Skipped before any conversion, so frames over the limit cost next to nothing
+        if (!decodeRateLimiter.tryAcquire()) {
+            return () -> methodResult.success(null);
+        }
+
+        final Bitmap frame = frameScanner.prepareFrame(frameArguments);
+
+        // Previous frame is still in use, so this one is skipped
+        if (frame == null) {
+            decodeRateLimiter.onDropped();
+            return () -> methodResult.success(null);
+        }
+
+        final int frameWidth = frame.getWidth();
+        final int frameHeight = frame.getHeight();
+
+        return () -> {
+            final int traceCookie = PluginTrace.nextCookie();
+            final long decodeTraceStart = PluginTrace.beginAsync("scanFrame.decode", traceCookie);
+            final long decodeStartNanos = onMeasuredDecodeStarting();
+            frameScanner.decode(frame, measuredDecodeConfig(), appContext, (results, thumbnails, resultImage) -> {
+                // Taken first, before anything else runs in the callback
+                final long decodeNanos = SystemClock.elapsedRealtimeNanos() - decodeStartNanos;
+                PluginTrace.endAsync("scanFrame.decode", traceCookie, decodeTraceStart);
+                onDecodeMeasured(decodeNanos, results);
+                regionOfInterestTracker.onFrameDecoded(results, frameWidth, frameHeight);
+                onResultsDecoded(results);
+
+                // Bitmaps the format leaves out aren't held until the results are serialized
+                final ResultsFormat resultsFormat = reserveResultsFormat(frameWidth, frameHeight, thumbnails,
+                        resultImage);
+                final Bitmap[] heldThumbnails = resultsFormat.thumbnails != null ? thumbnails : null;
+                final Bitmap heldResultImage = resultsFormat.images != null ? resultImage : null;
+                final long heldBytes = MemoryBudget.bitmapBytes(heldThumbnails)
+                        + MemoryBudget.bitmapBytes(heldResultImage);
+
+                try {
+                    resultSerializer.execute(() -> {
+                        String resultsJson;
+                        try {
+                            resultsJson = Util.barkoderResultsToJsonString(results, heldThumbnails,
+                                    heldResultImage, resultsFormat);
+                        } finally {
+                            memoryAccount.release(heldBytes);
+                            // The result bitmaps may be backed by the reused frame bitmap
+                            frameScanner.releaseFrame();
+                        }
+                        mainHandler.post(() -> methodResult.success(resultsJson));
+                    });
+                } catch (RejectedExecutionException ex) {
+                    memoryAccount.release(heldBytes);
+                    frameScanner.releaseFrame();
+                    sendErrorResult(BarkoderFlutterErrors.BARKODER_VIEW_DESTROYED, null, methodResult);
+                }
+            });
+        };
+    }
+
     //endregion Methods
 
     //region Helper f-ons
@@ -1749,12 +2800,313 @@ class BarkoderFlutterView implements PlatformView, MethodChannel.MethodCallHandl
         // Its required
         @SuppressWarnings("ConstantConditions")
         String licenseKey = creationParams.get(LICENSE_PARAM_KEY).toString();
+        // Kept for configs that are created on the fly, e.g. the scanImage escalation steps
+        this.licenseKey = licenseKey;
 
         return new BarkoderConfig(context, licenseKey, licenseCheckResult -> {
             BarkoderLog.i(TAG, "License Info: " + Barkoder.GetLicenseInfo());
         });
     }
 
+    /**
+     * Serializes results on the result serializer and hands them to the main thread through the
+     * delivery queue. Safe to call from any thread, also after the view is disposed.
+     */
+    private void deliverResults(ResultsSerializer serializer) {
+        deliverResults(serializer, 0);
+    }
+
+    /**
+     * @param heldBytes memory of the bitmaps the serializer holds on to, already acquired from
+     *                  the memory budget. Given back once they're serialized.
+     */
+    private void deliverResults(ResultsSerializer serializer, long heldBytes) {
+        try {
+            resultSerializer.execute(() -> {
+                long encodeStartNanos = SystemClock.elapsedRealtimeNanos();
+                String resultsJson;
+                try {
+                    resultsJson = serializer.serialize();
+                } finally {
+                    memoryAccount.release(heldBytes);
+                }
+                if (resultsJson == null) return;
+
+                offerResults(resultsJson, encodeStartNanos);
+            });
+        } catch (RejectedExecutionException ex) {
+            // View is disposed, nobody listens anymore
+            onEventDropped();
+        }
+    }
+
+    /**
+     * Delivers a session-end result set as a sequence of chunk events or as a file, so the whole
+     * set is never serialized into a single string. Chunks wait for free room in the delivery queue,
+     * which bounds how much is held in memory. Any thread.
+     */
+    private void deliverSessionExport(Barkoder.Result[] results, Bitmap[] thumbnails, Bitmap resultImage,
+                                      ResultsFormat resultsFormat, int exportMode, int chunkSize, long heldBytes) {
+        try {
+            resultSerializer.execute(() -> {
+                try {
+                    exportSession(results, thumbnails, resultImage, resultsFormat, exportMode, chunkSize);
+                } finally {
+                    memoryAccount.release(heldBytes);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // View is disposed, nobody listens anymore
+            onEventDropped();
+        }
+    }
+
+    /**
+     * Result serializer thread only.
+     */
+    private void exportSession(Barkoder.Result[] results, Bitmap[] thumbnails, Bitmap resultImage,
+                               ResultsFormat resultsFormat, int exportMode, int chunkSize) {
+        if (exportMode == SESSION_EXPORT_FILE) {
+            long encodeStartNanos = SystemClock.elapsedRealtimeNanos();
+            File file = new File(cacheDir, "barkoder_session_" + System.currentTimeMillis() + ".json");
+            try {
+                Util.writeBarkoderResultsToFile(file, results, thumbnails, resultImage, resultsFormat);
+            } catch (IOException ex) {
+                BarkoderLog.d(TAG, "Session export not written: " + ex.getMessage());
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+                onEventDropped();
+                return;
+            }
+
+            offerResults(Util.sessionExportToJsonString(file, results.length), encodeStartNanos);
+            return;
+        }
+
+        int chunkCount = Math.max(1, (results.length + chunkSize - 1) / chunkSize);
+        for (int chunkIndex = 0; chunkIndex < chunkCount; chunkIndex++) {
+            long encodeStartNanos = SystemClock.elapsedRealtimeNanos();
+            int start = chunkIndex * chunkSize;
+            String chunkJson = Util.barkoderResultsChunkToJsonString(results, thumbnails, resultImage,
+                    start, Math.min(results.length, start + chunkSize), chunkIndex, chunkCount, resultsFormat);
+
+            if (!offerResults(chunkJson, encodeStartNanos)) return;
+        }
+    }
+
+    /**
+     * Encodes the results as a binary frame on the result serializer and sends it on the binary
+     * results channel. Any thread.
+     */
+    private void deliverBinaryResults(Barkoder.Result[] results, int frameWidth, int frameHeight) {
+        try {
+            resultSerializer.execute(() -> {
+                long encodeStartNanos = SystemClock.elapsedRealtimeNanos();
+                ByteBuffer frame = binaryResultsEncoder.encode(results, frameWidth, frameHeight);
+                if (frame == null) {
+                    onEventDropped();
+                    return;
+                }
+
+                long payloadBytes = sessionStats.onResultsEncoded(SystemClock.elapsedRealtimeNanos() - encodeStartNanos,
+                        frame.position());
+                metricsEmitter.onPayload(payloadBytes);
+
+                if (!binaryDeliveryQueue.offer(frame)) {
+                    onEventDropped();
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // View is disposed, nobody listens anymore
+            onEventDropped();
+        }
+    }
+
+    /**
+     * Result serializer thread only.
+     *
+     * @return false if the results were dropped
+     */
+    private boolean offerResults(String resultsJson, long encodeStartNanos) {
+        long payloadBytes = sessionStats.onResultsEncoded(SystemClock.elapsedRealtimeNanos() - encodeStartNanos, resultsJson);
+        metricsEmitter.onPayload(payloadBytes);
+
+        // Held until the main thread hands it to Dart, waits while earlier payloads fill the budget
+        memoryAccount.acquireQueued(MemoryBudget.stringBytes(resultsJson));
+        if (!resultDeliveryQueue.offer(resultsJson)) {
+            memoryAccount.releaseQueued(MemoryBudget.stringBytes(resultsJson));
+            onEventDropped();
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Main thread only.
+     */
+    private void onResultsDequeued(String resultsJson) {
+        memoryAccount.releaseQueued(MemoryBudget.stringBytes(resultsJson));
+    }
+
+    /**
+     * Takes the current result format settings for a decode on a frame of the given size, 0 if the
+     * size isn't known, that doesn't hold any bitmaps in the memory budget. Any thread.
+     */
+    private ResultsFormat resultsFormat(int frameWidth, int frameHeight) {
+        int memoryLevel = memoryBudget.level();
+        if (memoryLevel != MemoryBudget.LEVEL_FULL) memoryBudget.onDecodeDegraded();
+
+        return resultsFormat(frameWidth, frameHeight, memoryLevel);
+    }
+
+    /**
+     * Like {@link #resultsFormat(int, int)}, for a decode that holds its bitmaps until the results
+     * are serialized. The bitmaps the format uses are acquired from the memory budget. If they don't
+     * fit, the results go text only and nothing is acquired. Any thread.
+     */
+    private ResultsFormat reserveResultsFormat(int frameWidth, int frameHeight, Bitmap[] thumbnails,
+                                               Bitmap resultImage) {
+        int memoryLevel = memoryBudget.level();
+        ResultsFormat format = resultsFormat(frameWidth, frameHeight, memoryLevel);
+
+        long heldBytes = (format.thumbnails != null ? MemoryBudget.bitmapBytes(thumbnails) : 0)
+                + (format.images != null ? MemoryBudget.bitmapBytes(resultImage) : 0);
+        if (!memoryAccount.tryAcquire(heldBytes)) {
+            memoryLevel = MemoryBudget.LEVEL_TEXT_ONLY;
+            format = resultsFormat(frameWidth, frameHeight, memoryLevel);
+        }
+        if (memoryLevel != MemoryBudget.LEVEL_FULL) memoryBudget.onDecodeDegraded();
+
+        return format;
+    }
+
+    /**
+     * @param memoryLevel one of the {@link MemoryBudget} levels, results get lighter as it goes up
+     */
+    private ResultsFormat resultsFormat(int frameWidth, int frameHeight, int memoryLevel) {
+        ImageEncoder thumbnails = thumbnailEncoder;
+        ImageEncoder images = ImageEncoder.DEFAULT;
+        if (memoryLevel >= MemoryBudget.LEVEL_REDUCED_QUALITY) {
+            thumbnails = thumbnails.reduced();
+            images = images.reduced();
+        }
+        if (memoryLevel >= MemoryBudget.LEVEL_NO_THUMBNAILS) thumbnails = null;
+        if (memoryLevel >= MemoryBudget.LEVEL_TEXT_ONLY) images = null;
+
+        return new ResultsFormat(new LocationPointsEncoder(locationPointsEncoding, frameWidth, frameHeight),
+                thumbnails, images, resultImageCropper);
+    }
+
+    /**
+     * Encodes the thumbnails on the image executor and delivers them after the result they
+     * belong to. Any thread.
+     *
+     * @param heldBytes memory of the thumbnails, already acquired from the memory budget
+     */
+    private void deliverThumbnails(long resultId, Bitmap[] thumbnails, ImageEncoder thumbnailEncoder, long heldBytes) {
+        try {
+            imageExecutor.execute(() -> {
+                String thumbnailsJson;
+                try {
+                    thumbnailsJson = Util.thumbnailsToJsonString(resultId, thumbnails, thumbnailEncoder);
+                } finally {
+                    memoryAccount.release(heldBytes);
+                }
+                deliverResults(() -> thumbnailsJson);
+            });
+        } catch (RejectedExecutionException ex) {
+            // View is disposed, nobody listens anymore
+            onEventDropped();
+        }
+    }
+
+    /**
+     * Config of the decodes whose duration is measured: the user's config, or a copy with the
+     * governed decoding speed while the frame budget governor is enabled. Main thread only.
+     */
+    private BarkoderConfig measuredDecodeConfig() {
+        if (!frameBudgetGovernor.isEnabled()) return bkdView.config;
+
+        if (governedConfig == null)
+            governedConfig = new GovernedConfig(appContext, licenseKey);
+
+        return governedConfig.get(bkdView.config, frameBudgetGovernor.getDecodingSpeed());
+    }
+
+    /**
+     * Called right before a decode whose duration is measured, which then has to end with
+     * {@link #onDecodeMeasured}. Applies the tuned threads limit for it. Any thread.
+     *
+     * @return start timestamp of the decode
+     */
+    private long onMeasuredDecodeStarting() {
+        threadsLimitTuner.onDecodeStarted();
+        return SystemClock.elapsedRealtimeNanos();
+    }
+
+    /**
+     * Called for every decode whose duration is known (scanImage and scanFrame). The live camera
+     * pipeline doesn't report per-frame timings, so it isn't measured. The SDK reports decodes on
+     * the main thread, so the duration includes the wait for it. Any thread.
+     */
+    private void onDecodeMeasured(long decodeNanos, Barkoder.Result[] results) {
+        metricsEmitter.onDecode(decodeNanos);
+        threadsLimitTuner.onDecodeFinished(decodeNanos);
+        frameBudgetGovernor.onFrameDecoded(decodeNanos, results != null && results.length > 0);
+    }
+
+    /**
+     * Called for every finished decode, from any source. Any thread.
+     */
+    private void onResultsDecoded(Barkoder.Result[] results) {
+        symbologyProfiler.onResults(results);
+        sessionStats.onResults(results);
+    }
+
+    private void onEventDropped() {
+        sessionStats.onEventDropped();
+        metricsEmitter.onEventDropped();
+    }
+
+    private void fillMetricsSnapshot(Map<String, Object> snapshot) {
+        snapshot.put("queueDepth", resultDeliveryQueue.size());
+        snapshot.put("threadsLimit", BarkoderConfig.GetThreadsLimit());
+
+        if (bkdView != null) {
+            snapshot.put("barkoderResolution", bkdView.config.getBarkoderResolution().ordinal());
+            snapshot.put("decodingSpeed", bkdView.config.getDecoderConfig().decodingSpeed.ordinal());
+        }
+    }
+
+    private List<Integer> enabledBarcodeTypes() {
+        List<Integer> enabledTypes = new ArrayList<>();
+
+        for (Barkoder.DecoderType type : Barkoder.DecoderType.values()) {
+            try {
+                Barkoder.SpecificConfig specificConfig = Util.getSpecificConfigRefFromBarcodeTypeOrdinal(type.ordinal(),
+                        bkdView.config.getDecoderConfig());
+                if (specificConfig != null && specificConfig.enabled) enabledTypes.add(type.ordinal());
+            } catch (Exception ex) {
+                BarkoderLog.d(TAG, ex.getMessage());
+            }
+        }
+
+        return enabledTypes;
+    }
+
+    private void applyEnabledBarcodeTypes(List<Integer> barcodeTypeOrdinals) {
+        for (Barkoder.DecoderType type : Barkoder.DecoderType.values()) {
+            try {
+                Barkoder.SpecificConfig specificConfig = Util.getSpecificConfigRefFromBarcodeTypeOrdinal(type.ordinal(),
+                        bkdView.config.getDecoderConfig());
+                if (specificConfig != null) specificConfig.enabled = barcodeTypeOrdinals.contains(type.ordinal());
+            } catch (Exception ex) {
+                BarkoderLog.d(TAG, ex.getMessage());
+            }
+        }
+    }
+
     private void sendErrorResult(BarkoderFlutterErrors error, String message, MethodChannel.Result result) {
         result.error(error.getErrorCode(), error.getErrorMessage()
                 + (message != null ? message : ""), null);
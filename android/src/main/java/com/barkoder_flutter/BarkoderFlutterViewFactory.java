@@ -3,28 +3,74 @@ package com.barkoder_flutter;
 import android.app.Activity;
 import android.content.Context;
 
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 
 import io.flutter.plugin.common.BinaryMessenger;
 import io.flutter.plugin.common.StandardMessageCodec;
 import io.flutter.plugin.platform.PlatformView;
 import io.flutter.plugin.platform.PlatformViewFactory;
 
+/**
+ * Registered once per engine, the platform view registry doesn't replace a factory. The activity
+ * is swapped when it's recreated instead, so new views always get the current one and the existing
+ * views move along with it.
+ */
 @SuppressWarnings("NullableProblems") // To avoid androidX library
 class BarkoderFlutterViewFactory extends PlatformViewFactory {
-    private final Activity parentActivity;
+    // Null while no activity is attached
+    private Activity parentActivity;
     private final BinaryMessenger binaryMessenger;
+    // Both outlive the views, so recreated views don't decode the same icons again
+    private final IconCache iconCache;
+    private final MemoryBudget memoryBudget;
+    // Views that follow the activity, disposed ones are dropped on the next change
+    private final Set<BarkoderFlutterView> views = new HashSet<>();
 
-    BarkoderFlutterViewFactory(Activity parentActivity, BinaryMessenger binaryMessenger) {
+    BarkoderFlutterViewFactory(Activity parentActivity, BinaryMessenger binaryMessenger, IconCache iconCache,
+                               MemoryBudget memoryBudget) {
         super(StandardMessageCodec.INSTANCE);
         this.parentActivity = parentActivity;
         this.binaryMessenger = binaryMessenger;
+        this.iconCache = iconCache;
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Detaches the existing views from the previous activity, or attaches them to the new one.
+     * Main thread only.
+     *
+     * @param parentActivity null while no activity is attached
+     */
+    void setActivity(Activity parentActivity) {
+        this.parentActivity = parentActivity;
+
+        Iterator<BarkoderFlutterView> iterator = views.iterator();
+        while (iterator.hasNext()) {
+            BarkoderFlutterView view = iterator.next();
+            if (view.isDisposed()) {
+                iterator.remove();
+            } else if (parentActivity != null) {
+                view.onActivityAttached(parentActivity);
+            } else {
+                view.onActivityDetached();
+            }
+        }
     }
 
     @Override
     public PlatformView create(Context context, int id, Object args) {
+        if (parentActivity == null) {
+            throw new IllegalStateException("Barkoder view can't be created without an activity");
+        }
+
         final Map<String, Object> creationParams = (Map<String, Object>) args;
 
-        return new BarkoderFlutterView(parentActivity, creationParams, binaryMessenger);
+        BarkoderFlutterView view = new BarkoderFlutterView(parentActivity, creationParams, binaryMessenger, iconCache,
+                memoryBudget);
+        views.add(view);
+        return view;
     }
 }
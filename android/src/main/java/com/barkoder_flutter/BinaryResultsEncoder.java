@@ -0,0 +1,169 @@
+package com.barkoder_flutter;
+
+import com.barkoder.Barkoder;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes result batches as binary frames for the raw results channel, skipping JSON and base64.
+ * All numbers are little endian.
+ * <pre>
+ * frame:
+ *   u32  magic, "BKR1"
+ *   u16  version, 1
+ *   u16  result count
+ *   u32  frame width, 0 if unknown
+ *   u32  frame height, 0 if unknown
+ *   result[result count]
+ *
+ * result:
+ *   u16  barcode type ordinal
+ *   u32  binary data length, followed by the bytes
+ *   u32  textual data length, followed by the UTF-8 bytes
+ *   u16  location point count, followed by x, y as f32 pairs in frame pixels
+ * </pre>
+ * Images aren't part of the frame.
+ * <p>
+ * Frames are written into a small pool of direct buffers that are reused. A buffer is taken when
+ * a batch is encoded and given back once it's sent, Flutter copies the message on send. When all
+ * buffers are in flight, encoding waits, which slows the producer down instead of piling up frames.
+ */
+class BinaryResultsEncoder {
+    static final int MAGIC = 0x31524B42;
+    static final int VERSION = 1;
+
+    private static final int POOL_SIZE = 4;
+    private static final int INITIAL_CAPACITY = 4 * 1024;
+    private static final long POOL_WAIT_MS = 100;
+
+    private final ArrayBlockingQueue<ByteBuffer> pool = new ArrayBlockingQueue<>(POOL_SIZE);
+    // Used on the encoding thread only. Replaces broken surrogates like String.getBytes does.
+    private final CharsetEncoder utf8Encoder = Charset.forName("UTF-8").newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private volatile boolean closed;
+
+    BinaryResultsEncoder() {
+        for (int i = 0; i < POOL_SIZE; i++) {
+            pool.add(allocate(INITIAL_CAPACITY));
+        }
+    }
+
+    /**
+     * Must always be called from the same thread.
+     *
+     * @return the frame with its position at the end, like Flutter expects binary messages, or
+     * null if the encoder was closed while waiting for a buffer
+     */
+    ByteBuffer encode(Barkoder.Result[] results, int frameWidth, int frameHeight) {
+        ByteBuffer buffer = takeBuffer();
+        if (buffer == null) return null;
+
+        long traceStart = PluginTrace.begin("encodeBinaryResults", null);
+        try {
+            while (true) {
+                buffer.clear();
+                if (write(buffer, results, frameWidth, frameHeight)) return buffer;
+
+                // Too small, the grown buffer replaces it in the pool
+                buffer = allocate(buffer.capacity() * 2);
+            }
+        } finally {
+            PluginTrace.end("encodeBinaryResults", null, traceStart);
+        }
+    }
+
+    /**
+     * Gives a buffer back once its frame was sent. Any thread.
+     */
+    void recycle(ByteBuffer buffer) {
+        pool.offer(buffer);
+    }
+
+    /**
+     * Wakes up a waiting {@link #encode}.
+     */
+    void close() {
+        closed = true;
+    }
+
+    private ByteBuffer takeBuffer() {
+        try {
+            while (!closed) {
+                ByteBuffer buffer = pool.poll(POOL_WAIT_MS, TimeUnit.MILLISECONDS);
+                if (buffer != null) return buffer;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    /**
+     * @return false if the buffer is too small
+     */
+    private boolean write(ByteBuffer buffer, Barkoder.Result[] results, int frameWidth, int frameHeight) {
+        try {
+            buffer.putInt(MAGIC);
+            buffer.putShort((short) VERSION);
+            buffer.putShort((short) (results != null ? results.length : 0));
+            buffer.putInt(frameWidth);
+            buffer.putInt(frameHeight);
+
+            if (results == null) return true;
+
+            for (Barkoder.Result result : results) {
+                buffer.putShort((short) result.barcodeType.ordinal());
+
+                byte[] binaryData = result.binaryData != null ? result.binaryData : new byte[0];
+                buffer.putInt(binaryData.length);
+                buffer.put(binaryData);
+
+                if (!putUtf8(buffer, result.textualData)) return false;
+
+                Barkoder.BKPoint[] points = result.location != null ? result.location.points : null;
+                int pointCount = points != null ? points.length : 0;
+                buffer.putShort((short) pointCount);
+                for (int i = 0; i < pointCount; i++) {
+                    buffer.putFloat(points[i].x);
+                    buffer.putFloat(points[i].y);
+                }
+            }
+
+            return true;
+        } catch (BufferOverflowException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes the length after the text is encoded, so the text isn't copied into a byte array first.
+     */
+    private boolean putUtf8(ByteBuffer buffer, String text) {
+        int lengthPosition = buffer.position();
+        buffer.putInt(0);
+        if (text == null || text.isEmpty()) return true;
+
+        utf8Encoder.reset();
+        CoderResult coderResult = utf8Encoder.encode(CharBuffer.wrap(text), buffer, true);
+        if (coderResult.isOverflow()) return false;
+        if (utf8Encoder.flush(buffer).isOverflow()) return false;
+
+        buffer.putInt(lengthPosition, buffer.position() - lengthPosition - 4);
+        return true;
+    }
+
+    private static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,89 @@
+package com.barkoder_flutter;
+
+import android.os.SystemClock;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Frame-skip policy for streamed frames: frames are decoded at most {@code maxDecodesPerSecond}
+ * times per second and only every Nth frame is considered at all. Skipped frames are rejected
+ * before any conversion, so they cost next to nothing. Can be reconfigured at any time.
+ * <p>
+ * Only frames passed to scanFrame go through it. The live camera session is capped by
+ * {@link LiveScanThrottle} with the same settings.
+ */
+class DecodeRateLimiter {
+    // 0 means no limit
+    private int maxDecodesPerSecond = 0;
+    private int decodeEveryNthFrame = 1;
+
+    private long minIntervalNanos = 0;
+    private long lastDecodeNanos;
+    private boolean hasDecoded = false;
+    private long frameIndex;
+
+    private long decodedFrames;
+    private long skippedFrames;
+    private long droppedFrames;
+
+    synchronized void configure(int maxDecodesPerSecond, int decodeEveryNthFrame) {
+        if (maxDecodesPerSecond < 0 || decodeEveryNthFrame < 1) {
+            throw new IllegalArgumentException("Max decodes per second must be >= 0 and every Nth frame must be >= 1");
+        }
+
+        this.maxDecodesPerSecond = maxDecodesPerSecond;
+        this.decodeEveryNthFrame = decodeEveryNthFrame;
+        this.minIntervalNanos = maxDecodesPerSecond > 0 ? 1_000_000_000L / maxDecodesPerSecond : 0;
+        this.frameIndex = 0;
+    }
+
+    /**
+     * Must be called once for every incoming frame.
+     *
+     * @return true if the frame should be decoded, it's then counted as decoded
+     */
+    synchronized boolean tryAcquire() {
+        long index = frameIndex++;
+        if (index % decodeEveryNthFrame != 0) {
+            skippedFrames++;
+            return false;
+        }
+
+        long now = SystemClock.elapsedRealtimeNanos();
+        if (hasDecoded && now - lastDecodeNanos < minIntervalNanos) {
+            skippedFrames++;
+            return false;
+        }
+
+        lastDecodeNanos = now;
+        hasDecoded = true;
+        decodedFrames++;
+        return true;
+    }
+
+    /**
+     * Moves an acquired frame from decoded to dropped, e.g. because the decoder was still busy.
+     */
+    synchronized void onDropped() {
+        decodedFrames--;
+        droppedFrames++;
+    }
+
+    synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("maxDecodesPerSecond", maxDecodesPerSecond);
+        stats.put("decodeEveryNthFrame", decodeEveryNthFrame);
+        stats.put("decodedFrames", decodedFrames);
+        stats.put("skippedFrames", skippedFrames);
+        stats.put("droppedFrames", droppedFrames);
+
+        return stats;
+    }
+
+    synchronized void resetStats() {
+        decodedFrames = 0;
+        skippedFrames = 0;
+        droppedFrames = 0;
+    }
+}
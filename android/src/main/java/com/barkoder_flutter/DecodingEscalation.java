@@ -0,0 +1,103 @@
+package com.barkoder_flutter;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+
+import com.barkoder.Barkoder;
+import com.barkoder.BarkoderConfig;
+import com.barkoder.BarkoderHelper;
+import com.barkoder.enums.BarkoderResolution;
+
+/**
+ * Escalation ladder for still image decoding. The image is decoded with the cheapest settings first
+ * and only if nothing is found the next, more expensive step is tried. The first step that finds
+ * something wins, so the common case costs a single fast decode.
+ * <p>
+ * Every step has its own copy of the user's config, the original config is never touched. The
+ * copies are created (and licensed) once and only refreshed when the user's config changed since
+ * the previous image. Main thread only.
+ */
+class DecodingEscalation {
+
+    interface Callback {
+        /**
+         * @param step index of the step that produced the results, or the last step if nothing was found
+         */
+        void onFinished(Barkoder.Result[] results, Bitmap[] thumbnails, Bitmap resultImage, int step);
+    }
+
+    static final int STEP_COUNT = 4;
+
+    private final Context context;
+    private final String licenseKey;
+    private final BarkoderConfig[] stepConfigs = new BarkoderConfig[STEP_COUNT];
+    // Fingerprint of the user's config the step configs were copied from
+    private String baseConfigFingerprint;
+
+    DecodingEscalation(Context context, String licenseKey) {
+        this.context = context;
+        this.licenseKey = licenseKey;
+    }
+
+    void scan(Bitmap image, BarkoderConfig baseConfig, Callback callback) {
+        prepareSteps(baseConfig);
+        scanStep(0, image, callback);
+    }
+
+    private void prepareSteps(BarkoderConfig baseConfig) {
+        String fingerprint = Util.decodingConfigFingerprint(baseConfig);
+        if (fingerprint.equals(baseConfigFingerprint)) return;
+
+        for (int step = 0; step < STEP_COUNT; step++) {
+            if (stepConfigs[step] == null) {
+                stepConfigs[step] = new BarkoderConfig(context, licenseKey, licenseCheckResult -> {
+                });
+            }
+            Util.copyDecodingConfig(baseConfig, stepConfigs[step]);
+            applyStep(step, stepConfigs[step]);
+        }
+
+        baseConfigFingerprint = fingerprint;
+    }
+
+    private void scanStep(int step, Bitmap image, Callback callback) {
+        BarkoderHelper.scanImage(image, stepConfigs[step], (results, thumbnails, resultImage) -> {
+            boolean found = results != null && results.length > 0;
+            if (found || step == STEP_COUNT - 1) {
+                callback.onFinished(results, thumbnails, resultImage, step);
+            } else {
+                scanStep(step + 1, image, callback);
+            }
+        }, context);
+    }
+
+    /**
+     * Steps only add effort on top of the user's config, extras that are already enabled stay enabled.
+     */
+    private static void applyStep(int step, BarkoderConfig config) {
+        Barkoder.Config decoderConfig = config.getDecoderConfig();
+
+        switch (step) {
+            case 0:
+                decoderConfig.decodingSpeed = Barkoder.DecodingSpeed.Fast;
+                break;
+            case 1:
+                decoderConfig.decodingSpeed = Barkoder.DecodingSpeed.Normal;
+                break;
+            case 2:
+                decoderConfig.decodingSpeed = Barkoder.DecodingSpeed.Slow;
+                decoderConfig.enableMisshaped1D = true;
+                decoderConfig.upcEanDeblur = true;
+                break;
+            default:
+                decoderConfig.decodingSpeed = Barkoder.DecodingSpeed.Rigorous;
+                decoderConfig.enableMisshaped1D = true;
+                decoderConfig.upcEanDeblur = true;
+                decoderConfig.Datamatrix.dpmMode = true;
+                decoderConfig.QR.dpmMode = true;
+                decoderConfig.QRMicro.dpmMode = true;
+                config.setBarkoderResolution(BarkoderResolution.UHD);
+                break;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.barkoder_flutter;
+
+import com.barkoder.Barkoder;
+import com.barkoder.BarkoderLog;
+
+/**
+ * Moves the decoding speed along a ladder of increasingly expensive settings, so decoding stays
+ * within a frame budget while keeping the scan success rate at the target. When the device
+ * throttles (thermally or otherwise) decode times grow and the governor steps down; when there is
+ * headroom and too few frames are decoded successfully it steps up.
+ * <p>
+ * A step is only taken after {@link #CONFIRM_WINDOWS} consecutive windows agree, and the window after
+ * a step is discarded, because it still contains frames decoded with the previous settings.
+ * <p>
+ * Only measured decodes (scanImage and scanFrame) are reported, the live camera session doesn't
+ * report decode times. The chosen speed is therefore only used for those decodes, on a copy of the
+ * config (see {@link GovernedConfig}); the resolution isn't governed at all, since it only sets
+ * the camera capture size and doesn't change the measured inputs.
+ */
+class FrameBudgetGovernor {
+    private static final String TAG = FrameBudgetGovernor.class.getSimpleName();
+
+    static final int DEFAULT_FRAME_BUDGET_MS = 100;
+    static final double DEFAULT_TARGET_SUCCESS_RATE = 0.5;
+
+    // Levels, cheapest first
+    private static final Barkoder.DecodingSpeed[] LEVEL_SPEEDS = {
+            Barkoder.DecodingSpeed.Fast,
+            Barkoder.DecodingSpeed.Normal,
+            Barkoder.DecodingSpeed.Slow,
+    };
+
+    private static final int WINDOW_SIZE = 16;
+    private static final int CONFIRM_WINDOWS = 2;
+    // Stepping up needs the decode time to stay under this fraction of the budget
+    private static final double STEP_UP_HEADROOM = 0.6;
+
+    private boolean enabled = false;
+    private long frameBudgetNanos = DEFAULT_FRAME_BUDGET_MS * 1_000_000L;
+    private double targetSuccessRate = DEFAULT_TARGET_SUCCESS_RATE;
+
+    private int level;
+    private int windowCount;
+    private int windowHits;
+    private long windowTotalNanos;
+    private boolean discardWindow;
+    // Positive while windows ask to step up, negative while they ask to step down
+    private int pendingDirection;
+
+    synchronized void configure(boolean enabled, int frameBudgetMs, double targetSuccessRate,
+                                Barkoder.DecodingSpeed currentSpeed) {
+        if (frameBudgetMs <= 0) {
+            throw new IllegalArgumentException("Frame budget must be > 0");
+        }
+        if (targetSuccessRate < 0 || targetSuccessRate > 1) {
+            throw new IllegalArgumentException("Target success rate must be between 0 and 1");
+        }
+
+        this.enabled = enabled;
+        this.frameBudgetNanos = frameBudgetMs * 1_000_000L;
+        this.targetSuccessRate = targetSuccessRate;
+
+        level = closestLevel(currentSpeed);
+        resetWindow();
+        discardWindow = false;
+        pendingDirection = 0;
+    }
+
+    synchronized void disable() {
+        enabled = false;
+    }
+
+    synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    synchronized int getLevel() {
+        return level;
+    }
+
+    synchronized int getLevelCount() {
+        return LEVEL_SPEEDS.length;
+    }
+
+    /**
+     * @return decoding speed of the current level, which measured decodes run with while enabled
+     */
+    synchronized Barkoder.DecodingSpeed getDecodingSpeed() {
+        return LEVEL_SPEEDS[level];
+    }
+
+    synchronized void onFrameDecoded(long decodeNanos, boolean found) {
+        if (!enabled) return;
+
+        windowTotalNanos += decodeNanos;
+        if (found) windowHits++;
+        if (++windowCount < WINDOW_SIZE) return;
+
+        long averageNanos = windowTotalNanos / windowCount;
+        double successRate = (double) windowHits / windowCount;
+        boolean stale = discardWindow;
+        resetWindow();
+        discardWindow = false;
+        if (stale) return;
+
+        int direction = 0;
+        if (averageNanos > frameBudgetNanos) {
+            direction = -1;
+        } else if (successRate < targetSuccessRate && averageNanos < frameBudgetNanos * STEP_UP_HEADROOM) {
+            direction = 1;
+        }
+
+        if (direction == 0 || Integer.signum(pendingDirection) != direction) {
+            pendingDirection = direction;
+        } else {
+            pendingDirection += direction;
+        }
+
+        if (Math.abs(pendingDirection) < CONFIRM_WINDOWS) return;
+
+        int nextLevel = Math.max(0, Math.min(LEVEL_SPEEDS.length - 1, level + direction));
+        pendingDirection = 0;
+        if (nextLevel == level) return;
+
+        level = nextLevel;
+        discardWindow = true;
+
+        BarkoderLog.d(TAG, "Level " + level + " (average " + averageNanos / 1_000_000L
+                + " ms, success rate " + successRate + ")");
+    }
+
+    /**
+     * Rigorous and unknown speeds map to the closest end of the ladder.
+     */
+    private static int closestLevel(Barkoder.DecodingSpeed speed) {
+        for (int i = 0; i < LEVEL_SPEEDS.length; i++) {
+            if (LEVEL_SPEEDS[i] == speed) return i;
+        }
+        return speed == Barkoder.DecodingSpeed.Rigorous ? LEVEL_SPEEDS.length - 1 : 0;
+    }
+
+    private void resetWindow() {
+        windowCount = 0;
+        windowHits = 0;
+        windowTotalNanos = 0;
+    }
+}
@@ -0,0 +1,94 @@
+package com.barkoder_flutter;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.PixelCopy;
+import android.view.SurfaceView;
+import android.view.TextureView;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Grabs the frame that the camera preview currently shows, so a frame can be taken on demand
+ * instead of enabling image results for every scan. The SDK doesn't hand out its frames, so the
+ * preview surface inside the BarkoderView is read: a TextureView directly, a SurfaceView with
+ * PixelCopy (API 24+).
+ */
+class FrameCapture {
+
+    interface Callback {
+        /**
+         * Called on the main thread.
+         *
+         * @param frame null if nothing could be captured
+         */
+        void onCaptured(Bitmap frame);
+    }
+
+    private FrameCapture() {
+    }
+
+    /**
+     * Main thread only.
+     *
+     * @param maxSize longest side of the captured frame in pixels, 0 to keep the preview size.
+     *                The frame is scaled while it's copied, so no full size copy is made.
+     */
+    static void capture(View root, int maxSize, Callback callback) {
+        TextureView textureView = find(root, TextureView.class);
+        if (textureView != null && textureView.isAvailable()
+                && textureView.getWidth() > 0 && textureView.getHeight() > 0) {
+            int[] size = scaledSize(textureView.getWidth(), textureView.getHeight(), maxSize);
+            callback.onCaptured(textureView.getBitmap(size[0], size[1]));
+            return;
+        }
+
+        SurfaceView surfaceView = find(root, SurfaceView.class);
+        if (surfaceView != null && surfaceView.getWidth() > 0 && surfaceView.getHeight() > 0
+                && Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            int[] size = scaledSize(surfaceView.getWidth(), surfaceView.getHeight(), maxSize);
+            Bitmap frame = Bitmap.createBitmap(size[0], size[1], Bitmap.Config.ARGB_8888);
+            try {
+                PixelCopy.request(surfaceView, frame, copyResult -> {
+                    if (copyResult == PixelCopy.SUCCESS) {
+                        callback.onCaptured(frame);
+                    } else {
+                        frame.recycle();
+                        callback.onCaptured(null);
+                    }
+                }, new Handler(Looper.getMainLooper()));
+            } catch (IllegalArgumentException ex) {
+                // Surface isn't valid anymore
+                frame.recycle();
+                callback.onCaptured(null);
+            }
+            return;
+        }
+
+        callback.onCaptured(null);
+    }
+
+    private static int[] scaledSize(int width, int height, int maxSize) {
+        int longestSide = Math.max(width, height);
+        if (maxSize == 0 || longestSide <= maxSize) return new int[]{width, height};
+
+        float scale = maxSize / (float) longestSide;
+        return new int[]{Math.max(1, Math.round(width * scale)), Math.max(1, Math.round(height * scale))};
+    }
+
+    private static <T extends View> T find(View view, Class<T> type) {
+        if (type.isInstance(view)) return type.cast(view);
+
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0; i < group.getChildCount(); i++) {
+                T found = find(group.getChildAt(i), type);
+                if (found != null) return found;
+            }
+        }
+
+        return null;
+    }
+}
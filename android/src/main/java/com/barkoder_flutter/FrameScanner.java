@@ -0,0 +1,242 @@
+package com.barkoder_flutter;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+
+import com.barkoder.BarkoderConfig;
+import com.barkoder.BarkoderHelper;
+import com.barkoder.interfaces.BarkoderResultCallback;
+
+import java.nio.ByteBuffer;
+
+import io.flutter.plugin.common.MethodCall;
+
+/**
+ * Decodes raw camera frames (NV21 or YUV_420_888) that are owned by someone else, e.g. another
+ * camera plugin. Only the luminance plane is needed for decoding. The decoder takes bitmaps only,
+ * so the luminance rows are copied as they are into an ALPHA_8 bitmap, which is then rotated and
+ * expanded to grayscale by a single native draw. No pixel is converted in Java and there is no
+ * JPEG/PNG round trip.
+ * <p>
+ * The buffers and bitmaps are reused between calls. Because of that only one frame can be in
+ * flight at a time; frames that arrive while the previous one is still in use are rejected.
+ */
+class FrameScanner {
+
+    static final int FORMAT_NV21 = 0;
+    static final int FORMAT_YUV_420_888 = 1;
+
+    /**
+     * Luminance plane of a frame. The samples are read in place, the buffer is never copied
+     * before it's converted.
+     */
+    static class Frame {
+        // Position 0 is the first sample
+        final ByteBuffer luminance;
+        final int width;
+        final int height;
+        final int rowStride;
+        final int pixelStride;
+        // 0, 90, 180 or 270
+        final int rotation;
+
+        /**
+         * @param luminance   NV21 buffer or the Y plane of a YUV_420_888 image, from its position on
+         * @param width       frame width in pixels, as delivered by the camera
+         * @param height      frame height in pixels, as delivered by the camera
+         * @param rowStride   bytes per row of the Y plane
+         * @param pixelStride bytes between two neighbouring Y samples (1 for NV21)
+         * @param rotation    clockwise rotation (a multiple of 90) that makes the frame upright
+         * @throws IllegalArgumentException if the buffer doesn't hold such a frame
+         */
+        Frame(ByteBuffer luminance, int width, int height, int rowStride, int pixelStride, int rotation) {
+            if (width <= 0 || height <= 0 || pixelStride <= 0 || rowStride < (long) width * pixelStride
+                    || luminance.remaining() < (long) (height - 1) * rowStride + (long) (width - 1) * pixelStride + 1) {
+                throw new IllegalArgumentException("Frame buffer doesn't match " + width + "x" + height
+                        + " (rowStride " + rowStride + ", pixelStride " + pixelStride + ")");
+            }
+            if (rotation % 90 != 0) {
+                throw new IllegalArgumentException("Rotation must be a multiple of 90 degrees");
+            }
+
+            // The caller's position and limit are left alone
+            this.luminance = luminance.slice();
+            this.width = width;
+            this.height = height;
+            this.rowStride = rowStride;
+            this.pixelStride = pixelStride;
+            this.rotation = ((rotation % 360) + 360) % 360;
+        }
+
+        /**
+         * Reads the frame of a scanFrame method call. The bytes are either a byte[], which is what
+         * the Dart side sends, or a ByteBuffer, e.g. the direct buffer of an Android camera image.
+         *
+         * @throws IllegalArgumentException if the arguments don't describe a valid frame
+         */
+        static Frame fromArguments(MethodCall call) {
+            Object bytes = call.argument("bytes");
+            Integer width = call.argument("width");
+            Integer height = call.argument("height");
+            Integer format = call.argument("format");
+            Integer rowStride = call.argument("rowStride");
+            Integer pixelStride = call.argument("pixelStride");
+            Integer rotation = call.argument("rotation");
+
+            ByteBuffer luminance = null;
+            if (bytes instanceof byte[]) {
+                luminance = ByteBuffer.wrap((byte[]) bytes);
+            } else if (bytes instanceof ByteBuffer) {
+                luminance = (ByteBuffer) bytes;
+            }
+
+            if (luminance == null || width == null || height == null) {
+                throw new IllegalArgumentException("Bytes, width and height are required");
+            }
+
+            // NV21 is always tightly packed, strides are only meaningful for YUV_420_888 planes
+            boolean isNv21 = format == null || format == FORMAT_NV21;
+
+            return new Frame(luminance, width, height,
+                    isNv21 || rowStride == null ? width : rowStride,
+                    isNv21 || pixelStride == null ? 1 : pixelStride,
+                    rotation == null ? 0 : rotation);
+        }
+    }
+
+    private byte[] packedLuma;
+    private Bitmap lumaBitmap;
+    private Bitmap frameBitmap;
+    private Canvas frameCanvas;
+    private final Matrix rotationMatrix = new Matrix();
+    // Draws the ALPHA_8 samples as white over black, which is the grayscale image. Not filtered,
+    // so every sample lands on exactly one pixel.
+    private final Paint lumaPaint = new Paint();
+
+    private volatile boolean busy;
+
+    FrameScanner() {
+        lumaPaint.setColor(Color.WHITE);
+    }
+
+    /**
+     * Converts the frame into the reused bitmap. Can run off the main thread, the returned bitmap
+     * must then be passed to {@link #decode}, and {@link #releaseFrame()} must be called once the
+     * results are done with the result bitmaps, which may be backed by it.
+     *
+     * @return null if the previous frame is still in use and this one was dropped
+     */
+    Bitmap prepareFrame(Frame frame) {
+        if (busy) return null;
+        busy = true;
+
+        try {
+            return lumaToBitmap(frame);
+        } catch (RuntimeException ex) {
+            busy = false;
+            throw ex;
+        }
+    }
+
+    void decode(Bitmap frame, BarkoderConfig config, Context context, BarkoderResultCallback callback) {
+        try {
+            BarkoderHelper.scanImage(frame, config, callback, context);
+        } catch (RuntimeException ex) {
+            busy = false;
+            throw ex;
+        }
+    }
+
+    /**
+     * Lets the next frame overwrite the reused bitmap. Any thread.
+     */
+    void releaseFrame() {
+        busy = false;
+    }
+
+    private Bitmap lumaToBitmap(Frame frame) {
+        boolean swapSides = frame.rotation == 90 || frame.rotation == 270;
+        int outWidth = swapSides ? frame.height : frame.width;
+        int outHeight = swapSides ? frame.width : frame.height;
+
+        if (lumaBitmap == null || lumaBitmap.getWidth() != frame.width || lumaBitmap.getHeight() != frame.height) {
+            if (lumaBitmap != null) lumaBitmap.recycle();
+            lumaBitmap = Bitmap.createBitmap(frame.width, frame.height, Bitmap.Config.ALPHA_8);
+        }
+        if (frameBitmap == null || frameBitmap.getWidth() != outWidth || frameBitmap.getHeight() != outHeight) {
+            if (frameBitmap != null) frameBitmap.recycle();
+            frameBitmap = Bitmap.createBitmap(outWidth, outHeight, Bitmap.Config.ARGB_8888);
+            frameCanvas = new Canvas(frameBitmap);
+        }
+
+        int rowBytes = lumaBitmap.getRowBytes();
+        if (frame.pixelStride == 1 && frame.rowStride == rowBytes
+                && frame.luminance.remaining() >= lumaBitmap.getByteCount()) {
+            // Rows are laid out like the bitmap's, e.g. NV21, so they're copied straight in
+            lumaBitmap.copyPixelsFromBuffer(frame.luminance.duplicate());
+        } else {
+            if (packedLuma == null || packedLuma.length != rowBytes * frame.height) {
+                packedLuma = new byte[rowBytes * frame.height];
+            }
+            packLuma(frame.luminance, frame.width, frame.height, frame.rowStride, frame.pixelStride,
+                    packedLuma, rowBytes);
+            lumaBitmap.copyPixelsFromBuffer(ByteBuffer.wrap(packedLuma));
+        }
+
+        rotationMatrix.setValues(rotationMatrixValues(frame.rotation, frame.width, frame.height));
+        frameCanvas.drawColor(Color.BLACK);
+        frameCanvas.drawBitmap(lumaBitmap, rotationMatrix, lumaPaint);
+
+        return frameBitmap;
+    }
+
+    /**
+     * Copies the luminance samples into rows that are {@code dstRowBytes} apart, leaving out the
+     * row padding and, with a pixel stride above 1, the interleaved chroma samples. Rows of
+     * neighbouring samples are copied in bulk.
+     *
+     * @param src luminance samples, the first one at index 0
+     */
+    static void packLuma(ByteBuffer src, int width, int height, int rowStride, int pixelStride,
+                         byte[] dst, int dstRowBytes) {
+        ByteBuffer rows = src.duplicate();
+
+        for (int y = 0; y < height; y++) {
+            int srcIndex = y * rowStride;
+            int dstIndex = y * dstRowBytes;
+
+            if (pixelStride == 1) {
+                rows.position(srcIndex);
+                rows.get(dst, dstIndex, width);
+                continue;
+            }
+
+            for (int x = 0; x < width; x++, srcIndex += pixelStride) {
+                dst[dstIndex + x] = src.get(srcIndex);
+            }
+        }
+    }
+
+    /**
+     * Values of the {@link Matrix} that turns a width x height frame clockwise by the rotation and
+     * moves it back to the origin, in {@link Matrix#setValues} order. Pixel (x, y) ends up at
+     * (height - 1 - y, x) for 90, (width - 1 - x, height - 1 - y) for 180 and (y, width - 1 - x)
+     * for 270.
+     */
+    static float[] rotationMatrixValues(int rotation, int width, int height) {
+        switch (rotation) {
+            case 90:
+                return new float[]{0, -1, height, 1, 0, 0, 0, 0, 1};
+            case 180:
+                return new float[]{-1, 0, width, 0, -1, height, 0, 0, 1};
+            case 270:
+                return new float[]{0, 1, 0, -1, 0, width, 0, 0, 1};
+            default:
+                return new float[]{1, 0, 0, 0, 1, 0, 0, 0, 1};
+        }
+    }
+}
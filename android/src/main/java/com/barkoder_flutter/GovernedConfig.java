@@ -0,0 +1,42 @@
+package com.barkoder_flutter;
+
+import android.content.Context;
+
+import com.barkoder.Barkoder;
+import com.barkoder.BarkoderConfig;
+
+/**
+ * Copy of the user's config that scanImage and scanFrame decode with while the
+ * {@link FrameBudgetGovernor} is enabled, so the governed decoding speed never reaches the config
+ * of the live camera session. Like the {@link DecodingEscalation} steps, the copy is created (and
+ * licensed) once and only refreshed when the user's config changed since the previous decode.
+ * Main thread only.
+ */
+class GovernedConfig {
+
+    private final Context context;
+    private final String licenseKey;
+    private BarkoderConfig config;
+    // Fingerprint of the user's config the copy was made from
+    private String baseConfigFingerprint;
+
+    GovernedConfig(Context context, String licenseKey) {
+        this.context = context;
+        this.licenseKey = licenseKey;
+    }
+
+    BarkoderConfig get(BarkoderConfig baseConfig, Barkoder.DecodingSpeed decodingSpeed) {
+        String fingerprint = Util.decodingConfigFingerprint(baseConfig);
+        if (!fingerprint.equals(baseConfigFingerprint)) {
+            if (config == null) {
+                config = new BarkoderConfig(context, licenseKey, licenseCheckResult -> {
+                });
+            }
+            Util.copyDecodingConfig(baseConfig, config);
+            baseConfigFingerprint = fingerprint;
+        }
+
+        config.getDecoderConfig().decodingSpeed = decodingSpeed;
+        return config;
+    }
+}
@@ -0,0 +1,136 @@
+package com.barkoder_flutter;
+
+import android.content.res.AssetManager;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import io.flutter.embedding.engine.plugins.FlutterPlugin;
+
+/**
+ * Decoded custom button icons, so theming calls that repeat the same icons don't decode them again.
+ * An icon is referenced by one of:
+ * <ul>
+ * <li>base64 image data, cached by a hash of the content</li>
+ * <li>{@code id:<id>}, an icon registered up front with {@link #register}</li>
+ * <li>{@code asset:<key>}, an image from the Flutter assets, e.g. {@code asset:assets/flash_on.png}</li>
+ * </ul>
+ * Base64 never contains a colon, so the references can't be mistaken for image data. Decoded base64
+ * and asset icons are bounded by their size in memory, least recently used go first. Registered
+ * icons stay until they're unregistered.
+ * <p>
+ * Shared by all views of the plugin, so it survives view recreation. All methods are thread safe.
+ */
+class IconCache {
+    static final long MAX_DECODED_BYTES = 4 * 1024 * 1024;
+
+    private static final String ID_PREFIX = "id:";
+    private static final String ASSET_PREFIX = "asset:";
+
+    private final AssetManager assetManager;
+    private final FlutterPlugin.FlutterAssets flutterAssets;
+
+    private final LinkedHashMap<String, Bitmap> decoded = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Bitmap> registered = new HashMap<>();
+    private long decodedBytes;
+
+    IconCache(AssetManager assetManager, FlutterPlugin.FlutterAssets flutterAssets) {
+        this.assetManager = assetManager;
+        this.flutterAssets = flutterAssets;
+    }
+
+    /**
+     * @return null if there is no icon or the base64 data isn't an image, like before caching
+     * @throws IllegalArgumentException if a referenced id isn't registered or an asset can't be read
+     */
+    synchronized Bitmap resolve(@Nullable String icon) {
+        if (icon == null || icon.isEmpty()) return null;
+
+        if (icon.startsWith(ID_PREFIX)) {
+            Bitmap bitmap = registered.get(icon.substring(ID_PREFIX.length()));
+            if (bitmap == null) {
+                throw new IllegalArgumentException("Icon " + icon + " is not registered");
+            }
+            return bitmap;
+        }
+
+        final boolean isAsset = icon.startsWith(ASSET_PREFIX);
+        final String key = isAsset ? icon : ScanResultCache.hashImage(icon.getBytes(Charset.forName("UTF-8")));
+
+        Bitmap bitmap = decoded.get(key);
+        if (bitmap != null) return bitmap;
+
+        bitmap = isAsset
+                ? decodeAsset(icon.substring(ASSET_PREFIX.length()))
+                : Util.decodeBase64BitmapOrNull(icon);
+        if (bitmap == null) return null;
+
+        decoded.put(key, bitmap);
+        decodedBytes += bitmap.getAllocationByteCount();
+        trimToSize();
+
+        return bitmap;
+    }
+
+    /**
+     * @param icon base64 image data or an asset reference
+     * @throws IllegalArgumentException if the icon can't be decoded
+     */
+    synchronized void register(String id, String icon) {
+        if (id == null || id.isEmpty()) {
+            throw new IllegalArgumentException("Icon id must not be empty");
+        }
+
+        Bitmap bitmap = icon != null && icon.startsWith(ASSET_PREFIX)
+                ? decodeAsset(icon.substring(ASSET_PREFIX.length()))
+                : Util.decodeBase64BitmapOrNull(icon);
+        if (bitmap == null) {
+            throw new IllegalArgumentException("Icon " + id + " is not a valid image");
+        }
+
+        registered.put(id, bitmap);
+    }
+
+    synchronized boolean unregister(String id) {
+        return registered.remove(id) != null;
+    }
+
+    /**
+     * Drops the decoded icons, they're decoded again when they're needed. Registered icons stay.
+     */
+    synchronized void clear() {
+        decoded.clear();
+        decodedBytes = 0;
+    }
+
+    private Bitmap decodeAsset(String assetKey) {
+        try (InputStream stream = assetManager.open(flutterAssets.getAssetFilePathByName(assetKey))) {
+            Bitmap bitmap = BitmapFactory.decodeStream(stream);
+            if (bitmap == null) {
+                throw new IllegalArgumentException("Asset " + assetKey + " is not a valid image");
+            }
+            return bitmap;
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Asset " + assetKey + " can't be read: " + ex.getMessage());
+        }
+    }
+
+    private void trimToSize() {
+        Iterator<Bitmap> iterator = decoded.values().iterator();
+        // The most recent icon is kept even if it's bigger than the whole budget. Evicted icons
+        // aren't recycled, a button may still show them.
+        while (decodedBytes > MAX_DECODED_BYTES && decoded.size() > 1 && iterator.hasNext()) {
+            decodedBytes -= iterator.next().getAllocationByteCount();
+            iterator.remove();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.barkoder_flutter;
+
+import android.graphics.Bitmap;
+
+import com.barkoder.BarkoderLog;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Encodes barcode thumbnails and captured frames with the configured size and format. The defaults
+ * keep the previous thumbnail output: original size, lossless PNG, inline in the result.
+ * <p>
+ * With {@link #isDeferred()} the result is sent without thumbnails and they follow in a separate
+ * event once they're encoded, so the decoded text doesn't wait for the image work.
+ */
+class ImageEncoder {
+    private static final String TAG = ImageEncoder.class.getSimpleName();
+
+    static final int FORMAT_PNG = 0;
+    static final int FORMAT_JPEG = 1;
+    static final int FORMAT_WEBP = 2;
+
+    static final ImageEncoder DEFAULT = new ImageEncoder(0, FORMAT_PNG, 100, false);
+
+    // Used when the memory budget runs low
+    private static final int REDUCED_MAX_SIZE = 640;
+    private static final int REDUCED_QUALITY = 60;
+
+    private final int maxSize;
+    private final int format;
+    private final int quality;
+    private final boolean deferred;
+
+    /**
+     * @param maxSize longest side of the encoded image in pixels, 0 to keep the original size
+     * @param quality compression quality 0 - 100, ignored by PNG
+     */
+    ImageEncoder(int maxSize, int format, int quality, boolean deferred) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Max size must be >= 0");
+        }
+        if (format != FORMAT_PNG && format != FORMAT_JPEG && format != FORMAT_WEBP) {
+            throw new IllegalArgumentException("Unknown format " + format);
+        }
+        if (quality < 0 || quality > 100) {
+            throw new IllegalArgumentException("Quality must be between 0 and 100");
+        }
+
+        this.maxSize = maxSize;
+        this.format = format;
+        this.quality = quality;
+        this.deferred = deferred;
+    }
+
+    boolean isDeferred() {
+        return deferred;
+    }
+
+    /**
+     * @return a lighter variant of this encoder: half the size (at most {@link #REDUCED_MAX_SIZE})
+     * as lossy JPEG
+     */
+    ImageEncoder reduced() {
+        return new ImageEncoder(maxSize == 0 ? REDUCED_MAX_SIZE : Math.max(1, Math.min(REDUCED_MAX_SIZE, maxSize / 2)),
+                FORMAT_JPEG, Math.min(quality, REDUCED_QUALITY), deferred);
+    }
+
+    /**
+     * @return null if the image can't be encoded
+     */
+    byte[] encodeToBytes(Bitmap image) {
+        long traceStart = PluginTrace.begin("encodeImage", null);
+        Bitmap scaled = scale(image);
+
+        try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream()) {
+            scaled.compress(compressFormat(), quality, byteArrayOutputStream);
+
+            return byteArrayOutputStream.toByteArray();
+        } catch (Exception ex) {
+            BarkoderLog.d(TAG, ex.getMessage());
+        } finally {
+            // Only the scaled copy is ours
+            if (scaled != image) scaled.recycle();
+            PluginTrace.end("encodeImage", null, traceStart);
+        }
+        return null;
+    }
+
+    String fileExtension() {
+        switch (format) {
+            case FORMAT_JPEG:
+                return "jpg";
+            case FORMAT_WEBP:
+                return "webp";
+            default:
+                return "png";
+        }
+    }
+
+    /**
+     * Identifies the encoded output, e.g. for cache keys.
+     */
+    String fingerprint() {
+        return maxSize + "|" + format + "|" + quality;
+    }
+
+    Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("maxSize", maxSize);
+        map.put("format", format);
+        map.put("quality", quality);
+        map.put("deferred", deferred);
+
+        return map;
+    }
+
+    private Bitmap scale(Bitmap image) {
+        int longestSide = Math.max(image.getWidth(), image.getHeight());
+        if (maxSize == 0 || longestSide <= maxSize) return image;
+
+        float scale = maxSize / (float) longestSide;
+        return Bitmap.createScaledBitmap(image,
+                Math.max(1, Math.round(image.getWidth() * scale)),
+                Math.max(1, Math.round(image.getHeight() * scale)),
+                true);
+    }
+
+    @SuppressWarnings("deprecation")
+    private Bitmap.CompressFormat compressFormat() {
+        switch (format) {
+            case FORMAT_JPEG:
+                return Bitmap.CompressFormat.JPEG;
+            case FORMAT_WEBP:
+                // WEBP_LOSSY and WEBP_LOSSLESS need API 30
+                return Bitmap.CompressFormat.WEBP;
+            default:
+                return Bitmap.CompressFormat.PNG;
+        }
+    }
+}
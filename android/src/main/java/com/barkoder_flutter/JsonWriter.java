@@ -0,0 +1,345 @@
+package com.barkoder_flutter;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Single pass JSON writer for the result payloads, so no JSONObject tree with boxed values is
+ * built just to be turned into a string. Base64 data is encoded straight into the output.
+ * <p>
+ * The output is byte for byte what org.json produced before: keys in the order they're written,
+ * the same string escaping (including {@code \/}), the same number formatting and null values
+ * left out of objects. Non-finite numbers, which org.json rejected, are written as null.
+ * <p>
+ * A writer is reused per thread, see {@link #obtain()}. Not thread safe.
+ */
+class JsonWriter {
+    // A writer that grew beyond this isn't kept for reuse, so one huge payload doesn't pin its memory
+    private static final int MAX_RETAINED_CAPACITY = 256 * 1024;
+    private static final int INITIAL_CAPACITY = 4 * 1024;
+    private static final int MAX_DEPTH = 32;
+
+    private static final char[] BASE64_ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<JsonWriter> WRITERS = new ThreadLocal<>();
+
+    private StringBuilder out = new StringBuilder(INITIAL_CAPACITY);
+    // Whether the container at each depth already has an element, so the next one needs a comma
+    private final boolean[] hasElements = new boolean[MAX_DEPTH];
+    private int depth;
+    // A name was just written, the value follows without a comma
+    private boolean afterName;
+    private char[] drainBuffer;
+    private JsonWriter nested;
+
+    /**
+     * @return the empty writer of the calling thread. It must not be obtained again before
+     * {@link #finish()} or {@link #drainTo(Writer)}.
+     */
+    static JsonWriter obtain() {
+        JsonWriter writer = WRITERS.get();
+        if (writer == null) {
+            writer = new JsonWriter();
+            WRITERS.set(writer);
+        }
+        writer.reset();
+
+        return writer;
+    }
+
+    JsonWriter beginObject() {
+        beforeValue();
+        out.append('{');
+        push();
+        return this;
+    }
+
+    JsonWriter endObject() {
+        depth--;
+        out.append('}');
+        return this;
+    }
+
+    JsonWriter beginArray() {
+        beforeValue();
+        out.append('[');
+        push();
+        return this;
+    }
+
+    JsonWriter endArray() {
+        depth--;
+        out.append(']');
+        return this;
+    }
+
+    JsonWriter name(String name) {
+        beforeValue();
+        appendQuoted(name);
+        out.append(':');
+        afterName = true;
+        return this;
+    }
+
+    /**
+     * @param value written as null in arrays
+     */
+    JsonWriter value(CharSequence value) {
+        beforeValue();
+        if (value == null) {
+            out.append("null");
+        } else {
+            appendQuoted(value);
+        }
+        return this;
+    }
+
+    JsonWriter value(long value) {
+        beforeValue();
+        out.append(value);
+        return this;
+    }
+
+    /**
+     * Formatted like org.json: integral values without a fraction, negative zero as {@code -0}.
+     */
+    JsonWriter value(double value) {
+        beforeValue();
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            out.append("null");
+        } else if (value == 0 && Double.doubleToRawLongBits(value) != 0) {
+            out.append("-0");
+        } else if (value == (double) (long) value) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        return this;
+    }
+
+    JsonWriter value(boolean value) {
+        beforeValue();
+        out.append(value);
+        return this;
+    }
+
+    /**
+     * Writes the bytes as a base64 string, like {@code Base64.NO_WRAP}.
+     *
+     * @param bytes written as null in arrays
+     */
+    JsonWriter base64Value(byte[] bytes) {
+        beforeValue();
+        if (bytes == null) {
+            out.append("null");
+            return this;
+        }
+
+        out.append('"');
+        int i = 0;
+        for (; i + 2 < bytes.length; i += 3) {
+            int chunk = (bytes[i] & 0xff) << 16 | (bytes[i + 1] & 0xff) << 8 | (bytes[i + 2] & 0xff);
+            appendBase64Char(chunk >> 18);
+            appendBase64Char(chunk >> 12);
+            appendBase64Char(chunk >> 6);
+            appendBase64Char(chunk);
+        }
+        int remaining = bytes.length - i;
+        if (remaining > 0) {
+            int chunk = (bytes[i] & 0xff) << 16 | (remaining == 2 ? (bytes[i + 1] & 0xff) << 8 : 0);
+            appendBase64Char(chunk >> 18);
+            appendBase64Char(chunk >> 12);
+            if (remaining == 2) {
+                appendBase64Char(chunk >> 6);
+            } else {
+                out.append('=');
+            }
+            out.append('=');
+        }
+        out.append('"');
+        return this;
+    }
+
+    /**
+     * Writes JSON that was written with {@link #nested()} as a string value.
+     */
+    JsonWriter value(JsonWriter nestedJson) {
+        beforeValue();
+        appendQuoted(nestedJson.out);
+        nestedJson.release();
+        return this;
+    }
+
+    /**
+     * @return an empty second writer for JSON that is embedded as a string, e.g. the result extras
+     */
+    JsonWriter nested() {
+        if (nested == null) nested = new JsonWriter();
+        nested.reset();
+
+        return nested;
+    }
+
+    /**
+     * Writes an object the way consecutive JSONObject.put calls built it: a key stays where it was
+     * put, putting it again only replaces the value, and a null value removes it. Entries without a
+     * key are skipped.
+     */
+    JsonWriter putObject(String[] keys, String[] values) {
+        beginObject();
+        for (int i = 0; i < keys.length; i++) {
+            if (!isInsertion(keys, values, i)) continue;
+
+            // Only the last insertion of a key decides where it ends up
+            boolean insertedAgain = false;
+            String value = values[i];
+            for (int j = i + 1; j < keys.length; j++) {
+                if (!keys[i].equals(keys[j])) continue;
+
+                if (isInsertion(keys, values, j)) insertedAgain = true;
+                value = values[j];
+            }
+
+            if (!insertedAgain && value != null) {
+                name(keys[i]).value(value);
+            }
+        }
+        return endObject();
+    }
+
+    // Object members that org.json leaves out when the value is null
+
+    JsonWriter property(String name, CharSequence value) {
+        return value != null ? name(name).value(value) : this;
+    }
+
+    JsonWriter base64Property(String name, byte[] bytes) {
+        return bytes != null ? name(name).base64Value(bytes) : this;
+    }
+
+    JsonWriter property(String name, long value) {
+        return name(name).value(value);
+    }
+
+    JsonWriter property(String name, double value) {
+        return name(name).value(value);
+    }
+
+    /**
+     * @return the JSON written so far. The writer can be reused afterwards.
+     */
+    String finish() {
+        String json = out.toString();
+        release();
+        return json;
+    }
+
+    /**
+     * Moves what was written so far to the writer and keeps going, so a long document is never
+     * held in memory at once.
+     */
+    void drainTo(Writer writer) throws IOException {
+        if (drainBuffer == null) drainBuffer = new char[8 * 1024];
+
+        for (int start = 0; start < out.length(); start += drainBuffer.length) {
+            int end = Math.min(out.length(), start + drainBuffer.length);
+            out.getChars(start, end, drainBuffer, 0);
+            writer.write(drainBuffer, 0, end - start);
+        }
+        out.setLength(0);
+    }
+
+    /**
+     * Lets go of an oversized buffer. Called when the writer is done.
+     */
+    void release() {
+        if (out.capacity() > MAX_RETAINED_CAPACITY) {
+            out = new StringBuilder(INITIAL_CAPACITY);
+        }
+    }
+
+    private void reset() {
+        out.setLength(0);
+        depth = 0;
+        hasElements[0] = false;
+        afterName = false;
+    }
+
+    private void push() {
+        if (++depth >= MAX_DEPTH) {
+            throw new IllegalStateException("JSON nested too deep");
+        }
+        hasElements[depth] = false;
+    }
+
+    private void beforeValue() {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+
+        if (hasElements[depth]) out.append(',');
+        hasElements[depth] = true;
+    }
+
+    /**
+     * @return true if the entry adds its key, i.e. the key isn't there when it's put
+     */
+    private static boolean isInsertion(String[] keys, String[] values, int index) {
+        if (keys[index] == null || values[index] == null) return false;
+
+        for (int i = index - 1; i >= 0; i--) {
+            if (keys[index].equals(keys[i])) return values[i] == null;
+        }
+        return true;
+    }
+
+    private void appendBase64Char(int sextet) {
+        char c = BASE64_ALPHABET[sextet & 0x3f];
+        // Escaped like every other slash
+        if (c == '/') out.append('\\');
+        out.append(c);
+    }
+
+    /**
+     * Same escaping as org.json's JSONStringer.
+     */
+    private void appendQuoted(CharSequence value) {
+        out.append('"');
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                case '\\':
+                case '/':
+                    out.append('\\').append(c);
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                case '\b':
+                    out.append("\\b");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\f':
+                    out.append("\\f");
+                    break;
+                default:
+                    if (c <= 0x1F) {
+                        out.append("\\u00").append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xf]);
+                    } else {
+                        out.append(c);
+                    }
+                    break;
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,164 @@
+package com.barkoder_flutter;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.util.Map;
+
+/**
+ * Caps how often the live camera session decodes. The SDK decodes every camera frame it gets and
+ * doesn't let the plugin skip single frames, so the session is duty-cycled instead: scanning runs
+ * for a short window of {@link #WINDOW_FRAMES} frames, or until the first result, and is then
+ * paused until the next decode period starts.
+ * <p>
+ * The SDK doesn't report live frames either, so decoded and skipped frames are estimated from the
+ * time spent scanning and paused at the nominal camera frame rate. The throttle can only skip whole
+ * frames: a period shorter than a window plus one frame leaves the session unthrottled.
+ * <p>
+ * Main thread only.
+ */
+class LiveScanThrottle {
+
+    interface Session {
+        void pause();
+
+        void resume();
+    }
+
+    // Nominal camera frame rate, 30 fps
+    static final long FRAME_INTERVAL_NANOS = 1_000_000_000L / 30;
+    // Frames scanned per window, so a frame still arrives if resuming the session takes a moment
+    static final int WINDOW_FRAMES = 2;
+    private static final long WINDOW_NANOS = WINDOW_FRAMES * FRAME_INTERVAL_NANOS;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable openWindow = this::openWindow;
+    private final Runnable closeWindow = this::closeWindow;
+
+    // 0 while unthrottled
+    private long periodNanos;
+    // Set while a live session is running
+    private Session session;
+    private boolean scanning;
+    private long windowStartNanos;
+    private long stateStartNanos;
+
+    private long scanningNanos;
+    private long pausedNanos;
+    // Like scanningNanos, but never reset
+    private long totalScanningNanos;
+
+    /**
+     * Same arguments as {@link DecodeRateLimiter#configure}, which validates them. Applies to a
+     * running session right away.
+     */
+    void configure(int maxDecodesPerSecond, int decodeEveryNthFrame) {
+        long period = Math.max(maxDecodesPerSecond > 0 ? 1_000_000_000L / maxDecodesPerSecond : 0,
+                decodeEveryNthFrame * FRAME_INTERVAL_NANOS);
+        periodNanos = period >= WINDOW_NANOS + FRAME_INTERVAL_NANOS ? period : 0;
+
+        if (session == null) return;
+
+        handler.removeCallbacks(openWindow);
+        handler.removeCallbacks(closeWindow);
+        if (scanning) {
+            windowStartNanos = SystemClock.elapsedRealtimeNanos();
+            if (periodNanos > 0) handler.postDelayed(closeWindow, WINDOW_NANOS / 1_000_000L);
+        } else {
+            openWindow();
+        }
+    }
+
+    /**
+     * Called right after the live session started scanning.
+     */
+    void start(Session session) {
+        stop();
+
+        this.session = session;
+        scanning = true;
+        stateStartNanos = SystemClock.elapsedRealtimeNanos();
+        windowStartNanos = stateStartNanos;
+        if (periodNanos > 0) handler.postDelayed(closeWindow, WINDOW_NANOS / 1_000_000L);
+    }
+
+    /**
+     * Called when the live session stopped, was paused or frozen by the app.
+     */
+    void stop() {
+        if (session == null) return;
+
+        account();
+        handler.removeCallbacks(openWindow);
+        handler.removeCallbacks(closeWindow);
+        session = null;
+        scanning = false;
+    }
+
+    /**
+     * Called for every result of the live session. A window ends with its first result.
+     */
+    void onResults() {
+        if (session == null || !scanning || periodNanos == 0) return;
+
+        handler.removeCallbacks(closeWindow);
+        closeWindow();
+    }
+
+    void fillStats(Map<String, Object> stats) {
+        if (session != null) account();
+
+        stats.put("liveDecodedFrames", scanningNanos / FRAME_INTERVAL_NANOS);
+        stats.put("liveSkippedFrames", pausedNanos / FRAME_INTERVAL_NANOS);
+    }
+
+    void resetStats() {
+        if (session != null) account();
+
+        scanningNanos = 0;
+        pausedNanos = 0;
+    }
+
+    /**
+     * @return total time live sessions have been scanning, it doesn't advance while a session is
+     * paused or stopped
+     */
+    long scanningNanos() {
+        return session != null && scanning
+                ? totalScanningNanos + SystemClock.elapsedRealtimeNanos() - stateStartNanos
+                : totalScanningNanos;
+    }
+
+    private void openWindow() {
+        account();
+        scanning = true;
+        windowStartNanos = stateStartNanos;
+        session.resume();
+
+        if (periodNanos > 0) handler.postDelayed(closeWindow, WINDOW_NANOS / 1_000_000L);
+    }
+
+    private void closeWindow() {
+        account();
+        scanning = false;
+        session.pause();
+
+        long untilNextWindowNanos = periodNanos - (stateStartNanos - windowStartNanos);
+        handler.postDelayed(openWindow, Math.max(0, untilNextWindowNanos / 1_000_000L));
+    }
+
+    /**
+     * Adds the time since the last state change to the time scanning or paused.
+     */
+    private void account() {
+        long now = SystemClock.elapsedRealtimeNanos();
+        if (scanning) {
+            scanningNanos += now - stateStartNanos;
+            totalScanningNanos += now - stateStartNanos;
+        } else {
+            pausedNanos += now - stateStartNanos;
+        }
+        stateStartNanos = now;
+    }
+}
@@ -0,0 +1,99 @@
+package com.barkoder_flutter;
+
+import com.barkoder.Barkoder;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Writes location points of a result in one of the supported encodings:
+ * <ul>
+ * <li>{@link #OBJECTS}: {@code locationPoints}, an array of {@code {"x": .., "y": ..}} objects</li>
+ * <li>{@link #FLOAT32}: {@code locationPointsFloat32AsBase64}, little endian float32 values of the
+ * interleaved x, y pixel coordinates</li>
+ * <li>{@link #INT16}: {@code locationPointsInt16AsBase64}, little endian int16 values of the
+ * interleaved coordinates in fixed point, where {@link #INT16_SCALE} is the frame width or height.
+ * {@code frameWidth} and {@code frameHeight} are added next to them</li>
+ * </ul>
+ * The packed encodings avoid two objects and two boxed numbers per corner, which add up quickly in
+ * AR and multi-code modes. If the frame size isn't known, INT16 falls back to FLOAT32.
+ */
+class LocationPointsEncoder {
+    static final int OBJECTS = 0;
+    static final int FLOAT32 = 1;
+    static final int INT16 = 2;
+
+    static final int INT16_SCALE = Short.MAX_VALUE;
+
+    static final LocationPointsEncoder DEFAULT = new LocationPointsEncoder(OBJECTS, 0, 0);
+
+    private final int encoding;
+    private final int frameWidth;
+    private final int frameHeight;
+
+    /**
+     * @param frameWidth  width of the frame the points refer to, 0 if it's not known
+     * @param frameHeight height of the frame the points refer to, 0 if it's not known
+     */
+    LocationPointsEncoder(int encoding, int frameWidth, int frameHeight) {
+        if (encoding == INT16 && (frameWidth <= 0 || frameHeight <= 0)) {
+            encoding = FLOAT32;
+        }
+
+        this.encoding = encoding;
+        this.frameWidth = frameWidth;
+        this.frameHeight = frameHeight;
+    }
+
+    static boolean isValid(int encoding) {
+        return encoding == OBJECTS || encoding == FLOAT32 || encoding == INT16;
+    }
+
+    void write(JsonWriter json, Barkoder.BKPoint[] points) {
+        float[] coordinates = new float[points.length * 2];
+        for (int i = 0; i < points.length; i++) {
+            coordinates[i * 2] = points[i].x;
+            coordinates[i * 2 + 1] = points[i].y;
+        }
+
+        write(json, coordinates);
+    }
+
+    /**
+     * @param points x0, y0, x1, y1, ...
+     */
+    void write(JsonWriter json, float[] points) {
+        switch (encoding) {
+            case FLOAT32: {
+                ByteBuffer buffer = ByteBuffer.allocate(points.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+                for (float point : points) {
+                    buffer.putFloat(point);
+                }
+                json.base64Property("locationPointsFloat32AsBase64", buffer.array());
+                break;
+            }
+            case INT16: {
+                ByteBuffer buffer = ByteBuffer.allocate(points.length * 2).order(ByteOrder.LITTLE_ENDIAN);
+                for (int i = 0; i < points.length; i++) {
+                    int size = i % 2 == 0 ? frameWidth : frameHeight;
+                    long fixed = Math.round(points[i] / size * INT16_SCALE);
+                    buffer.putShort((short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, fixed)));
+                }
+                json.base64Property("locationPointsInt16AsBase64", buffer.array());
+                json.property("frameWidth", frameWidth);
+                json.property("frameHeight", frameHeight);
+                break;
+            }
+            default: {
+                json.name("locationPoints").beginArray();
+                for (int i = 0; i + 1 < points.length; i += 2) {
+                    json.beginObject();
+                    json.property("x", points[i]);
+                    json.property("y", points[i + 1]);
+                    json.endObject();
+                }
+                json.endArray();
+            }
+        }
+    }
+}
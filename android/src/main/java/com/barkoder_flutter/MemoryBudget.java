@@ -0,0 +1,263 @@
+package com.barkoder_flutter;
+
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.os.SystemClock;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Plugin wide budget for result payloads that are in flight: decoded bitmaps waiting to be
+ * serialized and serialized results waiting to be delivered to Dart. Results keep coming when the
+ * budget runs low, they just get lighter:
+ * <ol>
+ * <li>{@link #LEVEL_REDUCED_QUALITY} - images are downscaled and sent as JPEG</li>
+ * <li>{@link #LEVEL_NO_THUMBNAILS} - thumbnails are skipped as well</li>
+ * <li>{@link #LEVEL_TEXT_ONLY} - no images at all, only the decoded data</li>
+ * </ol>
+ * The level is taken from the budget usage when a decode finishes. Memory pressure reported by
+ * the system raises it for a while as well, and asks the listeners to drop their caches.
+ * <p>
+ * The maximum is a hard cap for held bitmaps: bitmaps that don't fit aren't held and their
+ * results go text only. A serialized payload waits for room while payloads of the same view are
+ * still queued for delivery. Without queued payloads it's let through, since it can't get any
+ * smaller, so the budget is exceeded by at most one payload per view.
+ * <p>
+ * Registered with the application context by the plugin. All methods are thread safe.
+ */
+class MemoryBudget implements ComponentCallbacks2 {
+    static final int LEVEL_FULL = 0;
+    static final int LEVEL_REDUCED_QUALITY = 1;
+    static final int LEVEL_NO_THUMBNAILS = 2;
+    static final int LEVEL_TEXT_ONLY = 3;
+
+    static final long DEFAULT_MAX_BYTES = 32 * 1024 * 1024;
+
+    // Usage ratios at which the levels start
+    private static final float REDUCED_QUALITY_RATIO = 0.5f;
+    private static final float NO_THUMBNAILS_RATIO = 0.75f;
+    private static final float TEXT_ONLY_RATIO = 0.9f;
+    // How long a memory pressure signal keeps results lighter
+    private static final long PRESSURE_DURATION_MS = 10_000;
+
+    interface TrimListener {
+        /**
+         * Drop whatever can be recreated. Called on the main thread.
+         */
+        void onTrimMemory();
+    }
+
+    /**
+     * The share of the budget used by one view. Whatever it still holds is given back when it's
+     * closed, so payloads dropped with a disposed view don't leak budget.
+     */
+    class Account {
+        private long heldBytes;
+        // Part of the held bytes that is waiting for delivery, the consumer gives it back
+        private long queuedBytes;
+        private boolean closed;
+
+        /**
+         * @return false if the bytes don't fit in the budget, nothing is held then
+         */
+        boolean tryAcquire(long bytes) {
+            synchronized (MemoryBudget.this) {
+                if (bytes <= 0) return true;
+                if (closed || usedBytes + bytes > maxBytes) return false;
+
+                hold(bytes);
+                return true;
+            }
+        }
+
+        void release(long bytes) {
+            synchronized (MemoryBudget.this) {
+                if (closed || bytes <= 0) return;
+
+                unhold(bytes);
+            }
+        }
+
+        /**
+         * Holds a payload that is queued for delivery. Waits while it doesn't fit and payloads of
+         * this account are still queued, they are released by the consumer so the wait always ends.
+         */
+        void acquireQueued(long bytes) {
+            synchronized (MemoryBudget.this) {
+                try {
+                    while (!closed && queuedBytes > 0 && usedBytes + bytes > maxBytes) {
+                        MemoryBudget.this.wait();
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                if (closed || bytes <= 0) return;
+
+                hold(bytes);
+                queuedBytes += bytes;
+            }
+        }
+
+        void releaseQueued(long bytes) {
+            synchronized (MemoryBudget.this) {
+                if (closed || bytes <= 0) return;
+
+                queuedBytes -= Math.min(bytes, queuedBytes);
+                unhold(bytes);
+            }
+        }
+
+        void close() {
+            synchronized (MemoryBudget.this) {
+                usedBytes -= heldBytes;
+                heldBytes = 0;
+                queuedBytes = 0;
+                closed = true;
+                MemoryBudget.this.notifyAll();
+            }
+        }
+
+        private void hold(long bytes) {
+            heldBytes += bytes;
+            usedBytes += bytes;
+            peakBytes = Math.max(peakBytes, usedBytes);
+        }
+
+        private void unhold(long bytes) {
+            long released = Math.min(bytes, heldBytes);
+            heldBytes -= released;
+            usedBytes -= released;
+            MemoryBudget.this.notifyAll();
+        }
+    }
+
+    private final CopyOnWriteArrayList<TrimListener> trimListeners = new CopyOnWriteArrayList<>();
+
+    private long maxBytes = DEFAULT_MAX_BYTES;
+    private long usedBytes;
+    private long peakBytes;
+    private int pressureLevel = LEVEL_FULL;
+    private long pressureUntilMs;
+    private long degradedDecodes;
+
+    synchronized void setMaxBytes(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Max bytes must be > 0");
+        }
+
+        this.maxBytes = maxBytes;
+        // A larger budget can let waiting payloads through
+        notifyAll();
+    }
+
+    Account openAccount() {
+        return new Account();
+    }
+
+    void addTrimListener(TrimListener listener) {
+        trimListeners.add(listener);
+    }
+
+    void removeTrimListener(TrimListener listener) {
+        trimListeners.remove(listener);
+    }
+
+    /**
+     * Level for a decode that just finished. Doesn't count anything, see {@link #onDecodeDegraded()}.
+     */
+    synchronized int level() {
+        float usage = usedBytes / (float) maxBytes;
+        int level = usage >= TEXT_ONLY_RATIO
+                ? LEVEL_TEXT_ONLY
+                : usage >= NO_THUMBNAILS_RATIO
+                ? LEVEL_NO_THUMBNAILS
+                : usage >= REDUCED_QUALITY_RATIO
+                ? LEVEL_REDUCED_QUALITY
+                : LEVEL_FULL;
+
+        if (pressureLevel != LEVEL_FULL && SystemClock.elapsedRealtime() < pressureUntilMs) {
+            level = Math.max(level, pressureLevel);
+        }
+        return level;
+    }
+
+    /**
+     * Called by whoever actually serializes a decode lighter than {@link #LEVEL_FULL}.
+     */
+    synchronized void onDecodeDegraded() {
+        degradedDecodes++;
+    }
+
+    synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("maxBytes", maxBytes);
+        stats.put("usedBytes", usedBytes);
+        stats.put("peakBytes", peakBytes);
+        stats.put("pressureLevel", SystemClock.elapsedRealtime() < pressureUntilMs ? pressureLevel : LEVEL_FULL);
+        stats.put("degradedDecodes", degradedDecodes);
+
+        return stats;
+    }
+
+    static long bitmapBytes(Bitmap bitmap) {
+        return bitmap != null && !bitmap.isRecycled() ? bitmap.getAllocationByteCount() : 0;
+    }
+
+    static long bitmapBytes(Bitmap[] bitmaps) {
+        if (bitmaps == null) return 0;
+
+        long bytes = 0;
+        for (Bitmap bitmap : bitmaps) {
+            bytes += bitmapBytes(bitmap);
+        }
+        return bytes;
+    }
+
+    /**
+     * Java strings are UTF-16.
+     */
+    static long stringBytes(String string) {
+        return string != null ? 2L * string.length() : 0;
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        int pressure;
+        if (level >= TRIM_MEMORY_COMPLETE || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+            pressure = LEVEL_TEXT_ONLY;
+        } else if (level >= TRIM_MEMORY_MODERATE || level == TRIM_MEMORY_RUNNING_LOW) {
+            pressure = LEVEL_NO_THUMBNAILS;
+        } else if (level == TRIM_MEMORY_RUNNING_MODERATE) {
+            pressure = LEVEL_REDUCED_QUALITY;
+        } else {
+            // UI hidden or the app went to the background, nothing to worry about yet
+            return;
+        }
+
+        synchronized (this) {
+            long nowMs = SystemClock.elapsedRealtime();
+            if (nowMs >= pressureUntilMs || pressure > pressureLevel) pressureLevel = pressure;
+            pressureUntilMs = nowMs + PRESSURE_DURATION_MS;
+        }
+
+        // Caches are only dropped when memory gets really low
+        if (pressure >= LEVEL_NO_THUMBNAILS) {
+            for (TrimListener listener : trimListeners) {
+                listener.onTrimMemory();
+            }
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        onTrimMemory(TRIM_MEMORY_COMPLETE);
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+        // NO-OP
+    }
+}
@@ -0,0 +1,144 @@
+package com.barkoder_flutter;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import io.flutter.plugin.common.EventChannel;
+
+/**
+ * Emits periodic metrics snapshots on an event channel while someone listens. Counters are only
+ * updated while a listener is subscribed, so without one every hook costs a single volatile read
+ * and no timer runs.
+ * <p>
+ * The listen argument may contain {@code intervalMs}, the time between two snapshots.
+ */
+class MetricsEmitter implements EventChannel.StreamHandler {
+
+    interface SnapshotSource {
+        /**
+         * Called on the main thread to add the values that are read from the view and the config.
+         */
+        void fillSnapshot(Map<String, Object> snapshot);
+    }
+
+    static final long DEFAULT_INTERVAL_MS = 1_000;
+    private static final long MIN_INTERVAL_MS = 100;
+
+    private final SnapshotSource snapshotSource;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable emitRunnable = this::emitSnapshot;
+
+    private volatile boolean active = false;
+    // Touched on the main thread only
+    private EventChannel.EventSink eventSink;
+    private long intervalMs = DEFAULT_INTERVAL_MS;
+    private long intervalStartNanos;
+
+    // Counters of the current interval
+    private long decodes;
+    private long measuredDecodes;
+    private long decodeNanos;
+    private long payloadBytes;
+    private long droppedEvents;
+
+    MetricsEmitter(SnapshotSource snapshotSource) {
+        this.snapshotSource = snapshotSource;
+    }
+
+    @Override
+    public void onListen(Object arguments, EventChannel.EventSink events) {
+        intervalMs = DEFAULT_INTERVAL_MS;
+        if (arguments instanceof Map) {
+            Object interval = ((Map<?, ?>) arguments).get("intervalMs");
+            if (interval instanceof Number) {
+                intervalMs = Math.max(MIN_INTERVAL_MS, ((Number) interval).longValue());
+            }
+        }
+
+        eventSink = events;
+        resetCounters();
+        active = true;
+
+        mainHandler.removeCallbacks(emitRunnable);
+        mainHandler.postDelayed(emitRunnable, intervalMs);
+    }
+
+    @Override
+    public void onCancel(Object arguments) {
+        stop();
+    }
+
+    void stop() {
+        active = false;
+        eventSink = null;
+        mainHandler.removeCallbacks(emitRunnable);
+    }
+
+    /**
+     * @param decodeNanos decode duration or -1 if it's not known (live camera results)
+     */
+    void onDecode(long decodeNanos) {
+        if (!active) return;
+
+        synchronized (this) {
+            decodes++;
+            if (decodeNanos >= 0) {
+                measuredDecodes++;
+                this.decodeNanos += decodeNanos;
+            }
+        }
+    }
+
+    void onPayload(long bytes) {
+        if (!active) return;
+
+        synchronized (this) {
+            payloadBytes += bytes;
+        }
+    }
+
+    void onEventDropped() {
+        if (!active) return;
+
+        synchronized (this) {
+            droppedEvents++;
+        }
+    }
+
+    private void emitSnapshot() {
+        if (eventSink == null) return;
+
+        Map<String, Object> snapshot = new HashMap<>();
+
+        synchronized (this) {
+            double seconds = Math.max(1, SystemClock.elapsedRealtimeNanos() - intervalStartNanos) / 1_000_000_000.0;
+
+            snapshot.put("intervalMs", (long) (seconds * 1_000));
+            snapshot.put("decodesPerSecond", decodes / seconds);
+            snapshot.put("averageDecodeLatencyMs",
+                    measuredDecodes > 0 ? decodeNanos / (double) measuredDecodes / 1_000_000.0 : 0.0);
+            snapshot.put("payloadBytesPerSecond", payloadBytes / seconds);
+            snapshot.put("droppedEvents", droppedEvents);
+
+            resetCounters();
+        }
+
+        snapshotSource.fillSnapshot(snapshot);
+        eventSink.success(snapshot);
+
+        mainHandler.postDelayed(emitRunnable, intervalMs);
+    }
+
+    private synchronized void resetCounters() {
+        intervalStartNanos = SystemClock.elapsedRealtimeNanos();
+        decodes = 0;
+        measuredDecodes = 0;
+        decodeNanos = 0;
+        payloadBytes = 0;
+        droppedEvents = 0;
+    }
+}
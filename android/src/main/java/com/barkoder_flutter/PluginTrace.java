@@ -0,0 +1,201 @@
+package com.barkoder_flutter;
+
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * System trace sections for the plugin hot paths, so the plugin shows up in Perfetto/systrace,
+ * plus an in-memory ring of the most recent slices that can be dumped to a file on devices
+ * without adb. Everything is a no-op until tracing is enabled.
+ * <p>
+ * Sections are used in pairs on the same thread:
+ * <pre>
+ * long traceStart = PluginTrace.begin("scanImage", null);
+ * ...
+ * PluginTrace.end("scanImage", null, traceStart);
+ * </pre>
+ * Work that starts and ends on different threads uses the async variants with a cookie from
+ * {@link #nextCookie()}.
+ */
+class PluginTrace {
+    private static final String SECTION_PREFIX = "Barkoder.";
+    // Limit of android.os.Trace section names
+    private static final int MAX_SECTION_NAME_LENGTH = 127;
+
+    static final int RING_CAPACITY = 4096;
+
+    private static volatile boolean enabled = false;
+
+    private static final AtomicInteger cookies = new AtomicInteger();
+
+    // Ring of completed slices, guarded by the class lock
+    private static final String[] ringNames = new String[RING_CAPACITY];
+    private static final long[] ringStartNanos = new long[RING_CAPACITY];
+    private static final long[] ringDurationNanos = new long[RING_CAPACITY];
+    private static final int[] ringThreadIds = new int[RING_CAPACITY];
+    private static long ringCount;
+
+    private PluginTrace() {
+    }
+
+    static void setEnabled(boolean enabled) {
+        PluginTrace.enabled = enabled;
+    }
+
+    static boolean isEnabled() {
+        return enabled;
+    }
+
+    static int nextCookie() {
+        return cookies.incrementAndGet();
+    }
+
+    /**
+     * @param detail optional suffix of the section name, e.g. the method name
+     * @return start timestamp that has to be passed to {@link #end}, or -1 if tracing is disabled
+     */
+    static long begin(String name, String detail) {
+        if (!enabled) return -1;
+
+        Trace.beginSection(sectionName(name, detail));
+        return SystemClock.elapsedRealtimeNanos();
+    }
+
+    static void end(String name, String detail, long startNanos) {
+        // Tracing was disabled when the section started, there is nothing to close
+        if (startNanos < 0) return;
+
+        Trace.endSection();
+        record(name, detail, startNanos);
+    }
+
+    static long beginAsync(String name, int cookie) {
+        if (!enabled) return -1;
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.beginAsyncSection(sectionName(name, null), cookie);
+        }
+        return SystemClock.elapsedRealtimeNanos();
+    }
+
+    static void endAsync(String name, int cookie, long startNanos) {
+        if (startNanos < 0) return;
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.endAsyncSection(sectionName(name, null), cookie);
+        }
+        record(name, null, startNanos);
+    }
+
+    static synchronized void clear() {
+        for (int i = 0; i < RING_CAPACITY; i++) {
+            ringNames[i] = null;
+        }
+        ringCount = 0;
+    }
+
+    /**
+     * Writes the recorded slices to the file in the Chrome JSON trace format, which Perfetto UI
+     * and chrome://tracing open directly. The ring isn't cleared.
+     *
+     * @return number of written slices
+     */
+    static int dump(File file) throws IOException {
+        final String[] names;
+        final long[] startNanos;
+        final long[] durationNanos;
+        final int[] threadIds;
+        final int size;
+
+        // Copy first, so recording isn't blocked by file IO
+        synchronized (PluginTrace.class) {
+            size = (int) Math.min(ringCount, RING_CAPACITY);
+            int first = (int) ((ringCount - size) % RING_CAPACITY);
+
+            names = new String[size];
+            startNanos = new long[size];
+            durationNanos = new long[size];
+            threadIds = new int[size];
+            for (int i = 0; i < size; i++) {
+                int index = (first + i) % RING_CAPACITY;
+                names[i] = ringNames[index];
+                startNanos[i] = ringStartNanos[index];
+                durationNanos[i] = ringDurationNanos[index];
+                threadIds[i] = ringThreadIds[index];
+            }
+        }
+
+        int pid = Process.myPid();
+
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file),
+                Charset.forName("UTF-8")))) {
+            writer.write("{\"traceEvents\":[");
+            for (int i = 0; i < size; i++) {
+                if (i > 0) writer.write(',');
+
+                writer.write("{\"name\":\"");
+                writeEscaped(writer, names[i]);
+                writer.write("\",\"ph\":\"X\",\"ts\":");
+                writer.write(Long.toString(startNanos[i] / 1_000));
+                writer.write(",\"dur\":");
+                writer.write(Long.toString(durationNanos[i] / 1_000));
+                writer.write(",\"pid\":");
+                writer.write(Integer.toString(pid));
+                writer.write(",\"tid\":");
+                writer.write(Integer.toString(threadIds[i]));
+                writer.write('}');
+            }
+            writer.write("],\"displayTimeUnit\":\"ms\"}");
+        }
+
+        return size;
+    }
+
+    private static void record(String name, String detail, long startNanos) {
+        long durationNanos = SystemClock.elapsedRealtimeNanos() - startNanos;
+        String sliceName = detail != null ? name + " " + detail : name;
+        int threadId = Process.myTid();
+
+        synchronized (PluginTrace.class) {
+            int index = (int) (ringCount % RING_CAPACITY);
+            ringNames[index] = sliceName;
+            ringStartNanos[index] = startNanos;
+            ringDurationNanos[index] = durationNanos;
+            ringThreadIds[index] = threadId;
+            ringCount++;
+        }
+    }
+
+    private static String sectionName(String name, String detail) {
+        String sectionName = detail != null ? SECTION_PREFIX + name + " " + detail : SECTION_PREFIX + name;
+
+        return sectionName.length() > MAX_SECTION_NAME_LENGTH
+                ? sectionName.substring(0, MAX_SECTION_NAME_LENGTH)
+                : sectionName;
+    }
+
+    private static void writeEscaped(Writer writer, String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                writer.write('\\');
+                writer.write(c);
+            } else if (c < 0x20) {
+                writer.write(String.format("\\u%04x", (int) c));
+            } else {
+                writer.write(c);
+            }
+        }
+    }
+}
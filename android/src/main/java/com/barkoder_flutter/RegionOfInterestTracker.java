@@ -0,0 +1,254 @@
+package com.barkoder_flutter;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.barkoder.Barkoder;
+
+/**
+ * Auto region of interest. Once something is found, the region of interest is shrunk to the
+ * bounding box of the recent detections plus a margin, so the following frames only decode the
+ * area where the barcode actually is. After too many frames without a result, or after a timeout,
+ * the full (user's) region of interest is restored.
+ * <p>
+ * The live camera session only reports frames with results, so its frames without results are
+ * counted from the time it has been scanning since the last detection, at the nominal frame rate.
+ * <p>
+ * Regions are in percent of the frame, like {@code BarkoderConfig.setRegionOfInterest}, and the
+ * tracked region never leaves the user's region.
+ */
+class RegionOfInterestTracker {
+
+    interface Listener {
+        /**
+         * Called on any thread, the region has to be applied by the listener.
+         */
+        void onRegionChanged(float left, float top, float width, float height);
+    }
+
+    interface ScanningClock {
+        /**
+         * Total time the live session has been scanning, it doesn't advance while it's paused.
+         * Main thread only.
+         */
+        long scanningNanos();
+    }
+
+    static final float DEFAULT_MARGIN_PERCENT = 10;
+    static final int DEFAULT_MAX_MISSES = 10;
+    static final long DEFAULT_MISS_TIMEOUT_MS = 1_000;
+
+    // Tracked region is never smaller than this, so a barcode that moves a bit is still covered
+    private static final float MIN_SIZE_PERCENT = 15;
+
+    private final Listener listener;
+    private final ScanningClock liveClock;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable missTimeoutRunnable = this::restoreFullRegion;
+    private final Runnable liveMissCheckRunnable = this::checkLiveMisses;
+
+    private boolean enabled = false;
+    private float marginPercent = DEFAULT_MARGIN_PERCENT;
+    private int maxMisses = DEFAULT_MAX_MISSES;
+    private long missTimeoutMs = DEFAULT_MISS_TIMEOUT_MS;
+
+    // left, top, width, height
+    private final float[] fullRegion = {0, 0, 100, 100};
+    private boolean tracking = false;
+    private int misses;
+    // Live scanning time of the last live detection
+    private long lastLiveHitScanningNanos;
+
+    RegionOfInterestTracker(Listener listener, ScanningClock liveClock) {
+        this.listener = listener;
+        this.liveClock = liveClock;
+    }
+
+    /**
+     * @param currentRegion region of interest that is currently applied, it becomes the full region
+     *                      unless a tracked region is applied at the moment
+     */
+    void configure(boolean enabled, float marginPercent, int maxMisses, long missTimeoutMs, float[] currentRegion) {
+        if (marginPercent < 0 || maxMisses < 1 || missTimeoutMs <= 0) {
+            throw new IllegalArgumentException("Margin must be >= 0, max misses >= 1 and miss timeout > 0");
+        }
+
+        synchronized (this) {
+            this.enabled = enabled;
+            this.marginPercent = marginPercent;
+            this.maxMisses = maxMisses;
+            this.missTimeoutMs = missTimeoutMs;
+
+            if (!tracking) {
+                System.arraycopy(currentRegion, 0, fullRegion, 0, 4);
+            }
+        }
+
+        restoreFullRegion();
+    }
+
+    synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Replaces the full region, e.g. after the user sets a new region of interest. It stays applied
+     * until the next detection.
+     */
+    synchronized void setFullRegion(float left, float top, float width, float height) {
+        fullRegion[0] = left;
+        fullRegion[1] = top;
+        fullRegion[2] = width;
+        fullRegion[3] = height;
+        tracking = false;
+        misses = 0;
+        mainHandler.removeCallbacks(missTimeoutRunnable);
+        mainHandler.removeCallbacks(liveMissCheckRunnable);
+    }
+
+    /**
+     * Reports one decoded frame of a source that reports every frame, e.g. scanFrame.
+     *
+     * @param frameWidth  width of the frame the location points refer to
+     * @param frameHeight height of the frame the location points refer to
+     */
+    void onFrameDecoded(Barkoder.Result[] results, int frameWidth, int frameHeight) {
+        float[] region;
+
+        synchronized (this) {
+            if (!enabled || frameWidth <= 0 || frameHeight <= 0) return;
+
+            region = boundingRegion(results, frameWidth, frameHeight);
+            if (region == null) {
+                if (tracking && ++misses >= maxMisses) {
+                    tracking = false;
+                    misses = 0;
+                    mainHandler.removeCallbacks(missTimeoutRunnable);
+                    mainHandler.removeCallbacks(liveMissCheckRunnable);
+                    region = fullRegion.clone();
+                } else {
+                    return;
+                }
+            } else {
+                tracking = true;
+                misses = 0;
+                mainHandler.removeCallbacks(missTimeoutRunnable);
+                mainHandler.postDelayed(missTimeoutRunnable, missTimeoutMs);
+            }
+        }
+
+        listener.onRegionChanged(region[0], region[1], region[2], region[3]);
+    }
+
+    /**
+     * Reports a result of the live camera session. Main thread only.
+     *
+     * @param frameWidth  width of the camera frame the location points refer to
+     * @param frameHeight height of the camera frame the location points refer to
+     */
+    void onLiveResults(Barkoder.Result[] results, int frameWidth, int frameHeight) {
+        onFrameDecoded(results, frameWidth, frameHeight);
+
+        synchronized (this) {
+            if (!tracking) return;
+
+            lastLiveHitScanningNanos = liveClock.scanningNanos();
+            mainHandler.removeCallbacks(liveMissCheckRunnable);
+            mainHandler.postDelayed(liveMissCheckRunnable, maxMisses * LiveScanThrottle.FRAME_INTERVAL_NANOS / 1_000_000L);
+        }
+    }
+
+    /**
+     * Counts the live frames scanned since the last live detection as misses. Checked again later
+     * while there are fewer than the maximum, e.g. because the session was paused meanwhile.
+     */
+    private void checkLiveMisses() {
+        synchronized (this) {
+            if (!tracking) return;
+
+            long missedFrames = (liveClock.scanningNanos() - lastLiveHitScanningNanos)
+                    / LiveScanThrottle.FRAME_INTERVAL_NANOS;
+            if (missedFrames < maxMisses) {
+                mainHandler.postDelayed(liveMissCheckRunnable,
+                        (maxMisses - missedFrames) * LiveScanThrottle.FRAME_INTERVAL_NANOS / 1_000_000L);
+                return;
+            }
+        }
+
+        restoreFullRegion();
+    }
+
+    private void restoreFullRegion() {
+        float[] region;
+
+        synchronized (this) {
+            mainHandler.removeCallbacks(missTimeoutRunnable);
+            mainHandler.removeCallbacks(liveMissCheckRunnable);
+            if (!tracking) return;
+
+            tracking = false;
+            misses = 0;
+            region = fullRegion.clone();
+        }
+
+        listener.onRegionChanged(region[0], region[1], region[2], region[3]);
+    }
+
+    /**
+     * @return bounding box of all location points plus margin, clipped to the full region,
+     * or null if there is no location
+     */
+    private float[] boundingRegion(Barkoder.Result[] results, int frameWidth, int frameHeight) {
+        if (results == null) return null;
+
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+
+        for (Barkoder.Result result : results) {
+            if (result.location == null || result.location.points == null) continue;
+
+            for (Barkoder.BKPoint point : result.location.points) {
+                minX = Math.min(minX, point.x);
+                minY = Math.min(minY, point.y);
+                maxX = Math.max(maxX, point.x);
+                maxY = Math.max(maxY, point.y);
+            }
+        }
+        if (minX > maxX) return null;
+
+        float left = minX * 100f / frameWidth - marginPercent;
+        float top = minY * 100f / frameHeight - marginPercent;
+        float right = maxX * 100f / frameWidth + marginPercent;
+        float bottom = maxY * 100f / frameHeight + marginPercent;
+
+        float[] x = clipToFull(left, right, fullRegion[0], fullRegion[2]);
+        float[] y = clipToFull(top, bottom, fullRegion[1], fullRegion[3]);
+
+        return new float[]{x[0], y[0], x[1] - x[0], y[1] - y[0]};
+    }
+
+    /**
+     * Clips the span to the full region's span and grows it inwards to the minimum size.
+     */
+    private static float[] clipToFull(float start, float end, float fullStart, float fullSize) {
+        float fullEnd = fullStart + fullSize;
+        start = Math.min(Math.max(start, fullStart), fullEnd);
+        end = Math.min(Math.max(end, fullStart), fullEnd);
+
+        float minSize = Math.min(MIN_SIZE_PERCENT, fullSize);
+        if (end - start < minSize) {
+            start = (start + end - minSize) / 2;
+            end = start + minSize;
+
+            if (start < fullStart) {
+                start = fullStart;
+                end = start + minSize;
+            } else if (end > fullEnd) {
+                end = fullEnd;
+                start = end - minSize;
+            }
+        }
+
+        return new float[]{start, end};
+    }
+}
@@ -0,0 +1,152 @@
+package com.barkoder_flutter;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.barkoder.BarkoderLog;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single-producer/single-consumer ring buffer that hands serialized results (JSON strings or
+ * binary frames) over to the main thread, where event sinks and channels must be called. The
+ * producer never blocks the main thread; when the ring is full it waits for the drainer instead of
+ * dropping results, so nothing is lost or reordered while the queue is open.
+ * <p>
+ * A single preallocated drain runnable is posted only when no drain is pending, and every drain
+ * delivers up to {@link #MAX_DRAIN_BATCH} results.
+ * <p>
+ * The producer is the result serializer thread, so every decoded result still costs one executor
+ * task on its way there. That hop is kept on purpose: the SDK reports results on the main thread,
+ * and writing to the ring from its callback would mean serializing there too. The ring replaces
+ * the per-result post back to the main thread only.
+ */
+class ResultDeliveryQueue<T> {
+    private static final String TAG = ResultDeliveryQueue.class.getSimpleName();
+
+    interface Consumer<T> {
+        /**
+         * Called on the main thread, in the order the results were offered.
+         */
+        void deliver(T results);
+    }
+
+    static final int DEFAULT_CAPACITY = 64;
+    private static final int MAX_DRAIN_BATCH = 16;
+    private static final long FULL_WAIT_NANOS = 200_000;
+
+    private final Object[] ring;
+    private final int mask;
+
+    // Next slot to read, written by the consumer only
+    private final AtomicLong head = new AtomicLong();
+    // Next slot to write, written by the producer only
+    private final AtomicLong tail = new AtomicLong();
+
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final Executor mainExecutor;
+    private final Runnable drainRunnable = this::drain;
+
+    private final Consumer<T> consumer;
+    private volatile boolean closed;
+
+    /**
+     * @param capacity rounded up to the next power of two
+     */
+    ResultDeliveryQueue(int capacity, Consumer<T> consumer) {
+        this(capacity, consumer, new Handler(Looper.getMainLooper())::post);
+    }
+
+    /**
+     * @param mainExecutor runs the drains, it must run them one after another on the thread the
+     *                     consumer expects
+     */
+    ResultDeliveryQueue(int capacity, Consumer<T> consumer, Executor mainExecutor) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.ring = new Object[size];
+        this.mask = size - 1;
+        this.consumer = consumer;
+        this.mainExecutor = mainExecutor;
+    }
+
+    /**
+     * Must always be called from the same (non main) thread.
+     *
+     * @return false if the queue was closed before the result could be queued
+     */
+    boolean offer(T results) {
+        long currentTail = tail.get();
+
+        while (currentTail - head.get() >= ring.length) {
+            if (closed) return false;
+
+            scheduleDrain();
+            LockSupport.parkNanos(FULL_WAIT_NANOS);
+        }
+        if (closed) return false;
+
+        ring[(int) (currentTail & mask)] = results;
+        tail.lazySet(currentTail + 1);
+
+        scheduleDrain();
+        return true;
+    }
+
+    int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    /**
+     * Stops delivery. Results that are still queued are discarded. Main thread only.
+     */
+    void close() {
+        // A drain that is already posted finds the queue closed and does nothing
+        closed = true;
+
+        long currentHead = head.get();
+        long currentTail = tail.get();
+        for (long i = currentHead; i < currentTail; i++) {
+            ring[(int) (i & mask)] = null;
+        }
+        head.lazySet(currentTail);
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            mainExecutor.execute(drainRunnable);
+        }
+    }
+
+    private void drain() {
+        if (closed) return;
+
+        long currentHead = head.get();
+        long currentTail = tail.get();
+        long batchEnd = Math.min(currentTail, currentHead + MAX_DRAIN_BATCH);
+
+        for (; currentHead < batchEnd; currentHead++) {
+            int index = (int) (currentHead & mask);
+            @SuppressWarnings("unchecked")
+            T results = (T) ring[index];
+            ring[index] = null;
+            head.lazySet(currentHead + 1);
+
+            try {
+                consumer.deliver(results);
+            } catch (RuntimeException ex) {
+                BarkoderLog.d(TAG, "Result delivery failed: " + ex.getMessage());
+            }
+
+            if (closed) return;
+        }
+
+        // Producer may have added more after the check above, so look again after clearing the flag
+        drainScheduled.set(false);
+        if (size() > 0) {
+            scheduleDrain();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.barkoder_flutter;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+
+import com.barkoder.Barkoder;
+
+/**
+ * Decides what is sent of the result image. In {@link #FULL} mode the whole frame is sent once per
+ * event as before. In {@link #CROPPED} mode every result gets a crop of its own location instead,
+ * which is a small fraction of the frame.
+ * <p>
+ * The crop is the bounding box of the location points plus a margin. With deskew, a location with
+ * four corners is warped to an upright rectangle, which also undoes rotation and perspective.
+ */
+class ResultImageCropper {
+    static final int FULL = 0;
+    static final int CROPPED = 1;
+
+    static final ResultImageCropper DEFAULT = new ResultImageCropper(FULL, 0, false);
+
+    // Keeps tiny locations (e.g. a single module row) readable
+    private static final int MIN_MARGIN_PX = 8;
+
+    private final int mode;
+    private final float marginRatio;
+    private final boolean deskew;
+
+    /**
+     * @param marginRatio margin on each side, relative to the longest side of the location
+     */
+    ResultImageCropper(int mode, float marginRatio, boolean deskew) {
+        if (mode != FULL && mode != CROPPED) {
+            throw new IllegalArgumentException("Unknown mode " + mode);
+        }
+        if (marginRatio < 0 || marginRatio > 1) {
+            throw new IllegalArgumentException("Margin must be between 0 and 1");
+        }
+
+        this.mode = mode;
+        this.marginRatio = marginRatio;
+        this.deskew = deskew;
+    }
+
+    boolean isCropped() {
+        return mode == CROPPED;
+    }
+
+    /**
+     * @return null if the location is missing or outside of the frame
+     */
+    Bitmap crop(Bitmap frame, Barkoder.BKPoint[] points) {
+        if (points == null || points.length == 0) return null;
+
+        long traceStart = PluginTrace.begin("cropResultImage", null);
+        try {
+            return deskew && points.length == 4 ? warp(frame, points) : cropBoundingBox(frame, points);
+        } finally {
+            PluginTrace.end("cropResultImage", null, traceStart);
+        }
+    }
+
+    /**
+     * Identifies the output, e.g. for cache keys.
+     */
+    String fingerprint() {
+        return mode + "|" + marginRatio + "|" + deskew;
+    }
+
+    private Bitmap cropBoundingBox(Bitmap frame, Barkoder.BKPoint[] points) {
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        for (Barkoder.BKPoint point : points) {
+            minX = Math.min(minX, point.x);
+            minY = Math.min(minY, point.y);
+            maxX = Math.max(maxX, point.x);
+            maxY = Math.max(maxY, point.y);
+        }
+
+        float margin = margin(maxX - minX, maxY - minY);
+        int left = Math.max(0, (int) Math.floor(minX - margin));
+        int top = Math.max(0, (int) Math.floor(minY - margin));
+        int right = Math.min(frame.getWidth(), (int) Math.ceil(maxX + margin));
+        int bottom = Math.min(frame.getHeight(), (int) Math.ceil(maxY + margin));
+        if (right <= left || bottom <= top) return null;
+
+        return Bitmap.createBitmap(frame, left, top, right - left, bottom - top);
+    }
+
+    /**
+     * Maps the corners (in the order the decoder reports them, around the barcode) to an upright
+     * rectangle whose sides are the average lengths of the opposite edges.
+     */
+    private Bitmap warp(Bitmap frame, Barkoder.BKPoint[] points) {
+        float width = (distance(points[0], points[1]) + distance(points[3], points[2])) / 2;
+        float height = (distance(points[0], points[3]) + distance(points[1], points[2])) / 2;
+        if (width < 1 || height < 1) return null;
+
+        float margin = margin(width, height);
+        int outputWidth = Math.round(width + 2 * margin);
+        int outputHeight = Math.round(height + 2 * margin);
+
+        float[] source = new float[]{
+                points[0].x, points[0].y,
+                points[1].x, points[1].y,
+                points[2].x, points[2].y,
+                points[3].x, points[3].y
+        };
+        float[] destination = new float[]{
+                margin, margin,
+                margin + width, margin,
+                margin + width, margin + height,
+                margin, margin + height
+        };
+
+        Matrix matrix = new Matrix();
+        if (!matrix.setPolyToPoly(source, 0, destination, 0, 4)) {
+            return cropBoundingBox(frame, points);
+        }
+
+        Bitmap warped = Bitmap.createBitmap(outputWidth, outputHeight, Bitmap.Config.ARGB_8888);
+        new Canvas(warped).drawBitmap(frame, matrix, new Paint(Paint.FILTER_BITMAP_FLAG));
+
+        return warped;
+    }
+
+    private float margin(float width, float height) {
+        return Math.max(MIN_MARGIN_PX, Math.max(width, height) * marginRatio);
+    }
+
+    private static float distance(Barkoder.BKPoint a, Barkoder.BKPoint b) {
+        float dx = a.x - b.x;
+        float dy = a.y - b.y;
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+}
@@ -0,0 +1,26 @@
+package com.barkoder_flutter;
+
+/**
+ * How results are written to JSON, taken from the settings when a decode finishes, so a setting
+ * that changes while results are being serialized doesn't mix two formats in one event.
+ * <p>
+ * A null {@link #thumbnails} or {@link #images} encoder leaves them out, see {@link MemoryBudget}.
+ */
+class ResultsFormat {
+    static final ResultsFormat DEFAULT = new ResultsFormat(LocationPointsEncoder.DEFAULT, ImageEncoder.DEFAULT,
+            ImageEncoder.DEFAULT, ResultImageCropper.DEFAULT);
+
+    final LocationPointsEncoder locationPoints;
+    final ImageEncoder thumbnails;
+    // Result image, its crops, MRZ and SADL images
+    final ImageEncoder images;
+    final ResultImageCropper resultImage;
+
+    ResultsFormat(LocationPointsEncoder locationPoints, ImageEncoder thumbnails, ImageEncoder images,
+                  ResultImageCropper resultImage) {
+        this.locationPoints = locationPoints;
+        this.thumbnails = thumbnails;
+        this.images = images;
+        this.resultImage = resultImage;
+    }
+}
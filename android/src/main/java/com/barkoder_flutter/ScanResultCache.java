@@ -0,0 +1,151 @@
+package com.barkoder_flutter;
+
+import android.os.SystemClock;
+
+import com.barkoder.Barkoder;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of serialized still image scan results. Entries are keyed by a hash of the encoded image
+ * bytes plus a fingerprint of the decoder config, so the same image scanned with different
+ * settings is decoded again. The cache is bounded by entry count (least recently used entries go
+ * first) and by entry age.
+ * <p>
+ * The decoded results are kept next to their JSON, so a hit still counts as results in the
+ * session stats and the symbology profiler.
+ */
+class ScanResultCache {
+    static final int DEFAULT_MAX_ENTRIES = 32;
+    static final long DEFAULT_MAX_AGE_MS = 60_000;
+
+    static class Entry {
+        final String resultsJson;
+        final Barkoder.Result[] results;
+        private final long createdAtMs;
+
+        private Entry(String resultsJson, Barkoder.Result[] results, long createdAtMs) {
+            this.resultsJson = resultsJson;
+            this.results = results;
+            this.createdAtMs = createdAtMs;
+        }
+    }
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private boolean enabled = false;
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+    private long maxAgeMs = DEFAULT_MAX_AGE_MS;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    synchronized void configure(boolean enabled, int maxEntries, long maxAgeMs) {
+        if (maxEntries <= 0 || maxAgeMs <= 0) {
+            throw new IllegalArgumentException("Max entries and max age must be > 0");
+        }
+
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.maxAgeMs = maxAgeMs;
+
+        if (!enabled) {
+            entries.clear();
+        } else {
+            trimToSize();
+        }
+    }
+
+    synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return cached results or null on a miss
+     */
+    synchronized Entry get(String key) {
+        Entry entry = entries.get(key);
+
+        if (entry != null && SystemClock.elapsedRealtime() - entry.createdAtMs > maxAgeMs) {
+            entries.remove(key);
+            evictions++;
+            entry = null;
+        }
+
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+
+        hits++;
+        return entry;
+    }
+
+    synchronized void put(String key, String resultsJson, Barkoder.Result[] results) {
+        if (!enabled) return;
+
+        entries.put(key, new Entry(resultsJson, results, SystemClock.elapsedRealtime()));
+        trimToSize();
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("evictions", evictions);
+        stats.put("size", entries.size());
+
+        return stats;
+    }
+
+    private void trimToSize() {
+        Iterator<Entry> eldestFirst = entries.values().iterator();
+        while (entries.size() > maxEntries && eldestFirst.hasNext()) {
+            eldestFirst.next();
+            eldestFirst.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * @return true if the image is cached with any config. Doesn't affect the counters.
+     */
+    synchronized boolean containsImage(String imageHash) {
+        String keyPrefix = imageHash + "|";
+        for (String key : entries.keySet()) {
+            if (key.startsWith(keyPrefix)) return true;
+        }
+
+        return false;
+    }
+
+    static String createKey(String imageHash, String configFingerprint) {
+        return imageHash + "|" + configFingerprint;
+    }
+
+    static String hashImage(byte[] imageData) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(imageData);
+
+            StringBuilder hash = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hash.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+
+            return hash.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            // SHA-256 is guaranteed on every Android version
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.barkoder_flutter;
+
+import android.os.SystemClock;
+
+import com.barkoder.Barkoder;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Counters and latencies of the current scanning session, so sessions can be compared across
+ * devices and config profiles. Fed from the decoder callbacks and the result delivery path,
+ * all methods are thread safe.
+ */
+class SessionStats {
+
+    /**
+     * Mean over all samples, percentiles over the most recent {@link #WINDOW} samples.
+     */
+    private static class Latency {
+        private static final int WINDOW = 512;
+
+        private final long[] recentNanos = new long[WINDOW];
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+
+        void add(long nanos) {
+            recentNanos[(int) (count % WINDOW)] = nanos;
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+
+        Map<String, Object> toMap() {
+            int size = (int) Math.min(count, WINDOW);
+            long[] sorted = Arrays.copyOf(recentNanos, size);
+            Arrays.sort(sorted);
+
+            Map<String, Object> map = new HashMap<>();
+            map.put("count", count);
+            map.put("meanMs", count > 0 ? totalNanos / (double) count / 1_000_000.0 : 0.0);
+            map.put("p50Ms", percentileMs(sorted, 0.5));
+            map.put("p90Ms", percentileMs(sorted, 0.9));
+            map.put("p99Ms", percentileMs(sorted, 0.99));
+            map.put("maxMs", maxNanos / 1_000_000.0);
+
+            return map;
+        }
+
+        private static double percentileMs(long[] sorted, double percentile) {
+            if (sorted.length == 0) return 0.0;
+
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+
+    // Payloads remembered for duplicate detection, older ones are forgotten beyond this
+    private static final int MAX_SEEN_PAYLOADS = 10_000;
+
+    private long statsStartedAtMs = SystemClock.elapsedRealtime();
+    private long scanningStartedAtNanos = -1;
+
+    private final Map<String, Long> resultsByType = new HashMap<>();
+    private long totalResults;
+    private long duplicateResults;
+    private final Set<String> seenPayloads = new HashSet<>();
+
+    private Latency timeToResult = new Latency();
+    private Latency scanImageLatency = new Latency();
+    private Latency encodeTime = new Latency();
+
+    private long payloadBytes;
+    private long eventsDelivered;
+    private long eventsDropped;
+
+    synchronized void onScanningStarted() {
+        scanningStartedAtNanos = SystemClock.elapsedRealtimeNanos();
+    }
+
+    /**
+     * Results of the live session, the time since {@link #onScanningStarted()} is recorded.
+     */
+    synchronized void onScanningResult() {
+        if (scanningStartedAtNanos >= 0) {
+            timeToResult.add(SystemClock.elapsedRealtimeNanos() - scanningStartedAtNanos);
+        }
+    }
+
+    synchronized void onScanImageFinished(long latencyNanos) {
+        scanImageLatency.add(latencyNanos);
+    }
+
+    /**
+     * Counts results of any source per type. A result whose type and payload were already seen in
+     * this session counts as duplicate, i.e. it passed the duplicates threshold.
+     */
+    synchronized void onResults(Barkoder.Result[] results) {
+        if (results == null) return;
+
+        for (Barkoder.Result result : results) {
+            Long count = resultsByType.get(result.barcodeTypeName);
+            resultsByType.put(result.barcodeTypeName, count != null ? count + 1 : 1);
+            totalResults++;
+
+            if (seenPayloads.size() >= MAX_SEEN_PAYLOADS) seenPayloads.clear();
+            if (!seenPayloads.add(result.barcodeTypeName + "|" + result.textualData)) {
+                duplicateResults++;
+            }
+        }
+    }
+
+    /**
+     * @param encodeNanos time spent serializing the results, including image encoding
+     * @return payload size in bytes
+     */
+    long onResultsEncoded(long encodeNanos, String resultsJson) {
+        return onResultsEncoded(encodeNanos, utf8Length(resultsJson));
+    }
+
+    /**
+     * @param encodeNanos time spent serializing the results
+     * @param length payload size in bytes
+     * @return payload size in bytes
+     */
+    synchronized long onResultsEncoded(long encodeNanos, long length) {
+        encodeTime.add(encodeNanos);
+        payloadBytes += length;
+
+        return length;
+    }
+
+    synchronized void onEventDelivered() {
+        eventsDelivered++;
+    }
+
+    synchronized void onEventDropped() {
+        eventsDropped++;
+    }
+
+    synchronized Map<String, Object> toMap() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("durationMs", SystemClock.elapsedRealtime() - statsStartedAtMs);
+        stats.put("resultsByType", new HashMap<>(resultsByType));
+        stats.put("totalResults", totalResults);
+        stats.put("duplicateResults", duplicateResults);
+        stats.put("timeToResult", timeToResult.toMap());
+        stats.put("scanImageLatency", scanImageLatency.toMap());
+        stats.put("encodeTime", encodeTime.toMap());
+        stats.put("payloadBytes", payloadBytes);
+        stats.put("eventsDelivered", eventsDelivered);
+        stats.put("eventsDropped", eventsDropped);
+
+        return stats;
+    }
+
+    /**
+     * Clears all counters. A running session keeps its start time.
+     */
+    synchronized void reset() {
+        statsStartedAtMs = SystemClock.elapsedRealtime();
+        resultsByType.clear();
+        totalResults = 0;
+        duplicateResults = 0;
+        seenPayloads.clear();
+        timeToResult = new Latency();
+        scanImageLatency = new Latency();
+        encodeTime = new Latency();
+        payloadBytes = 0;
+        eventsDelivered = 0;
+        eventsDropped = 0;
+    }
+
+    /**
+     * Size of the string as sent over the channel, without encoding it.
+     */
+    private static long utf8Length(String text) {
+        if (text == null) return 0;
+
+        long length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+
+        return length;
+    }
+}
@@ -0,0 +1,177 @@
+package com.barkoder_flutter;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.barkoder.Barkoder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Learns which barcode types are actually decoded, so symbologies that were only enabled
+ * "just in case" can be switched off. During the learning window every decoded result is counted
+ * per type; the suggested profile is the set of types seen at least once.
+ * <p>
+ * With auto apply, the suggested profile replaces the user's set of enabled types when the window
+ * ends. A periodic probe re-enables the full set for a short time, so types that show up later are
+ * learned too and kept in the profile.
+ */
+class SymbologyProfiler {
+
+    interface Listener {
+        /**
+         * Called on the main thread. Types of the full set that are not listed must be disabled.
+         */
+        void applyEnabledTypes(List<Integer> barcodeTypeOrdinals);
+    }
+
+    static final long DEFAULT_PROBE_INTERVAL_MS = 60_000;
+    static final long DEFAULT_PROBE_DURATION_MS = 3_000;
+
+    private final Listener listener;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable windowEndRunnable = this::onWindowEnd;
+    private final Runnable probeStartRunnable = this::onProbeStart;
+    private final Runnable probeEndRunnable = this::onProbeEnd;
+
+    private boolean learning = false;
+    private boolean autoApply = false;
+    private boolean applied = false;
+    private boolean probing = false;
+    private long probeIntervalMs = DEFAULT_PROBE_INTERVAL_MS;
+    private long probeDurationMs = DEFAULT_PROBE_DURATION_MS;
+    private long startedAtMs;
+
+    private List<Integer> fullTypes = new ArrayList<>();
+    // Sorted, so the suggested profile is stable
+    private final TreeMap<Integer, Long> decodedCounts = new TreeMap<>();
+
+    SymbologyProfiler(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Starts learning from scratch. Main thread only.
+     *
+     * @param enabledTypes types enabled by the user, the profile is always a subset of them
+     * @param windowMs     learning window, 0 to learn for the whole session without applying
+     */
+    synchronized void start(List<Integer> enabledTypes, boolean autoApply, long windowMs,
+                            long probeIntervalMs, long probeDurationMs) {
+        if (windowMs < 0 || probeIntervalMs <= 0 || probeDurationMs <= 0) {
+            throw new IllegalArgumentException("Window must be >= 0, probe interval and duration must be > 0");
+        }
+        if (autoApply && windowMs == 0) {
+            throw new IllegalArgumentException("Auto apply needs a learning window");
+        }
+
+        stop();
+
+        this.fullTypes = new ArrayList<>(enabledTypes);
+        this.autoApply = autoApply;
+        this.probeIntervalMs = probeIntervalMs;
+        this.probeDurationMs = probeDurationMs;
+        this.startedAtMs = SystemClock.elapsedRealtime();
+        decodedCounts.clear();
+        learning = true;
+
+        if (windowMs > 0) {
+            mainHandler.postDelayed(windowEndRunnable, windowMs);
+        }
+    }
+
+    /**
+     * Stops learning and restores the full set of types if a profile was applied. Main thread only.
+     */
+    synchronized void stop() {
+        mainHandler.removeCallbacks(windowEndRunnable);
+        mainHandler.removeCallbacks(probeStartRunnable);
+        mainHandler.removeCallbacks(probeEndRunnable);
+
+        if (applied && !probing) {
+            listener.applyEnabledTypes(fullTypes);
+        }
+
+        learning = false;
+        applied = false;
+        probing = false;
+    }
+
+    synchronized void onResults(Barkoder.Result[] results) {
+        if (!learning || results == null) return;
+
+        for (Barkoder.Result result : results) {
+            int ordinal = result.barcodeType.ordinal();
+            Long count = decodedCounts.get(ordinal);
+            decodedCounts.put(ordinal, count != null ? count + 1 : 1);
+        }
+    }
+
+    synchronized Map<String, Object> getProfile() {
+        Map<String, Object> counts = new HashMap<>();
+        for (Map.Entry<Integer, Long> entry : decodedCounts.entrySet()) {
+            counts.put(String.valueOf(entry.getKey()), entry.getValue());
+        }
+
+        Map<String, Object> profile = new HashMap<>();
+        profile.put("learning", learning);
+        profile.put("applied", applied);
+        profile.put("probing", probing);
+        profile.put("learningDurationMs", learning ? SystemClock.elapsedRealtime() - startedAtMs : 0);
+        profile.put("decodedCounts", counts);
+        profile.put("suggestedTypes", suggestedTypes());
+
+        return profile;
+    }
+
+    private List<Integer> suggestedTypes() {
+        List<Integer> suggested = new ArrayList<>();
+        for (Integer ordinal : decodedCounts.keySet()) {
+            if (fullTypes.contains(ordinal)) suggested.add(ordinal);
+        }
+
+        return suggested;
+    }
+
+    private synchronized void onWindowEnd() {
+        if (!learning || !autoApply) return;
+
+        applySuggestedTypes();
+        mainHandler.postDelayed(probeStartRunnable, probeIntervalMs);
+    }
+
+    private synchronized void onProbeStart() {
+        if (!learning) return;
+
+        probing = true;
+        listener.applyEnabledTypes(fullTypes);
+        mainHandler.postDelayed(probeEndRunnable, probeDurationMs);
+    }
+
+    private synchronized void onProbeEnd() {
+        if (!learning) return;
+
+        probing = false;
+        applySuggestedTypes();
+        mainHandler.postDelayed(probeStartRunnable, probeIntervalMs);
+    }
+
+    private void applySuggestedTypes() {
+        List<Integer> suggested = suggestedTypes();
+
+        // Nothing decoded yet, disabling everything would make scanning useless
+        if (suggested.isEmpty()) {
+            if (applied) listener.applyEnabledTypes(fullTypes);
+            applied = false;
+            return;
+        }
+
+        listener.applyEnabledTypes(suggested);
+        applied = true;
+    }
+}
@@ -0,0 +1,179 @@
+package com.barkoder_flutter;
+
+import com.barkoder.BarkoderConfig;
+import com.barkoder.BarkoderLog;
+
+/**
+ * Tunes the decoder threads limit for measured decodes (scanImage and scanFrame), so they hit a
+ * target latency on every device without a per-model table. Decode latencies are averaged over a
+ * window of decodes; after every window the tuned limit is moved by one thread, within
+ * 1..available cores.
+ * <p>
+ * Adding a thread that didn't make decoding noticeably faster is rolled back and the limit is
+ * capped there, so devices where extra threads don't scale don't keep oscillating.
+ * <p>
+ * The SDK limit is process-global and the live camera session doesn't report decode times, so the
+ * tuned limit is only applied while measured decodes are in flight. Once the last one finishes,
+ * the limit live scanning runs with is restored.
+ */
+class ThreadsLimitTuner {
+    private static final String TAG = ThreadsLimitTuner.class.getSimpleName();
+
+    static final int DEFAULT_TARGET_LATENCY_MS = 50;
+
+    private static final int WINDOW_SIZE = 8;
+    // Latency has to drop at least by this fraction for an extra thread to be kept
+    private static final double MIN_IMPROVEMENT = 0.1;
+    // Below this fraction of the target a thread is given back
+    private static final double RELEASE_THRESHOLD = 0.5;
+
+    private final int maxThreads = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+    private boolean enabled = false;
+    private long targetLatencyNanos = DEFAULT_TARGET_LATENCY_MS * 1_000_000L;
+
+    private int ceiling;
+    // Limit measured decodes run with, 0 until the first one starts
+    private int tunedLimit;
+    // Limit outside of measured decodes, restored when the last one finishes
+    private int baseLimit;
+    private int inFlight;
+    private boolean tunedLimitApplied;
+    private int windowCount;
+    private long windowTotalNanos;
+    // Average of the window before the last increase, 0 if the last step wasn't an increase
+    private long averageBeforeIncrease;
+    private long lastAverageNanos;
+
+    synchronized void configure(boolean enabled, int targetLatencyMs) {
+        if (targetLatencyMs <= 0) {
+            throw new IllegalArgumentException("Target latency must be > 0");
+        }
+
+        this.enabled = enabled;
+        this.targetLatencyNanos = targetLatencyMs * 1_000_000L;
+        this.ceiling = maxThreads;
+        resetWindow();
+        averageBeforeIncrease = 0;
+        lastAverageNanos = 0;
+        restoreBaseLimit();
+        tunedLimit = 0;
+        // Decodes that are still running finish uncounted
+        inFlight = 0;
+    }
+
+    /**
+     * Must be called before the threads limit is set manually, otherwise a measured decode that is
+     * still running would restore the previous one when it finishes.
+     */
+    synchronized void disable() {
+        enabled = false;
+        restoreBaseLimit();
+        inFlight = 0;
+    }
+
+    synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Called right before a measured decode starts. Applies the tuned limit for it.
+     */
+    synchronized void onDecodeStarted() {
+        if (!enabled) return;
+
+        if (inFlight++ > 0) return;
+
+        if (tunedLimit == 0) {
+            // Start in the middle, so both directions are only a few windows away
+            tunedLimit = Math.max(1, (maxThreads + 1) / 2);
+        }
+        baseLimit = BarkoderConfig.GetThreadsLimit();
+        tunedLimitApplied = applyLimit(tunedLimit);
+    }
+
+    /**
+     * Called when a measured decode that was announced with {@link #onDecodeStarted()} finished.
+     */
+    synchronized void onDecodeFinished(long decodeNanos) {
+        // Started before the tuner was (re)configured
+        if (!enabled || inFlight == 0) return;
+
+        if (--inFlight == 0) restoreBaseLimit();
+
+        windowTotalNanos += decodeNanos;
+        if (++windowCount < WINDOW_SIZE) return;
+
+        long averageNanos = windowTotalNanos / windowCount;
+        lastAverageNanos = averageNanos;
+        resetWindow();
+
+        if (averageBeforeIncrease > 0) {
+            boolean improved = averageNanos < averageBeforeIncrease * (1 - MIN_IMPROVEMENT);
+            averageBeforeIncrease = 0;
+
+            if (!improved && tunedLimit > 1) {
+                ceiling = tunedLimit - 1;
+                setTunedLimit(ceiling);
+                return;
+            }
+        }
+
+        if (averageNanos > targetLatencyNanos && tunedLimit < ceiling) {
+            averageBeforeIncrease = averageNanos;
+            setTunedLimit(tunedLimit + 1);
+        } else if (averageNanos < targetLatencyNanos * RELEASE_THRESHOLD && tunedLimit > 1) {
+            setTunedLimit(tunedLimit - 1);
+        }
+    }
+
+    /**
+     * @return limit measured decodes run with, the current global limit if nothing was tuned yet
+     */
+    synchronized int getThreadsLimit() {
+        return enabled && tunedLimit > 0 ? tunedLimit : BarkoderConfig.GetThreadsLimit();
+    }
+
+    synchronized int getMaxThreads() {
+        return maxThreads;
+    }
+
+    /**
+     * @return average decode latency of the last completed window, 0 if none completed yet
+     */
+    synchronized long getLastAverageLatencyMs() {
+        return lastAverageNanos / 1_000_000L;
+    }
+
+    private void setTunedLimit(int threadsLimit) {
+        tunedLimit = threadsLimit;
+        BarkoderLog.d(TAG, "Tuned threads limit " + threadsLimit);
+
+        // Decodes that are still running pick it up too
+        if (inFlight > 0) tunedLimitApplied = applyLimit(tunedLimit);
+    }
+
+    private boolean applyLimit(int threadsLimit) {
+        try {
+            BarkoderConfig.SetThreadsLimit(threadsLimit);
+            return true;
+        } catch (IllegalArgumentException ex) {
+            BarkoderLog.d(TAG, "Threads limit " + threadsLimit + " not accepted: " + ex.getMessage());
+            ceiling = Math.max(1, Math.min(ceiling, threadsLimit - 1));
+            tunedLimit = Math.min(tunedLimit, ceiling);
+            return false;
+        }
+    }
+
+    private void restoreBaseLimit() {
+        if (!tunedLimitApplied) return;
+
+        tunedLimitApplied = false;
+        applyLimit(baseLimit);
+    }
+
+    private void resetWindow() {
+        windowCount = 0;
+        windowTotalNanos = 0;
+    }
+}
@@ -3,133 +3,335 @@ package com.barkoder_flutter;
 import android.graphics.Bitmap;
 import android.graphics.Color;
 import android.text.TextUtils;
-import android.util.Base64;
 
 import androidx.annotation.Nullable;
 
 import com.barkoder.Barkoder;
+import com.barkoder.BarkoderConfig;
 import com.barkoder.BarkoderHelper;
 import com.barkoder.BarkoderLog;
 
-import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.Objects;
 
 class Util {
     private static final String TAG = Util.class.getSimpleName();
 
     static String barkoderResultsToJsonString(Barkoder.Result[] results, Bitmap[] thumbnails, Bitmap resultImage) {
-        JSONObject barkoderResultJson = new JSONObject();
-        JSONArray resultsArray = new JSONArray();
+        return barkoderResultsToJsonString(results, thumbnails, resultImage, ResultsFormat.DEFAULT);
+    }
+
+    static String barkoderResultsToJsonString(Barkoder.Result[] results, Bitmap[] thumbnails, Bitmap resultImage,
+                                              ResultsFormat format) {
+        long traceStart = PluginTrace.begin("barkoderResultsToJsonString", null);
+        try {
+            JsonWriter json = JsonWriter.obtain().beginObject();
+            writeBarkoderResults(json, results, thumbnails, resultImage, format);
+
+            return json.endObject().finish();
+        } finally {
+            PluginTrace.end("barkoderResultsToJsonString", null, traceStart);
+        }
+    }
+
+    static String barkoderResultsToJsonString(Barkoder.Result[] results, Bitmap[] thumbnails, Bitmap resultImage,
+                                              int escalationStep, ResultsFormat format) {
+        long traceStart = PluginTrace.begin("barkoderResultsToJsonString", null);
+        try {
+            JsonWriter json = JsonWriter.obtain().beginObject();
+            writeBarkoderResults(json, results, thumbnails, resultImage, format);
+            json.property("escalationStep", escalationStep);
+
+            return json.endObject().finish();
+        } finally {
+            PluginTrace.end("barkoderResultsToJsonString", null, traceStart);
+        }
+    }
 
+    /**
+     * Results whose thumbnails follow later in {@link #thumbnailsToJsonString}, linked by the result id.
+     */
+    static String deferredBarkoderResultsToJsonString(Barkoder.Result[] results, Bitmap resultImage, long resultId,
+                                                      ResultsFormat format) {
+        long traceStart = PluginTrace.begin("barkoderResultsToJsonString", null);
         try {
-            // Process each decoder result separately
+            JsonWriter json = JsonWriter.obtain().beginObject();
+            writeBarkoderResults(json, results, null, resultImage, format);
+            json.property("resultId", resultId);
+
+            return json.endObject().finish();
+        } finally {
+            PluginTrace.end("barkoderResultsToJsonString", null, traceStart);
+        }
+    }
+
+    static String thumbnailsToJsonString(long resultId, Bitmap[] thumbnails, ImageEncoder thumbnailEncoder) {
+        JsonWriter json = JsonWriter.obtain().beginObject();
+
+        json.name("thumbnails").beginObject();
+        json.property("resultId", resultId);
+        json.name("resultThumbnailsAsBase64").beginArray();
+        for (Bitmap thumbnail : thumbnails) {
+            if (thumbnail != null) {
+                json.base64Value(thumbnailEncoder.encodeToBytes(thumbnail));
+            }
+        }
+        json.endArray();
+        json.endObject();
+
+        return json.endObject().finish();
+    }
+
+    /**
+     * One chunk of a session-end export: the results in [start, end) with their thumbnails. The
+     * full result image goes with the first chunk only, crops go with the result they belong to.
+     */
+    static String barkoderResultsChunkToJsonString(Barkoder.Result[] results, Bitmap[] thumbnails, Bitmap resultImage,
+                                                   int start, int end, int chunkIndex, int chunkCount,
+                                                   ResultsFormat format) {
+        long traceStart = PluginTrace.begin("barkoderResultsChunkToJsonString", null);
+        try {
+            Bitmap chunkResultImage = chunkIndex == 0 || format.resultImage.isCropped() ? resultImage : null;
+            Bitmap[] chunkThumbnails = thumbnails != null
+                    ? Arrays.copyOfRange(thumbnails, Math.min(start, thumbnails.length), Math.min(end, thumbnails.length))
+                    : null;
+
+            JsonWriter json = JsonWriter.obtain().beginObject();
+            writeBarkoderResults(json, Arrays.copyOfRange(results, start, end), chunkThumbnails, chunkResultImage,
+                    format);
+
+            json.name("sessionChunk").beginObject();
+            json.property("index", chunkIndex);
+            json.property("count", chunkCount);
+            json.endObject();
+
+            return json.endObject().finish();
+        } finally {
+            PluginTrace.end("barkoderResultsChunkToJsonString", null, traceStart);
+        }
+    }
+
+    /**
+     * Writes the results to the file in the same layout as a results event. Every result and image
+     * is encoded and written on its own, so only one of them is held in memory at a time.
+     */
+    static void writeBarkoderResultsToFile(File file, Barkoder.Result[] results, Bitmap[] thumbnails,
+                                           Bitmap resultImage, ResultsFormat format) throws IOException {
+        long traceStart = PluginTrace.begin("writeBarkoderResultsToFile", null);
+        JsonWriter json = JsonWriter.obtain();
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file),
+                Charset.forName("UTF-8")))) {
+            json.beginObject();
+            json.name("decoderResults").beginArray();
             for (Barkoder.Result decoderResult : results) {
-                JSONObject resultJson = new JSONObject();
+                writeDecoderResult(json, decoderResult, resultImage, format);
+                json.drainTo(writer);
+            }
+            json.endArray();
 
-                resultJson.put("barcodeType", decoderResult.barcodeType.ordinal());
-                resultJson.put("barcodeTypeName", decoderResult.barcodeTypeName);
-                resultJson.put("binaryDataAsBase64", Base64.encodeToString(decoderResult.binaryData, Base64.NO_WRAP));
-                resultJson.put("textualData", decoderResult.textualData);
+            if (thumbnails != null && format.thumbnails != null) {
+                json.name("resultThumbnailsAsBase64").beginArray();
+                for (Bitmap thumbnail : thumbnails) {
+                    if (thumbnail == null) continue;
 
-                if (!TextUtils.isEmpty(decoderResult.characterSet)) {
-                    resultJson.put("characterSet", decoderResult.characterSet);
+                    json.base64Value(format.thumbnails.encodeToBytes(thumbnail));
+                    json.drainTo(writer);
                 }
+                json.endArray();
+            }
 
-                // Add "extra" if available and not empty
-                if (decoderResult.extra != null && decoderResult.extra.length > 0) {
-                    JSONObject extraJson = new JSONObject();
-                    for (Barkoder.BKKeyValue item : decoderResult.extra) {
-                        extraJson.put(item.key, item.value);
-                    }
-                    resultJson.put("extra", extraJson.toString());
-                }
+            if (resultImage != null && format.images != null && !format.resultImage.isCropped()) {
+                json.base64Property("resultImageAsBase64", format.images.encodeToBytes(resultImage));
+            }
 
-                if (decoderResult.location != null && decoderResult.location.points != null) {
-                    JSONArray locationPointsArray = new JSONArray();
-                    for (Barkoder.BKPoint point : decoderResult.location.points) {
-                        JSONObject pointJson = new JSONObject();
-                        pointJson.put("x", point.x);
-                        pointJson.put("y", point.y);
-                        locationPointsArray.put(pointJson);
-                    }
-                    resultJson.put("locationPoints", locationPointsArray);
-                }
+            json.endObject();
+            json.drainTo(writer);
+        } finally {
+            json.release();
+            PluginTrace.end("writeBarkoderResultsToFile", null, traceStart);
+        }
+    }
 
-                if (decoderResult.extra != null && decoderResult.extra.length > 0) {
-                    Bitmap sadlImage = BarkoderHelper.sadlImage(decoderResult.extra);
-                    if (sadlImage != null) {
-                        resultJson.put("sadlImageAsBase64", bitmapImageToBase64(sadlImage));
-                    }
-                }
+    static String sessionExportToJsonString(File file, int resultCount) {
+        JsonWriter json = JsonWriter.obtain().beginObject();
 
-                // Add mrzImagesAsBase64
-                if (Objects.equals(decoderResult.barcodeTypeName, "MRZ")) {
-                    if (decoderResult.images != null) {
-                        JSONArray mrzImagesArray = new JSONArray();
-
-                        for (Barkoder.BKImageDescriptor image : decoderResult.images) {
-                            if (image != null && image.image != null) {
-                                switch (image.name) {
-                                    case "main":
-                                    case "document":
-                                    case "signature":
-                                    case "picture":
-                                        JSONObject imageInfo = new JSONObject();
-                                        imageInfo.put("name", image.name);
-                                        imageInfo.put("base64", bitmapImageToBase64(image.image));
-                                        mrzImagesArray.put(imageInfo);
-                                        break;
-                                }
-                            }
-                        }
-                        resultJson.put("mrzImagesAsBase64", mrzImagesArray);
-                    }
-                }
+        json.name("sessionExport").beginObject();
+        json.property("filePath", file.getAbsolutePath());
+        json.property("resultCount", resultCount);
+        json.endObject();
 
-                resultsArray.put(resultJson);
+        return json.endObject().finish();
+    }
+
+    /**
+     * Writes the members of a results event into an open object, so callers can add their own.
+     */
+    private static void writeBarkoderResults(JsonWriter json, Barkoder.Result[] results, Bitmap[] thumbnails,
+                                             Bitmap resultImage, ResultsFormat format) {
+        // Process each decoder result separately
+        json.name("decoderResults").beginArray();
+        for (Barkoder.Result decoderResult : results) {
+            writeDecoderResult(json, decoderResult, resultImage, format);
+        }
+        json.endArray();
+
+        // Process thumbnails as an array of base64 strings if available, outside the loop
+        if (thumbnails != null && format.thumbnails != null) {
+            json.name("resultThumbnailsAsBase64").beginArray();
+            for (Bitmap thumbnail : thumbnails) {
+                if (thumbnail != null) {
+                    json.base64Value(format.thumbnails.encodeToBytes(thumbnail));
+                }
             }
+            json.endArray();
+        }
 
-            // Add decoderResults to the final JSON object
-            barkoderResultJson.put("decoderResults", resultsArray);
+        // Process the main result image as base64 if available, outside the loop
+        if (resultImage != null && format.images != null && !format.resultImage.isCropped()) {
+            json.base64Property("resultImageAsBase64", format.images.encodeToBytes(resultImage));
+        }
+    }
 
-            // Process thumbnails as an array of base64 strings if available, outside the loop
-            if (thumbnails != null) {
-                JSONArray thumbnailsBase64Array = new JSONArray();
-                for (Bitmap thumbnail : thumbnails) {
-                    if (thumbnail != null) {
-                        thumbnailsBase64Array.put(bitmapImageToBase64(thumbnail));
-                    }
+    private static void writeDecoderResult(JsonWriter json, Barkoder.Result decoderResult, Bitmap resultImage,
+                                           ResultsFormat format) {
+        json.beginObject();
+
+        json.property("barcodeType", decoderResult.barcodeType.ordinal());
+        json.property("barcodeTypeName", decoderResult.barcodeTypeName);
+        json.base64Property("binaryDataAsBase64", decoderResult.binaryData);
+        json.property("textualData", decoderResult.textualData);
+
+        if (!TextUtils.isEmpty(decoderResult.characterSet)) {
+            json.property("characterSet", decoderResult.characterSet);
+        }
+
+        // Add "extra" if available and not empty, as a JSON string
+        if (decoderResult.extra != null && decoderResult.extra.length > 0) {
+            JsonWriter extraJson = json.nested();
+            writeExtra(extraJson, decoderResult.extra);
+            json.name("extra").value(extraJson);
+        }
+
+        if (decoderResult.location != null && decoderResult.location.points != null) {
+            format.locationPoints.write(json, decoderResult.location.points);
+
+            // Crop of the result image instead of the whole frame
+            if (resultImage != null && format.images != null && format.resultImage.isCropped()) {
+                Bitmap imageCrop = format.resultImage.crop(resultImage, decoderResult.location.points);
+                if (imageCrop != null) {
+                    json.base64Property("imageCropAsBase64", format.images.encodeToBytes(imageCrop));
+                    if (imageCrop != resultImage) imageCrop.recycle();
                 }
-                barkoderResultJson.put("resultThumbnailsAsBase64", thumbnailsBase64Array);
             }
+        }
 
-            // Process the main result image as base64 if available, outside the loop
-            if (resultImage != null) {
-                barkoderResultJson.put("resultImageAsBase64", bitmapImageToBase64(resultImage));
+        if (decoderResult.extra != null && decoderResult.extra.length > 0 && format.images != null) {
+            Bitmap sadlImage = BarkoderHelper.sadlImage(decoderResult.extra);
+            if (sadlImage != null) {
+                json.base64Property("sadlImageAsBase64", format.images.encodeToBytes(sadlImage));
+            }
+        }
+
+        // Add mrzImagesAsBase64
+        if (Objects.equals(decoderResult.barcodeTypeName, "MRZ") && format.images != null) {
+            if (decoderResult.images != null) {
+                json.name("mrzImagesAsBase64").beginArray();
+
+                for (Barkoder.BKImageDescriptor image : decoderResult.images) {
+                    if (image != null && image.image != null) {
+                        switch (image.name) {
+                            case "main":
+                            case "document":
+                            case "signature":
+                            case "picture":
+                                json.beginObject();
+                                json.property("name", image.name);
+                                json.base64Property("base64", format.images.encodeToBytes(image.image));
+                                json.endObject();
+                                break;
+                        }
+                    }
+                }
+                json.endArray();
             }
+        }
 
+        json.endObject();
+    }
 
-        } catch (JSONException ex) {
-            BarkoderLog.d(TAG, ex.getMessage());
+    /**
+     * The extras used to be put into a JSONObject one by one, {@link JsonWriter#putObject} keeps
+     * that output.
+     */
+    private static void writeExtra(JsonWriter json, Barkoder.BKKeyValue[] extra) {
+        String[] keys = new String[extra.length];
+        String[] values = new String[extra.length];
+        for (int i = 0; i < extra.length; i++) {
+            keys[i] = extra[i].key;
+            values[i] = extra[i].value;
         }
 
-        return barkoderResultJson.toString();
+        json.putObject(keys, values);
     }
 
-    private static String bitmapImageToBase64(Bitmap bitmapImage) {
-        try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream()) {
-            bitmapImage.compress(Bitmap.CompressFormat.PNG, 100, byteArrayOutputStream);
-            byte[] bitmapImageBytes = byteArrayOutputStream.toByteArray();
+    static String arDeltaToJsonString(ArDeltaTracker.Delta delta, ResultsFormat format) {
+        JsonWriter json = JsonWriter.obtain().beginObject();
+        json.name("arDelta").beginObject();
+
+        json.name("added").beginArray();
+        for (ArDeltaTracker.Added added : delta.added) {
+            json.beginObject();
+            json.property("id", added.tracked.id);
+            json.name("selected").value(added.tracked.selected);
+            json.property("barcodeType", added.result.barcodeType.ordinal());
+            json.property("barcodeTypeName", added.result.barcodeTypeName);
+            json.base64Property("binaryDataAsBase64", added.result.binaryData);
+            json.property("textualData", added.result.textualData);
+
+            if (!TextUtils.isEmpty(added.result.characterSet)) {
+                json.property("characterSet", added.result.characterSet);
+            }
+            if (added.tracked.locationPoints != null) {
+                format.locationPoints.write(json, added.tracked.locationPoints);
+            }
+            if (added.thumbnail != null && format.thumbnails != null) {
+                json.base64Property("thumbnailAsBase64", format.thumbnails.encodeToBytes(added.thumbnail));
+            }
 
-            return Base64.encodeToString(bitmapImageBytes, Base64.NO_WRAP);
-        } catch (Exception ex) {
-            BarkoderLog.d(TAG, ex.getMessage());
+            json.endObject();
         }
-        return null;
+        json.endArray();
+
+        json.name("updated").beginArray();
+        for (ArDeltaTracker.Tracked updated : delta.updated) {
+            json.beginObject();
+            json.property("id", updated.id);
+            json.name("selected").value(updated.selected);
+            if (updated.locationPoints != null) {
+                format.locationPoints.write(json, updated.locationPoints);
+            }
+            json.endObject();
+        }
+        json.endArray();
+
+        json.name("removed").beginArray();
+        for (int removedId : delta.removed) {
+            json.value(removedId);
+        }
+        json.endArray();
+
+        json.endObject();
+        return json.endObject().finish();
     }
 
     static Barkoder.SpecificConfig getSpecificConfigRefFromBarcodeTypeOrdinal
@@ -225,6 +427,156 @@ class Util {
         return null;
     }
 
+    static void applyJsonStringToConfig(BarkoderConfig config, String barkoderConfigAsJsonString) throws JSONException {
+        BarkoderHelper.applyJsonToConfig(config, configJsonFromString(barkoderConfigAsJsonString));
+    }
+
+    /**
+     * Parses the config JSON sent from Dart into the form the SDK expects. Doesn't touch any
+     * config, so it is safe to call off the main thread.
+     */
+    static JSONObject configJsonFromString(String barkoderConfigAsJsonString) throws JSONException {
+        JSONObject configAsJson = new JSONObject(barkoderConfigAsJsonString);
+
+        // Its easier for the users to send us hex color from the cross platform
+
+        if (configAsJson.has("roiLineColor")) {
+            String colorAsHex = configAsJson.getString("roiLineColor");
+            configAsJson.put("roiLineColor", hexColorToIntColor(colorAsHex));
+        }
+
+        if (configAsJson.has("roiOverlayBackgroundColor")) {
+            String colorAsHex = configAsJson.getString("roiOverlayBackgroundColor");
+            configAsJson.put("roiOverlayBackgroundColor", hexColorToIntColor(colorAsHex));
+        }
+
+        if (configAsJson.has("locationLineColor")) {
+            String colorAsHex = configAsJson.getString("locationLineColor");
+            configAsJson.put("locationLineColor", hexColorToIntColor(colorAsHex));
+        }
+
+        if (configAsJson.has("scanningIndicatorColor")) {
+            String colorAsHex = configAsJson.getString("scanningIndicatorColor");
+            configAsJson.put("scanningIndicatorColor", hexColorToIntColor(colorAsHex));
+        }
+
+        if (configAsJson.has("selectedLocationColor")) {
+            String colorAsHex = configAsJson.getString("selectedLocationColor");
+            configAsJson.put("selectedLocationColor", hexColorToIntColor(colorAsHex));
+        }
+
+        if (configAsJson.has("nonSelectedLocationColor")) {
+            String colorAsHex = configAsJson.getString("nonSelectedLocationColor");
+            configAsJson.put("nonSelectedLocationColor", hexColorToIntColor(colorAsHex));
+        }
+
+        if (configAsJson.has("headerTextColorSelected")) {
+            String colorAsHex = configAsJson.getString("headerTextColorSelected");
+            configAsJson.put("headerTextColorSelected", hexColorToIntColor(colorAsHex));
+        }
+
+        if (configAsJson.has("headerTextColorNonSelected")) {
+            String colorAsHex = configAsJson.getString("headerTextColorNonSelected");
+            configAsJson.put("headerTextColorNonSelected", hexColorToIntColor(colorAsHex));
+        }
+
+        return configAsJson;
+    }
+
+    /**
+     * Copies everything that affects decoding from one config to another. Used when a decode needs
+     * tweaked settings without touching the config the user configured.
+     */
+    static void copyDecodingConfig(BarkoderConfig source, BarkoderConfig target) {
+        Barkoder.Config from = source.getDecoderConfig();
+        Barkoder.Config to = target.getDecoderConfig();
+
+        for (Barkoder.DecoderType type : Barkoder.DecoderType.values()) {
+            try {
+                Barkoder.SpecificConfig fromSpecific = getSpecificConfigRefFromBarcodeTypeOrdinal(type.ordinal(), from);
+                Barkoder.SpecificConfig toSpecific = getSpecificConfigRefFromBarcodeTypeOrdinal(type.ordinal(), to);
+                if (fromSpecific != null && toSpecific != null) {
+                    toSpecific.enabled = fromSpecific.enabled;
+                    toSpecific.setLengthRange(fromSpecific.minimumLength, fromSpecific.maximumLength);
+                }
+            } catch (Exception ex) {
+                BarkoderLog.d(TAG, ex.getMessage());
+            }
+        }
+
+        to.Msi.checksumType = from.Msi.checksumType;
+        to.Code39.checksumType = from.Code39.checksumType;
+        to.Code11.checksumType = from.Code11.checksumType;
+        to.Datamatrix.dpmMode = from.Datamatrix.dpmMode;
+        to.QR.dpmMode = from.QR.dpmMode;
+        to.QR.multiPartMerge = from.QR.multiPartMerge;
+        to.QRMicro.dpmMode = from.QRMicro.dpmMode;
+        to.UpcE.expandToUPCA = from.UpcE.expandToUPCA;
+        to.UpcE1.expandToUPCA = from.UpcE1.expandToUPCA;
+        to.IDDocument.masterChecksumType = from.IDDocument.masterChecksumType;
+
+        to.decodingSpeed = from.decodingSpeed;
+        to.formattingType = from.formattingType;
+        to.encodingCharacterSet = from.encodingCharacterSet;
+        to.maximumResultsCount = from.maximumResultsCount;
+        to.upcEanDeblur = from.upcEanDeblur;
+        to.enableMisshaped1D = from.enableMisshaped1D;
+        to.enableVINRestrictions = from.enableVINRestrictions;
+        to.enableComposite = from.enableComposite;
+
+        target.setBarkoderResolution(source.getBarkoderResolution());
+        target.setImageResultEnabled(source.isImageResultEnabled());
+        target.setLocationInImageResultEnabled(source.isLocationInImageResultEnabled());
+        target.setThumbnailOnResultEnabled(source.getThumbnailOnResulEnabled());
+    }
+
+    /**
+     * Builds a string that changes whenever a setting that can change decoding results changes.
+     * Covers the same settings that {@link #copyDecodingConfig} copies.
+     */
+    static String decodingConfigFingerprint(BarkoderConfig config) {
+        Barkoder.Config decoderConfig = config.getDecoderConfig();
+        StringBuilder fingerprint = new StringBuilder();
+
+        for (Barkoder.DecoderType type : Barkoder.DecoderType.values()) {
+            try {
+                Barkoder.SpecificConfig specificConfig = getSpecificConfigRefFromBarcodeTypeOrdinal(type.ordinal(), decoderConfig);
+                if (specificConfig != null && specificConfig.enabled) {
+                    fingerprint.append(type.ordinal()).append(':')
+                            .append(specificConfig.minimumLength).append('-')
+                            .append(specificConfig.maximumLength).append(',');
+                }
+            } catch (Exception ex) {
+                BarkoderLog.d(TAG, ex.getMessage());
+            }
+        }
+
+        fingerprint.append('|').append(decoderConfig.Msi.checksumType.ordinal())
+                .append(decoderConfig.Code39.checksumType.ordinal())
+                .append(decoderConfig.Code11.checksumType.ordinal())
+                .append(decoderConfig.IDDocument.masterChecksumType.ordinal())
+                .append(decoderConfig.Datamatrix.dpmMode ? 1 : 0)
+                .append(decoderConfig.QR.dpmMode ? 1 : 0)
+                .append(decoderConfig.QR.multiPartMerge ? 1 : 0)
+                .append(decoderConfig.QRMicro.dpmMode ? 1 : 0)
+                .append(decoderConfig.UpcE.expandToUPCA ? 1 : 0)
+                .append(decoderConfig.UpcE1.expandToUPCA ? 1 : 0)
+                .append(decoderConfig.upcEanDeblur ? 1 : 0)
+                .append(decoderConfig.enableMisshaped1D ? 1 : 0)
+                .append(decoderConfig.enableVINRestrictions ? 1 : 0)
+                .append('|').append(decoderConfig.decodingSpeed.ordinal())
+                .append('|').append(decoderConfig.formattingType.ordinal())
+                .append('|').append(decoderConfig.encodingCharacterSet)
+                .append('|').append(decoderConfig.maximumResultsCount)
+                .append('|').append(decoderConfig.enableComposite)
+                .append('|').append(config.getBarkoderResolution().ordinal())
+                .append('|').append(config.isImageResultEnabled() ? 1 : 0)
+                .append(config.isLocationInImageResultEnabled() ? 1 : 0)
+                .append(config.getThumbnailOnResulEnabled() ? 1 : 0);
+
+        return fingerprint.toString();
+    }
+
     static int hexColorToIntColor(String hexColor) {
         int color;
 
@@ -0,0 +1,132 @@
+package com.barkoder_flutter;
+
+import com.barkoder.Barkoder;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static com.barkoder_flutter.TestResults.result;
+import static com.barkoder_flutter.TestResults.square;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Id assignment of {@link ArDeltaTracker} across overlay refreshes.
+ */
+public class ArDeltaTrackerTest {
+
+    private final ArDeltaTracker tracker = new ArDeltaTracker(false);
+
+    @Test
+    public void idsStayTheSameWhileBarcodesAreReported() {
+        ArDeltaTracker.Delta first = tracker.update(new Barkoder.Result[]{
+                result(0, "A", square(0, 0, 10)),
+                result(2, "B", square(100, 0, 10)),
+        }, null, true);
+
+        assertEquals(2, first.added.size());
+        int idA = first.added.get(0).tracked.id;
+        int idB = first.added.get(1).tracked.id;
+        assertTrue(idA != idB);
+
+        // Reported in a different order, B moved
+        ArDeltaTracker.Delta second = tracker.update(new Barkoder.Result[]{
+                result(2, "B", square(120, 0, 10)),
+                result(0, "A", square(0, 0, 10)),
+        }, null, true);
+
+        assertTrue(second.added.isEmpty());
+        assertTrue(second.removed.isEmpty());
+        assertEquals(1, second.updated.size());
+        assertEquals(idB, second.updated.get(0).id);
+        assertArrayEquals(square(120, 0, 10), second.updated.get(0).locationPoints, 0);
+    }
+
+    @Test
+    public void unchangedResultsGiveAnEmptyDelta() {
+        Barkoder.Result[] results = {result(0, "A", square(0, 0, 10))};
+        tracker.update(results, null, true);
+
+        // Jitter below the movement threshold
+        assertTrue(tracker.update(new Barkoder.Result[]{result(0, "A", square(0.5f, 0, 10))}, null, true)
+                .isEmpty());
+    }
+
+    @Test
+    public void sameContentIsMatchedToTheNearestLocation() {
+        ArDeltaTracker.Delta first = tracker.update(new Barkoder.Result[]{
+                result(0, "LABEL", square(0, 0, 10)),
+                result(0, "LABEL", square(200, 0, 10)),
+        }, null, true);
+        int leftId = first.added.get(0).tracked.id;
+        int rightId = first.added.get(1).tracked.id;
+
+        // Both moved a bit, right one reported first
+        ArDeltaTracker.Delta second = tracker.update(new Barkoder.Result[]{
+                result(0, "LABEL", square(205, 0, 10)),
+                result(0, "LABEL", square(5, 0, 10)),
+        }, null, true);
+
+        assertTrue(second.added.isEmpty());
+        assertEquals(2, second.updated.size());
+        assertEquals(rightId, second.updated.get(0).id);
+        assertEquals(205, second.updated.get(0).locationPoints[0], 0);
+        assertEquals(leftId, second.updated.get(1).id);
+        assertEquals(5, second.updated.get(1).locationPoints[0], 0);
+    }
+
+    @Test
+    public void goneBarcodesAreRemovedAndComeBackWithNewIds() {
+        ArDeltaTracker.Delta first = tracker.update(new Barkoder.Result[]{
+                result(0, "A", square(0, 0, 10)),
+                result(0, "A", square(100, 0, 10)),
+                result(2, "B", square(200, 0, 10)),
+        }, null, true);
+        int idA1 = first.added.get(0).tracked.id;
+        int idA2 = first.added.get(1).tracked.id;
+        int idB = first.added.get(2).tracked.id;
+
+        ArDeltaTracker.Delta second = tracker.update(new Barkoder.Result[]{
+                result(0, "A", square(100, 0, 10)),
+        }, null, true);
+
+        assertTrue(second.added.isEmpty());
+        assertTrue(second.updated.isEmpty());
+        Integer[] removed = second.removed.toArray(new Integer[0]);
+        Arrays.sort(removed);
+        assertArrayEquals(new Integer[]{Math.min(idA1, idB), Math.max(idA1, idB)}, removed);
+
+        ArDeltaTracker.Delta third = tracker.update(new Barkoder.Result[]{
+                result(0, "A", square(100, 0, 10)),
+                result(2, "B", square(200, 0, 10)),
+        }, null, true);
+
+        assertEquals(1, third.added.size());
+        int newIdB = third.added.get(0).tracked.id;
+        assertTrue(newIdB != idA1 && newIdB != idA2 && newIdB != idB);
+        assertTrue(third.updated.isEmpty());
+        assertTrue(third.removed.isEmpty());
+
+        ArDeltaTracker.Delta empty = tracker.update(null, null, true);
+        assertEquals(2, empty.removed.size());
+        assertTrue(empty.removed.contains(idA2));
+        assertTrue(empty.removed.contains(newIdB));
+    }
+
+    @Test
+    public void selectionChangesAreReportedAsUpdates() {
+        ArDeltaTracker.Delta first = tracker.update(new Barkoder.Result[]{result(0, "A", square(0, 0, 10))},
+                null, false);
+        assertFalse(first.added.get(0).tracked.selected);
+
+        ArDeltaTracker.Delta second = tracker.update(new Barkoder.Result[]{result(0, "A", square(0, 0, 10))},
+                null, true);
+
+        assertEquals(1, second.updated.size());
+        assertEquals(first.added.get(0).tracked.id, second.updated.get(0).id);
+        assertTrue(second.updated.get(0).selected);
+    }
+}
@@ -0,0 +1,161 @@
+package com.barkoder_flutter;
+
+import com.barkoder.Barkoder;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static com.barkoder_flutter.TestResults.result;
+import static com.barkoder_flutter.TestResults.square;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Frames of {@link BinaryResultsEncoder} read back with the layout its class doc describes.
+ */
+public class BinaryResultsEncoderTest {
+
+    private final BinaryResultsEncoder encoder = new BinaryResultsEncoder();
+
+    @Test
+    public void framesFollowTheDocumentedLayout() {
+        Barkoder.Result withLocation = result(2, "hello", square(10.5f, 20, 30));
+        Barkoder.Result withoutLocation = result(4, "", (float[]) null);
+        withoutLocation.binaryData = new byte[]{0, (byte) 0xFF, 7};
+
+        ByteBuffer frame = encoder.encode(new Barkoder.Result[]{withLocation, withoutLocation}, 1280, 720);
+        ByteBuffer in = readable(frame);
+
+        assertEquals(BinaryResultsEncoder.MAGIC, in.getInt());
+        assertEquals("BKR1", new String(bytesAt(frame, 0, 4), StandardCharsets.US_ASCII));
+        assertEquals(BinaryResultsEncoder.VERSION, in.getShort());
+        assertEquals(2, in.getShort());
+        assertEquals(1280, in.getInt());
+        assertEquals(720, in.getInt());
+
+        assertEquals(2, in.getShort());
+        assertArrayEquals("hello".getBytes(StandardCharsets.UTF_8), readBytes(in));
+        assertEquals("hello", new String(readBytes(in), StandardCharsets.UTF_8));
+        assertEquals(4, in.getShort());
+        float[] points = new float[8];
+        for (int i = 0; i < points.length; i++) points[i] = in.getFloat();
+        assertArrayEquals(square(10.5f, 20, 30), points, 0);
+
+        assertEquals(4, in.getShort());
+        assertArrayEquals(new byte[]{0, (byte) 0xFF, 7}, readBytes(in));
+        assertEquals(0, readBytes(in).length);
+        assertEquals(0, in.getShort());
+
+        assertFalse(in.hasRemaining());
+    }
+
+    @Test
+    public void noResultsGiveAnEmptyFrame() {
+        ByteBuffer in = readable(encoder.encode(null, 0, 0));
+
+        in.position(6);
+        assertEquals(0, in.getShort());
+        assertEquals(16, in.limit());
+    }
+
+    @Test
+    public void multibyteTextLengthIsPatchedInBytes() {
+        // 2, 3 and 4 byte sequences, the length is only known once they're encoded
+        String text = "\u00e9\u4e2d\ud83d\ude00";
+        // A broken surrogate is replaced, like String.getBytes does
+        String broken = "a\ud83d";
+
+        ByteBuffer in = readable(encoder.encode(new Barkoder.Result[]{
+                result(0, text, (float[]) null),
+                result(0, broken, (float[]) null),
+        }, 0, 0));
+        in.position(16);
+
+        in.getShort();
+        readBytes(in);
+        byte[] textBytes = readBytes(in);
+        assertEquals(2 + 3 + 4, textBytes.length);
+        assertEquals(text, new String(textBytes, StandardCharsets.UTF_8));
+        in.getShort();
+
+        in.getShort();
+        readBytes(in);
+        assertArrayEquals(broken.getBytes(StandardCharsets.UTF_8), readBytes(in));
+        in.getShort();
+
+        assertFalse(in.hasRemaining());
+    }
+
+    @Test
+    public void bufferGrowsForLargeBatches() {
+        // Well past the initial 4 KB, with the overflow inside text as well as binary data
+        char[] chars = new char[3000];
+        Arrays.fill(chars, '\u00e9');
+        String longText = new String(chars);
+        Barkoder.Result[] results = new Barkoder.Result[20];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = result(1, longText + i, square(i, i, 5));
+        }
+
+        ByteBuffer frame = encoder.encode(results, 1920, 1080);
+        ByteBuffer in = readable(frame);
+        assertTrue(frame.capacity() > 4 * 1024);
+
+        in.position(6);
+        assertEquals(results.length, in.getShort());
+        in.position(16);
+        for (int i = 0; i < results.length; i++) {
+            assertEquals(1, in.getShort());
+            assertEquals(longText + i, new String(readBytes(in), StandardCharsets.UTF_8));
+            assertEquals(longText + i, new String(readBytes(in), StandardCharsets.UTF_8));
+            assertEquals(4, in.getShort());
+            assertEquals(i, in.getFloat(), 0);
+            in.position(in.position() + 7 * 4);
+        }
+        assertFalse(in.hasRemaining());
+
+        // The grown buffer replaced the small one in the pool and is reused as is once it's given back
+        int frameLength = frame.position();
+        encoder.recycle(frame);
+        for (int i = 0; i < 3; i++) encoder.encode(null, 0, 0);
+        ByteBuffer reused = encoder.encode(results, 1920, 1080);
+        assertSame(frame, reused);
+        assertEquals(frameLength, reused.position());
+    }
+
+    @Test
+    public void closedEncoderStopsWaitingForBuffers() {
+        // All pooled buffers in flight
+        for (int i = 0; i < 4; i++) encoder.encode(null, 0, 0);
+
+        encoder.close();
+        assertNull(encoder.encode(null, 0, 0));
+    }
+
+    // Frames are returned with the position at the end
+    private static ByteBuffer readable(ByteBuffer frame) {
+        ByteBuffer in = frame.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        in.flip();
+        return in;
+    }
+
+    private static byte[] bytesAt(ByteBuffer frame, int offset, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) bytes[i] = frame.get(offset + i);
+        return bytes;
+    }
+
+    private static byte[] readBytes(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,147 @@
+package com.barkoder_flutter;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Stride handling and rotation math of {@link FrameScanner}, the part that decides which camera
+ * sample ends up on which bitmap pixel.
+ */
+public class FrameScannerTest {
+
+    @Test
+    public void tightRowsArePackedAsIs() {
+        byte[] luma = samples(4 * 3, 0);
+        byte[] packed = new byte[4 * 3];
+
+        FrameScanner.packLuma(ByteBuffer.wrap(luma), 4, 3, 4, 1, packed, 4);
+
+        assertArrayEquals(luma, packed);
+    }
+
+    @Test
+    public void rowPaddingIsDropped() {
+        int width = 5, height = 3, rowStride = 8;
+        byte[] luma = new byte[rowStride * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < rowStride; x++) {
+                luma[y * rowStride + x] = (byte) (x < width ? y * 10 + x : 0xEE);
+            }
+        }
+        byte[] packed = new byte[width * height];
+
+        FrameScanner.packLuma(ByteBuffer.wrap(luma), width, height, rowStride, 1, packed, width);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                assertEquals(y * 10 + x, packed[y * width + x]);
+            }
+        }
+    }
+
+    @Test
+    public void interleavedSamplesAreSkipped() {
+        // Semi-planar layout, luma samples on even offsets, last row without padding
+        int width = 3, height = 2, rowStride = 8, pixelStride = 2;
+        byte[] luma = new byte[rowStride + width * pixelStride - 1];
+        for (int i = 0; i < luma.length; i++) luma[i] = (byte) 0xEE;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                luma[y * rowStride + x * pixelStride] = (byte) (y * 10 + x);
+            }
+        }
+        // Bitmap rows wider than the frame
+        int dstRowBytes = 4;
+        byte[] packed = new byte[dstRowBytes * height];
+
+        FrameScanner.packLuma(ByteBuffer.wrap(luma), width, height, rowStride, pixelStride, packed, dstRowBytes);
+
+        assertArrayEquals(new byte[]{0, 1, 2, 0, 10, 11, 12, 0}, packed);
+    }
+
+    @Test
+    public void bufferIsReadFromItsPosition() {
+        ByteBuffer direct = ByteBuffer.allocateDirect(3 + 4);
+        direct.put(new byte[]{9, 9, 9, 1, 2, 3, 4});
+        direct.position(3);
+
+        FrameScanner.Frame frame = new FrameScanner.Frame(direct, 2, 2, 2, 1, 0);
+        byte[] packed = new byte[4];
+        FrameScanner.packLuma(frame.luminance, frame.width, frame.height, frame.rowStride, frame.pixelStride,
+                packed, 2);
+
+        assertArrayEquals(new byte[]{1, 2, 3, 4}, packed);
+        assertEquals(3, direct.position());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shortBufferIsRejected() {
+        new FrameScanner.Frame(ByteBuffer.wrap(new byte[8 + 4]), 5, 2, 8, 1, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void oddRotationIsRejected() {
+        new FrameScanner.Frame(ByteBuffer.wrap(new byte[4]), 2, 2, 2, 1, 45);
+    }
+
+    @Test
+    public void rotationIsNormalized() {
+        assertEquals(270, new FrameScanner.Frame(ByteBuffer.wrap(new byte[4]), 2, 2, 2, 1, -90).rotation);
+        assertEquals(90, new FrameScanner.Frame(ByteBuffer.wrap(new byte[4]), 2, 2, 2, 1, 450).rotation);
+    }
+
+    @Test
+    public void rotationMapsEveryPixelOntoTheRotatedFrame() {
+        int width = 4, height = 3;
+
+        for (int rotation : new int[]{0, 90, 180, 270}) {
+            float[] m = FrameScanner.rotationMatrixValues(rotation, width, height);
+            boolean swapSides = rotation == 90 || rotation == 270;
+            int outWidth = swapSides ? height : width;
+            int outHeight = swapSides ? width : height;
+            boolean[] covered = new boolean[outWidth * outHeight];
+
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    // Pixel centers, like the unfiltered draw samples them
+                    float cx = x + 0.5f, cy = y + 0.5f;
+                    int dstX = (int) Math.floor(m[0] * cx + m[1] * cy + m[2]);
+                    int dstY = (int) Math.floor(m[3] * cx + m[4] * cy + m[5]);
+
+                    int[] expected = expectedPixel(rotation, x, y, width, height);
+                    assertEquals("x of (" + x + ", " + y + ") at " + rotation, expected[0], dstX);
+                    assertEquals("y of (" + x + ", " + y + ") at " + rotation, expected[1], dstY);
+
+                    covered[dstY * outWidth + dstX] = true;
+                }
+            }
+
+            for (boolean pixel : covered) assertTrue(pixel);
+        }
+    }
+
+    // Where pixel (x, y) of an upright frame is after turning the frame clockwise
+    private static int[] expectedPixel(int rotation, int x, int y, int width, int height) {
+        switch (rotation) {
+            case 90:
+                return new int[]{height - 1 - y, x};
+            case 180:
+                return new int[]{width - 1 - x, height - 1 - y};
+            case 270:
+                return new int[]{y, width - 1 - x};
+            default:
+                return new int[]{x, y};
+        }
+    }
+
+    private static byte[] samples(int count, int first) {
+        byte[] samples = new byte[count];
+        for (int i = 0; i < count; i++) samples[i] = (byte) (first + i);
+        return samples;
+    }
+}
@@ -0,0 +1,177 @@
+package com.barkoder_flutter;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * {@link JsonWriter} replaced org.json for the result payloads, so its output is compared with what
+ * org.json writes for the same values. Runs on Robolectric so the comparison is against Android's
+ * org.json, which keeps object members in insertion order.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 31)
+public class JsonWriterTest {
+
+    @Test
+    public void stringsAreEscapedLikeOrgJson() throws JSONException {
+        String[] strings = {
+                "",
+                "plain text 123",
+                "quote \" backslash \\ slash / </script>",
+                "tab\t backspace\b newline\n return\r form feed\f",
+                "controls \u0000 \u0001 \u0010 \u001f \u007f",
+                "unicode \u00e9 \u4e2d \u2028 \ud83d\ude00",
+                "broken surrogate \ud83d",
+        };
+
+        for (String string : strings) {
+            String expected = new JSONObject().put(string, string).toString();
+            String actual = JsonWriter.obtain().beginObject().property(string, string).endObject().finish();
+
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void numbersAreFormattedLikeOrgJson() throws JSONException {
+        double[] doubles = {
+                0.0, -0.0, 1.0, -1.0, 0.1, -2.5, 1.5e-7, 1e20, -1e20, 123456789.125,
+                Long.MAX_VALUE, (double) Long.MIN_VALUE, Double.MAX_VALUE, Double.MIN_VALUE,
+                12.3f, 0.1f, -0.0f, 640f, Float.MAX_VALUE
+        };
+        long[] longs = {0, 1, -1, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE};
+
+        for (double value : doubles) {
+            String expected = new JSONObject().put("n", value).toString();
+            String actual = JsonWriter.obtain().beginObject().property("n", value).endObject().finish();
+
+            assertEquals(expected, actual);
+        }
+        for (long value : longs) {
+            String expected = new JSONObject().put("n", value).toString();
+            String actual = JsonWriter.obtain().beginObject().property("n", value).endObject().finish();
+
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void nullsAreLeftOutOfObjectsAndKeptInArrays() throws JSONException {
+        JSONObject expected = new JSONObject();
+        expected.put("before", "a");
+        expected.put("text", (Object) null);
+        expected.put("after", "b");
+        expected.put("array", new JSONArray().put((Object) null).put("c"));
+
+        JsonWriter actual = JsonWriter.obtain().beginObject();
+        actual.property("before", "a");
+        actual.property("text", (String) null);
+        actual.base64Property("bytes", null);
+        actual.property("after", "b");
+        actual.name("array").beginArray().value((CharSequence) null).value("c").endArray();
+
+        assertEquals(expected.toString(), actual.endObject().finish());
+    }
+
+    @Test
+    public void base64IsWrittenLikeAnEncodedString() throws JSONException {
+        Random random = new Random(7);
+
+        for (int length = 0; length < 64; length++) {
+            byte[] bytes = new byte[length];
+            random.nextBytes(bytes);
+
+            String expected = new JSONObject().put("b", Base64.getEncoder().encodeToString(bytes)).toString();
+            String actual = JsonWriter.obtain().beginObject().base64Property("b", bytes).endObject().finish();
+
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void nestedStructuresMatchOrgJson() throws JSONException {
+        JSONObject point = new JSONObject().put("x", 1.5f).put("y", 2.0f);
+        JSONObject extra = new JSONObject().put("key", "value/1");
+        JSONObject expected = new JSONObject()
+                .put("decoderResults", new JSONArray()
+                        .put(new JSONObject()
+                                .put("barcodeType", 3)
+                                .put("extra", extra.toString())
+                                .put("locationPoints", new JSONArray().put(point).put(point)))
+                        .put(new JSONObject()))
+                .put("resultId", 42L)
+                .put("empty", new JSONArray());
+
+        JsonWriter actual = JsonWriter.obtain().beginObject();
+        actual.name("decoderResults").beginArray();
+        actual.beginObject();
+        actual.property("barcodeType", 3);
+        JsonWriter extraJson = actual.nested().beginObject().property("key", "value/1").endObject();
+        actual.name("extra").value(extraJson);
+        actual.name("locationPoints").beginArray();
+        for (int i = 0; i < 2; i++) {
+            actual.beginObject().property("x", 1.5f).property("y", 2.0f).endObject();
+        }
+        actual.endArray();
+        actual.endObject();
+        actual.beginObject().endObject();
+        actual.endArray();
+        actual.property("resultId", 42L);
+        actual.name("empty").beginArray().endArray();
+
+        assertEquals(expected.toString(), actual.endObject().finish());
+    }
+
+    @Test
+    public void putObjectKeepsTheOrderOfConsecutivePuts() throws JSONException {
+        String[] keyChoices = {"a", "b", "c", null};
+        String[] valueChoices = {"1", "2", null};
+        Random random = new Random(11);
+
+        for (int run = 0; run < 10_000; run++) {
+            int count = random.nextInt(8);
+            String[] keys = new String[count];
+            String[] values = new String[count];
+            JSONObject expected = new JSONObject();
+            for (int i = 0; i < count; i++) {
+                keys[i] = keyChoices[random.nextInt(keyChoices.length)];
+                values[i] = valueChoices[random.nextInt(valueChoices.length)];
+                // JSONObject rejects null keys
+                if (keys[i] != null) expected.put(keys[i], values[i]);
+            }
+
+            assertEquals(expected.toString(), JsonWriter.obtain().putObject(keys, values).finish());
+        }
+    }
+
+    @Test
+    public void drainedOutputMatchesFinishedOutput() throws IOException {
+        StringBuilder longText = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            longText.append((char) ('a' + i % 26));
+        }
+
+        String expected = JsonWriter.obtain().beginArray().value(longText).value(7).endArray().finish();
+
+        StringWriter drained = new StringWriter();
+        JsonWriter json = JsonWriter.obtain().beginArray().value(longText);
+        json.drainTo(drained);
+        json.value(7).endArray();
+        json.drainTo(drained);
+        json.release();
+
+        assertEquals(expected, drained.toString());
+    }
+}
@@ -0,0 +1,84 @@
+package com.barkoder_flutter;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Base64;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Packed encodings of {@link LocationPointsEncoder}, decoded the way the Dart side decodes them.
+ */
+public class LocationPointsEncoderTest {
+
+    private static final float[] POINTS = {0, 0, 1919.5f, 0.25f, 1920, 1080, 12.75f, 1079};
+
+    @Test
+    public void float32PacksTheExactCoordinates() {
+        String json = write(new LocationPointsEncoder(LocationPointsEncoder.FLOAT32, 0, 0), POINTS);
+
+        ByteBuffer bytes = base64Property(json, "locationPointsFloat32AsBase64");
+        assertEquals(POINTS.length * 4, bytes.remaining());
+        for (float point : POINTS) {
+            assertEquals(point, bytes.getFloat(), 0);
+        }
+        assertFalse(json.contains("frameWidth"));
+    }
+
+    @Test
+    public void int16PacksFixedPointOfTheFrameSize() {
+        int width = 1920, height = 1080;
+        String json = write(new LocationPointsEncoder(LocationPointsEncoder.INT16, width, height), POINTS);
+
+        ByteBuffer bytes = base64Property(json, "locationPointsInt16AsBase64");
+        assertEquals(POINTS.length * 2, bytes.remaining());
+        for (int i = 0; i < POINTS.length; i++) {
+            int size = i % 2 == 0 ? width : height;
+            float decoded = bytes.getShort() * (float) size / LocationPointsEncoder.INT16_SCALE;
+            // Within half a step of the fixed point grid
+            assertEquals(POINTS[i], decoded, size / (2f * LocationPointsEncoder.INT16_SCALE) + 1e-3f);
+        }
+        assertTrue(json.contains("\"frameWidth\":1920"));
+        assertTrue(json.contains("\"frameHeight\":1080"));
+    }
+
+    @Test
+    public void int16ClampsPointsOutsideTheFrame() {
+        String json = write(new LocationPointsEncoder(LocationPointsEncoder.INT16, 100, 100),
+                new float[]{-500, 500});
+
+        ByteBuffer bytes = base64Property(json, "locationPointsInt16AsBase64");
+        assertEquals(Short.MIN_VALUE, bytes.getShort());
+        assertEquals(Short.MAX_VALUE, bytes.getShort());
+    }
+
+    @Test
+    public void int16WithoutFrameSizeFallsBackToFloat32() {
+        String json = write(new LocationPointsEncoder(LocationPointsEncoder.INT16, 0, 1080), POINTS);
+
+        assertFalse(json.contains("locationPointsInt16AsBase64"));
+        ByteBuffer bytes = base64Property(json, "locationPointsFloat32AsBase64");
+        assertEquals(POINTS[2], bytes.getFloat(2 * 4), 0);
+    }
+
+    private static String write(LocationPointsEncoder encoder, float[] points) {
+        JsonWriter json = JsonWriter.obtain().beginObject();
+        encoder.write(json, points);
+        return json.endObject().finish();
+    }
+
+    private static ByteBuffer base64Property(String json, String name) {
+        Matcher matcher = Pattern.compile("\"" + name + "\":\"([^\"]*)\"").matcher(json);
+        assertTrue(json, matcher.find());
+
+        // Slashes are escaped like org.json does
+        String base64 = matcher.group(1).replace("\\/", "/");
+        return ByteBuffer.wrap(Base64.getDecoder().decode(base64)).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
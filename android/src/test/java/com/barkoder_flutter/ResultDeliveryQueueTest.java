@@ -0,0 +1,108 @@
+package com.barkoder_flutter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link ResultDeliveryQueue} with the test thread standing in for the main thread: drains are
+ * collected and run when the test says so.
+ */
+public class ResultDeliveryQueueTest {
+
+    private final ConcurrentLinkedQueue<Runnable> posted = new ConcurrentLinkedQueue<>();
+    private final List<Integer> delivered = new ArrayList<>();
+
+    private ResultDeliveryQueue<Integer> queue(int capacity) {
+        return new ResultDeliveryQueue<>(capacity, delivered::add, posted::add);
+    }
+
+    private void runPosted() {
+        Runnable runnable;
+        while ((runnable = posted.poll()) != null) {
+            runnable.run();
+        }
+    }
+
+    @Test
+    public void resultsWrapAroundTheRingInOrder() {
+        ResultDeliveryQueue<Integer> queue = queue(4);
+
+        int next = 0;
+        for (int round = 0; round < 5; round++) {
+            // 3 per round, so the slots shift by one on every pass around the ring
+            for (int i = 0; i < 3; i++) {
+                assertTrue(queue.offer(next++));
+            }
+            assertEquals(3, queue.size());
+
+            runPosted();
+            assertEquals(0, queue.size());
+        }
+
+        assertEquals(next, delivered.size());
+        for (int i = 0; i < next; i++) {
+            assertEquals(i, (int) delivered.get(i));
+        }
+    }
+
+    @Test
+    public void drainIsPostedOnlyOnceWhilePending() {
+        ResultDeliveryQueue<Integer> queue = queue(8);
+
+        queue.offer(1);
+        queue.offer(2);
+        queue.offer(3);
+
+        assertEquals(1, posted.size());
+        runPosted();
+        assertEquals(3, delivered.size());
+    }
+
+    @Test
+    public void fullRingWaitsForTheDrainerInsteadOfDropping() throws InterruptedException {
+        ResultDeliveryQueue<Integer> queue = queue(4);
+        int count = 100;
+
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                queue.offer(i);
+            }
+        });
+        producer.start();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (delivered.size() < count && System.nanoTime() < deadline) {
+            runPosted();
+            assertTrue(queue.size() <= 4);
+            Thread.yield();
+        }
+        producer.join(1000);
+
+        assertEquals(count, delivered.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, (int) delivered.get(i));
+        }
+    }
+
+    @Test
+    public void closeDiscardsQueuedResults() {
+        ResultDeliveryQueue<Integer> queue = queue(4);
+
+        queue.offer(1);
+        queue.offer(2);
+        queue.close();
+        runPosted();
+
+        assertTrue(delivered.isEmpty());
+        assertEquals(0, queue.size());
+        assertFalse(queue.offer(3));
+    }
+}
@@ -0,0 +1,67 @@
+package com.barkoder_flutter;
+
+import com.barkoder.Barkoder;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+
+/**
+ * Builds SDK results for tests. The SDK only creates them from native code, so they're allocated
+ * without calling a constructor and their public fields are filled in.
+ */
+final class TestResults {
+
+    private TestResults() {
+    }
+
+    /**
+     * @param points x0, y0, x1, y1, ... or null for a result without location
+     */
+    static Barkoder.Result result(int barcodeTypeOrdinal, String text, float... points) {
+        try {
+            Barkoder.Result result = allocate(Barkoder.Result.class);
+            result.barcodeType = Barkoder.BarcodeType.class.getEnumConstants()[barcodeTypeOrdinal];
+            result.barcodeTypeName = result.barcodeType.name();
+            result.textualData = text;
+            result.binaryData = text != null ? text.getBytes("UTF-8") : null;
+
+            if (points != null) {
+                Field locationField = Barkoder.Result.class.getField("location");
+                Object location = allocate(locationField.getType());
+                Barkoder.BKPoint[] bkPoints = new Barkoder.BKPoint[points.length / 2];
+                for (int i = 0; i < bkPoints.length; i++) {
+                    bkPoints[i] = allocate(Barkoder.BKPoint.class);
+                    bkPoints[i].x = points[i * 2];
+                    bkPoints[i].y = points[i * 2 + 1];
+                }
+                locationField.getType().getField("points").set(location, bkPoints);
+                locationField.set(result, location);
+            }
+
+            return result;
+        } catch (Exception ex) {
+            throw new AssertionError(ex);
+        }
+    }
+
+    /**
+     * Square with its top left corner at x, y.
+     */
+    static float[] square(float x, float y, float size) {
+        return new float[]{x, y, x + size, y, x + size, y + size, x, y + size};
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T allocate(Class<T> type) throws Exception {
+        try {
+            Constructor<T> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor.newInstance();
+        } catch (NoSuchMethodException ex) {
+            Field unsafeField = Class.forName("sun.misc.Unsafe").getDeclaredField("theUnsafe");
+            unsafeField.setAccessible(true);
+            Object unsafe = unsafeField.get(null);
+            return (T) unsafe.getClass().getMethod("allocateInstance", Class.class).invoke(unsafe, type);
+        }
+    }
+}
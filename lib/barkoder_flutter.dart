@@ -6,6 +6,7 @@ import 'dart:convert';
 import 'barkoder_flutter_models.dart';
 
 export 'barkoder_flutter_models.dart';
+export 'barkoder_flutter_engine.dart';
 export 'barkoder_flutter_view.dart';
 
 class Barkoder {
@@ -19,6 +20,12 @@ class Barkoder {
       const EventChannel('barkoder_flutter_uiEvents')
           .receiveBroadcastStream();
 
+  static const EventChannel _metricsEventChannel =
+      EventChannel('barkoder_flutter_metricsEvent');
+
+  static const BasicMessageChannel<ByteData?> _binaryResultsChannel =
+      BasicMessageChannel('barkoder_flutter_binaryResults', BinaryCodec());
+
   StreamSubscription<dynamic>? _scanningResultsStreamSubscription;
   StreamSubscription<dynamic>? _uiEventsSubscription;
 
@@ -40,288 +47,1023 @@ class Barkoder {
   /// 
   /// Example usage:
   /// ```dart
-  /// _barkoder.onCloseButtonTapped(() {
-  ///   print('Close button tapped');
-  /// });
+  /// _barkoder.onCloseButtonTapped(() {
+  ///   print('Close button tapped');
+  /// });
+  /// ```
+  void onCloseButtonTapped(VoidCallback handler) {
+    _uiEventsSubscription?.cancel();
+    _uiEventsSubscription = _uiEventsStream.listen((event) {
+      if (event == 'closeButtonTapped') {
+        handler();
+      }
+    });
+  }
+
+  /// Returns a stream of metrics snapshots, emitted every [intervalMs] while it is listened to.
+  /// Only one listener is supported at a time. Nothing is measured while nobody listens.
+  /// Android only.
+  ///
+  /// Snapshots cover decodes per second, average decode latency, result queue depth, payload bytes
+  /// per second, dropped events, the current threads limit, resolution and decoding speed.
+  ///
+  /// [intervalMs]: Time between two snapshots, at least 100 ms.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// _metricsSubscription = _barkoder.metricsStream(intervalMs: 2000).listen((metrics) {
+  ///   print('Decodes/s: ${metrics.decodesPerSecond}, dropped: ${metrics.droppedEvents}');
+  /// });
+  /// ```
+  Stream<BarkoderMetrics> metricsStream({int intervalMs = 1000}) {
+    return _metricsEventChannel
+        .receiveBroadcastStream({'intervalMs': intervalMs}).map((snapshot) =>
+            BarkoderMetrics.fromMap(Map<String, dynamic>.from(snapshot)));
+  }
+
+  /// Retrieves the maximum available zoom factor for the device's camera.
+  ///
+  /// Returns a [Future] that completes with the maximum zoom factor.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// double maxZoom = await getMaxZoomFactor();
+  /// print('Maximum zoom factor: $maxZoom');
+  /// ```
+  Future<double> getMaxZoomFactor() {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
+    }
+
+    return _methodChannel
+        .invokeMethod('getMaxZoomFactor')
+        .then((zoomFactor) => zoomFactor as double);
+  }
+
+  /// Retrieves the current zoom factor for the device's camera.
+  ///
+  /// Returns a [Future] that completes with the current zoom factor.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// double currentZoom = await getCurrentZoomFactor();
+  /// print('Current zoom factor: $currentZoom');
+  /// ```
+  Future<double> getCurrentZoomFactor() {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
+    }
+
+    return _methodChannel
+        .invokeMethod('getCurrentZoomFactor')
+        .then((zoomFactor) => zoomFactor as double);
+  }
+
+  /// Sets the zoom factor for the device's camera, adjusting the level of zoom during barcode scanning.
+  ///
+  /// [zoomFactor]: The zoom factor to set.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// double zoom = 2.0;
+  /// await setZoomFactor(zoom);
+  /// print('Zoom factor set to: $zoom');
+  /// ```
+  Future<void> setZoomFactor(double zoomFactor) {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
+    }
+
+    return _methodChannel.invokeMethod('setZoomFactor', zoomFactor);
+  }
+
+  /// Checks whether the device has a built-in flash (torch) that can be used for illumination during barcode scanning.
+  ///
+  /// Returns a [Future] that completes with a boolean indicating whether the flash is available.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// bool flashAvailable = await _barkoder.isFlashAvailable();
+  /// print('Flash available: $flashAvailable');
+  /// ```
+  Future<bool> isFlashAvailable() {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
+    }
+
+    return _methodChannel
+        .invokeMethod('isFlashAvailable')
+        .then((isAvailable) => isAvailable as bool);
+  }
+
+  /// Enables or disables the device's flash (torch) for illumination during barcode scanning.
+  ///
+  /// [enabled]: A boolean indicating whether to enable the flash.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// bool flashEnabled = true;
+  /// await _barkoder.setFlashEnabled(flashEnabled);
+  /// print('Flash enabled: $flashEnabled');
+  /// ```
+  Future<void> setFlashEnabled(bool enabled) {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
+    }
+
+    return _methodChannel.invokeMethod('setFlashEnabled', enabled);
+  }
+
+  /// Starts the camera.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// await _barkoder.startCamera();
+  /// print('Camera started successfully');
+  /// ```
+  Future<void> startCamera() {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
+    }
+
+    return _methodChannel.invokeMethod('startCamera');
+  }
+
+  /// Initiates the barcode scanning process, allowing the application to detect and decode barcodes from the device's camera feed.
+  ///
+  /// [resultsCallback]: A function to handle the scanning results.
+  /// [thumbnailsCallback]: A function to handle thumbnails that are sent after their result, see [setThumbnailOptions].
+  /// [sessionExportCallback]: A function to handle session-end results written to a file, see [setSessionEndExport].
+  ///
+  /// Example usage:
+  /// ```dart
+  /// _barkoder.startScanning((result) {
+  ///   _updateState(result, false);
+  /// });
+  /// print('Scanning started');
+  /// ```
+  Future<void> startScanning(void Function(BarkoderResult) resultsCallback,
+      {void Function(BarkoderResultThumbnails)? thumbnailsCallback,
+      void Function(BarkoderSessionExport)? sessionExportCallback}) {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
+    }
+
+    _clearScanningResultsStreamSubscription();
+    _scanningResultsStreamSubscription =
+        _scanningResultsStream.listen((result) {
+      Map<String, dynamic> resultJson = json.decode(result);
+      // Deferred thumbnails of an earlier result
+      if (resultJson['thumbnails'] != null) {
+        thumbnailsCallback?.call(
+            BarkoderResultThumbnails.fromJson(resultJson['thumbnails']));
+        return;
+      }
+      if (resultJson['sessionExport'] != null) {
+        sessionExportCallback?.call(
+            BarkoderSessionExport.fromJson(resultJson['sessionExport']));
+        return;
+      }
+
+      BarkoderResult barkoderResult = BarkoderResult.fromJson(resultJson);
+      resultsCallback(
+          barkoderResult); // Pass the BarkoderResult to the callback
+    });
+
+    return _methodChannel.invokeMethod('startScanning');
+  }
+
+  /// Starts scanning in AR mode and reports only what changed between overlay refreshes. Android only.
+  ///
+  /// Instead of the full result set on every refresh, [deltaCallback] receives the barcodes that
+  /// were added, the barcodes whose location or selection state changed and the ids of the barcodes
+  /// that are gone. Each barcode keeps the same id for as long as it is tracked. Nothing is sent if
+  /// nothing changed. Selection follows the [BarkoderARMode], see [BarkoderARDeltaItem.selected].
+  /// Meant for AR mode with [setAREmitResultsAtSessionEndOnly] disabled.
+  ///
+  /// [deltaCallback]: A function to handle the AR deltas.
+  /// [includeImages]: Whether added barcodes carry their thumbnail.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// _barkoder.startScanningWithARDeltas((delta) {
+  ///   for (BarkoderARDeltaItem item in delta.added) {
+  ///     _shelf[item.id] = item.textualData;
+  ///   }
+  ///   delta.removed.forEach(_shelf.remove);
+  /// });
+  /// print('Scanning started');
+  /// ```
+  Future<void> startScanningWithARDeltas(
+      void Function(BarkoderARDelta) deltaCallback,
+      {bool includeImages = false}) {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
+    }
+
+    _clearScanningResultsStreamSubscription();
+    _scanningResultsStreamSubscription =
+        _scanningResultsStream.listen((result) {
+      Map<String, dynamic> resultJson = json.decode(result);
+      if (resultJson['arDelta'] != null) {
+        deltaCallback(BarkoderARDelta.fromJson(resultJson['arDelta']));
+      }
+    });
+
+    return _methodChannel.invokeMethod(
+        'startScanning', {'arDeltas': true, 'includeImages': includeImages});
+  }
+
+  /// Starts scanning and receives the results as compact binary frames instead of JSON,
+  /// for the lowest cost per result. Frames carry the barcode type, data, text and location
+  /// points, but no images. See [BarkoderBinaryFrame.parse] for the layout. Android only.
+  ///
+  /// [frameCallback]: A function to handle the result batches.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// _barkoder.startScanningBinary((frame) {
+  ///   for (BarkoderBinaryResult result in frame.results) {
+  ///     print(result.textualData);
+  ///   }
+  /// });
+  /// print('Scanning started');
+  /// ```
+  Future<void> startScanningBinary(
+      void Function(BarkoderBinaryFrame) frameCallback) {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
+    }
+
+    _clearScanningResultsStreamSubscription();
+    _binaryResultsChannel.setMessageHandler((data) async {
+      if (data != null) frameCallback(BarkoderBinaryFrame.parse(data));
+      return null;
+    });
+
+    return _methodChannel.invokeMethod('startScanning', {'binary': true});
+  }
+
+  /// Halts the barcode scanning process, stopping the camera from capturing and processing barcode information.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// await _barkoder.stopScanning();
+  /// print('Scanning stopped');
+  /// ```
+  Future<void> stopScanning() {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
+    }
+
+    _clearScanningResultsStreamSubscription();
+    return _methodChannel.invokeMethod('stopScanning');
+  }
+
+  /// Temporarily suspends the barcode scanning process, pausing the camera feed without completely stopping the scanning session.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// await _barkoder.pauseScanning();
+  /// print('Scanning paused');
+  /// ```
+  Future<void> pauseScanning() {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
+    }
+
+    _clearScanningResultsStreamSubscription();
+    return _methodChannel.invokeMethod('pauseScanning');
+  }
+
+  /// Freezes the current AR scanning session by capturing a still image from the camera feed.
+  /// Use only when AR mode is enabled to temporarily freeze the view while keeping overlays visible.
+  ///
+  /// [frameOptions]: If set, the frozen frame is returned as well, encoded off the main thread. Android only.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// await _barkoder.freezeScanning();
+  /// print('Scanning frozen');
+  /// ```
+  Future<BarkoderCapturedFrame?> freezeScanning(
+      {BarkoderFrameCaptureOptions? frameOptions}) {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
+    }
+
+    return _methodChannel
+        .invokeMethod('freezeScanning', frameOptions?.toMap())
+        .then((frame) => frame != null
+            ? BarkoderCapturedFrame.fromMap(Map<String, dynamic>.from(frame))
+            : null);
+  }
+
+  /// Unfreezes the AR scanning session by removing the still image and reactivating the camera and overlays.
+  /// Use only when AR mode is enabled to restore the live AR view and continue scanning.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// await _barkoder.unfreezeScanning();
+  /// print('Scanning unfrozen');
+  /// ```
+  Future<void> unfreezeScanning() {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
+    }
+
+    return _methodChannel.invokeMethod('unfreezeScanning');
+  }
+
+  /// Captures the latest camera frame
+  ///
+  /// [frameOptions]: If set, the frame is returned with the given size and format, encoded off the
+  /// main thread. There is no need to enable image results just to get a frame. Android only.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// await _barkoder.captureImage();
+  /// print('Image captured');
+  ///
+  /// BarkoderCapturedFrame? frame = await _barkoder.captureImage(
+  ///     frameOptions: BarkoderFrameCaptureOptions(maxSize: 1280, asFile: true));
+  /// print('Frame saved to ${frame?.filePath}');
+  /// ```
+  Future<BarkoderCapturedFrame?> captureImage(
+      {BarkoderFrameCaptureOptions? frameOptions}) {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
+    }
+
+    return _methodChannel
+        .invokeMethod('captureImage', frameOptions?.toMap())
+        .then((frame) => frame != null
+            ? BarkoderCapturedFrame.fromMap(Map<String, dynamic>.from(frame))
+            : null);
+  }
+
+  /// Scan from base64 image string.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// _barkoder.scanImage((result) {
+  ///   _updateState(result, false);
+  /// });
+  /// print('Scan image called');
+  /// ```
+  Future<void> scanImage(
+    void Function(BarkoderResult) resultsCallback,
+    String base64image,
+  ) async {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+        code: BarkoderErrors.barkoderViewNotMounted,
+        message: BarkoderErrors.barkodeViewNotMountedDesc,
+      ));
+    }
+
+    _clearScanningResultsStreamSubscription();
+    _scanningResultsStreamSubscription =
+        _scanningResultsStream.listen((result) {
+      Map<String, dynamic> resultJson = json.decode(result);
+      // Late thumbnails of the live session that was running before
+      if (resultJson['thumbnails'] != null) return;
+      if (resultJson['sessionExport'] != null) return;
+
+      BarkoderResult barkoderResult = BarkoderResult.fromJson(resultJson);
+      resultsCallback(
+          barkoderResult); // Pass the BarkoderResult to the callback
+    });
+
+    await _methodChannel.invokeMethod('scanImage', base64image);
+  }
+
+  /// Enables or disables the escalation mode for [scanImage].
+  /// When enabled, the image is decoded with fast settings first and only if nothing is found
+  /// it is retried with slower speeds and extras (misshaped 1D, deblur, DPM, higher resolution).
+  /// The step that succeeded is reported in [BarkoderResult.escalationStep].
+  /// Android only.
+  ///
+  /// [enabled]: A boolean indicating whether to enable the escalation mode.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// await _barkoder.setScanImageEscalationEnabled(true);
+  /// print('Scan image escalation enabled');
+  /// ```
+  Future<void> setScanImageEscalationEnabled(bool enabled) {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
+    }
+
+    return _methodChannel.invokeMethod('setScanImageEscalationEnabled', enabled);
+  }
+
+  /// Checks if the escalation mode for [scanImage] is enabled.
+  ///
+  /// Returns a [Future] that completes with a boolean indicating whether the escalation mode is enabled.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// bool isEnabled = await _barkoder.isScanImageEscalationEnabled();
+  /// print('Scan image escalation enabled: $isEnabled');
+  /// ```
+  Future<bool> isScanImageEscalationEnabled() {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
+    }
+
+    return _methodChannel
+        .invokeMethod('isScanImageEscalationEnabled')
+        .then((isEnabled) => isEnabled as bool);
+  }
+
+  /// Configures the result cache for [scanImage].
+  /// When enabled, results are cached by the content of the image and the decoder settings,
+  /// so re-submitting the same image returns the stored results without decoding it again.
+  /// Results served from the cache still count in the session stats and symbology learning.
+  /// Android only.
+  ///
+  /// [enabled]: A boolean indicating whether to enable the cache. Disabling it clears all entries.
+  /// [maxEntries]: Maximum number of cached results; least recently used results are evicted first.
+  /// [maxAgeMs]: Maximum age of a cached result in milliseconds.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// await _barkoder.configureScanImageCache(enabled: true, maxEntries: 64, maxAgeMs: 300000);
+  /// print('Scan image cache configured');
+  /// ```
+  Future<void> configureScanImageCache({
+    required bool enabled,
+    int maxEntries = 32,
+    int maxAgeMs = 60000,
+  }) {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
+    }
+
+    return _methodChannel.invokeMethod('configureScanImageCache', {
+      'enabled': enabled,
+      'maxEntries': maxEntries,
+      'maxAgeMs': maxAgeMs,
+    });
+  }
+
+  /// Retrieves the hit, miss and eviction counters of the [scanImage] result cache.
+  ///
+  /// Returns a [Future] that completes with the [ScanImageCacheStats].
+  ///
+  /// Example usage:
+  /// ```dart
+  /// ScanImageCacheStats stats = await _barkoder.getScanImageCacheStats();
+  /// print('Cache hits: ${stats.hits}, misses: ${stats.misses}');
+  /// ```
+  Future<ScanImageCacheStats> getScanImageCacheStats() {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
+    }
+
+    return _methodChannel.invokeMethod('getScanImageCacheStats').then(
+        (stats) => ScanImageCacheStats.fromMap(Map<String, dynamic>.from(stats)));
+  }
+
+  /// Removes all entries from the [scanImage] result cache. Counters are kept.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// await _barkoder.clearScanImageCache();
+  /// print('Scan image cache cleared');
+  /// ```
+  Future<void> clearScanImageCache() {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
+    }
+
+    return _methodChannel.invokeMethod('clearScanImageCache');
+  }
+
+  /// Scans a raw camera frame that is captured outside of [BarkoderView], e.g. by another camera plugin.
+  /// The frame is decoded with the current configuration without encoding it to JPEG/PNG first.
+  /// Only one frame is decoded at a time; frames submitted while the previous one is still being decoded are skipped.
+  /// How often frames are decoded can be limited with [setDecodeRateLimit]. Without a view, frames can be scanned with [BarkoderEngine.scanFrame].
+  /// Android only.
+  ///
+  /// [frame]: The raw frame to scan.
+  ///
+  /// Returns a [Future] that completes with the [BarkoderResult], or with null if the frame was skipped.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// BarkoderResult? result = await _barkoder.scanFrame(BarkoderFrame(
+  ///   bytes: image.planes[0].bytes,
+  ///   width: image.width,
+  ///   height: image.height,
+  ///   format: BarkoderFrameFormat.yuv420888,
+  ///   rowStride: image.planes[0].bytesPerRow,
+  ///   pixelStride: image.planes[0].bytesPerPixel ?? 1,
+  ///   rotation: 90,
+  /// ));
+  /// print('Frame scanned: ${result?.decoderResults.length}');
+  /// ```
+  Future<BarkoderResult?> scanFrame(BarkoderFrame frame) async {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+        code: BarkoderErrors.barkoderViewNotMounted,
+        message: BarkoderErrors.barkodeViewNotMountedDesc,
+      ));
+    }
+
+    final String? result =
+        await _methodChannel.invokeMethod('scanFrame', frame.toMap());
+    return result != null ? BarkoderResult.fromJson(json.decode(result)) : null;
+  }
+
+  /// Enables or disables tracing of the plugin hot paths. Android only.
+  ///
+  /// While enabled, method call dispatch, config parsing, decoding, result serialization, image
+  /// encoding and result delivery are wrapped in `android.os.Trace` sections (visible in Perfetto),
+  /// and the most recent 4096 slices are kept in memory for [dumpTrace].
+  ///
+  /// [enabled]: Whether tracing is enabled.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// await _barkoder.setTracingEnabled(true);
+  /// print('Tracing enabled');
+  /// ```
+  Future<void> setTracingEnabled(bool enabled) {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
+    }
+
+    return _methodChannel.invokeMethod('setTracingEnabled', enabled);
+  }
+
+  /// Checks if tracing of the plugin hot paths is enabled. Android only.
+  ///
+  /// Returns a [Future] that completes with a boolean indicating whether tracing is enabled.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// bool tracingEnabled = await _barkoder.isTracingEnabled();
+  /// print('Tracing enabled: $tracingEnabled');
+  /// ```
+  Future<bool> isTracingEnabled() async {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
+    }
+
+    return await _methodChannel.invokeMethod('isTracingEnabled');
+  }
+
+  /// Writes the recorded trace slices to a file in the app's files directory. Android only.
+  ///
+  /// The file uses the Chrome JSON trace format, which opens directly in Perfetto UI.
+  ///
+  /// [fileName]: Name of the file, without a path.
+  /// [clear]: Whether the recorded slices are discarded after writing them.
+  ///
+  /// Returns a [Future] that completes with the absolute path of the written file.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// String path = await _barkoder.dumpTrace(clear: true);
+  /// print('Trace written to $path');
+  /// ```
+  Future<String> dumpTrace(
+      {String fileName = 'barkoder_trace.json', bool clear = false}) async {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
+    }
+
+    return await _methodChannel
+        .invokeMethod('dumpTrace', {'fileName': fileName, 'clear': clear});
+  }
+
+  /// Retrieves statistics of the current scanning session. Android only.
+  ///
+  /// Includes results per barcode type name, duplicate results, the time between [startScanning]
+  /// and each result, [scanImage] latency, result encode time, payload bytes sent and dropped events.
+  ///
+  /// Returns a [Future] that completes with the [SessionStats].
+  ///
+  /// Example usage:
+  /// ```dart
+  /// SessionStats stats = await _barkoder.getSessionStats();
+  /// print('Results: ${stats.resultsByType}, p90: ${stats.timeToResult.p90Ms} ms');
+  /// ```
+  Future<SessionStats> getSessionStats() {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
+    }
+
+    return _methodChannel.invokeMethod('getSessionStats').then(
+        (stats) => SessionStats.fromMap(Map<String, dynamic>.from(stats)));
+  }
+
+  /// Resets all session statistics. Android only.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// await _barkoder.resetSessionStats();
+  /// print('Session stats reset');
+  /// ```
+  Future<void> resetSessionStats() {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
+    }
+
+    return _methodChannel.invokeMethod('resetSessionStats');
+  }
+
+  /// Starts learning which barcode types are actually decoded. Any previous learning is discarded.
+  /// Android only.
+  ///
+  /// Every result, from live scanning, [scanImage] and [scanFrame], is counted per barcode type.
+  /// The suggested profile, retrieved with [getSymbologyProfile], contains the enabled types that
+  /// were decoded at least once.
+  /// With [autoApply], the suggested profile replaces the enabled types when [windowMs] elapses.
+  /// Every [probeIntervalMs] all originally enabled types are re-enabled for [probeDurationMs],
+  /// so types that show up later are learned and kept as well.
+  /// Enabling a barcode type, [configureBarkoder] or [stopSymbologyLearning] restore the
+  /// originally enabled types and stop learning.
+  ///
+  /// [autoApply]: Whether the suggested profile is applied when the learning window ends.
+  /// [windowMs]: Learning window, 0 to learn for the whole session. Required for [autoApply].
+  /// [probeIntervalMs]: Time between two full-symbology probes while the profile is applied.
+  /// [probeDurationMs]: How long all originally enabled types stay enabled during a probe.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// await _barkoder.startSymbologyLearning(autoApply: true, windowMs: 10 * 60 * 1000);
+  /// print('Symbology learning started');
   /// ```
-  void onCloseButtonTapped(VoidCallback handler) {
-    _uiEventsSubscription?.cancel();
-    _uiEventsSubscription = _uiEventsStream.listen((event) {
-      if (event == 'closeButtonTapped') {
-        handler();
-      }
+  Future<void> startSymbologyLearning(
+      {bool autoApply = false,
+      int windowMs = 0,
+      int probeIntervalMs = 60000,
+      int probeDurationMs = 3000}) {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
+    }
+
+    return _methodChannel.invokeMethod('startSymbologyLearning', {
+      'autoApply': autoApply,
+      'windowMs': windowMs,
+      'probeIntervalMs': probeIntervalMs,
+      'probeDurationMs': probeDurationMs,
     });
   }
 
-  /// Retrieves the maximum available zoom factor for the device's camera.
-  ///
-  /// Returns a [Future] that completes with the maximum zoom factor.
+  /// Stops symbology learning and restores the originally enabled barcode types. Android only.
   ///
   /// Example usage:
   /// ```dart
-  /// double maxZoom = await getMaxZoomFactor();
-  /// print('Maximum zoom factor: $maxZoom');
+  /// await _barkoder.stopSymbologyLearning();
+  /// print('Symbology learning stopped');
   /// ```
-  Future<double> getMaxZoomFactor() {
+  Future<void> stopSymbologyLearning() {
     if (_isBarkoderViewNotMounted) {
       return Future.error(PlatformException(
           code: BarkoderErrors.barkoderViewNotMounted,
           message: BarkoderErrors.barkodeViewNotMountedDesc));
     }
 
-    return _methodChannel
-        .invokeMethod('getMaxZoomFactor')
-        .then((zoomFactor) => zoomFactor as double);
+    return _methodChannel.invokeMethod('stopSymbologyLearning');
   }
 
-  /// Retrieves the current zoom factor for the device's camera.
+  /// Retrieves what symbology learning has recorded so far and the suggested minimal profile.
+  /// Android only.
   ///
-  /// Returns a [Future] that completes with the current zoom factor.
+  /// Returns a [Future] that completes with the [SymbologyProfile].
   ///
   /// Example usage:
   /// ```dart
-  /// double currentZoom = await getCurrentZoomFactor();
-  /// print('Current zoom factor: $currentZoom');
+  /// SymbologyProfile profile = await _barkoder.getSymbologyProfile();
+  /// for (BarcodeType type in profile.suggestedTypes) {
+  ///   print('Keep $type (${profile.decodedCounts[type]} decodes)');
+  /// }
   /// ```
-  Future<double> getCurrentZoomFactor() {
+  Future<SymbologyProfile> getSymbologyProfile() {
     if (_isBarkoderViewNotMounted) {
       return Future.error(PlatformException(
           code: BarkoderErrors.barkoderViewNotMounted,
           message: BarkoderErrors.barkodeViewNotMountedDesc));
     }
 
-    return _methodChannel
-        .invokeMethod('getCurrentZoomFactor')
-        .then((zoomFactor) => zoomFactor as double);
+    return _methodChannel.invokeMethod('getSymbologyProfile').then(
+        (profile) => SymbologyProfile.fromMap(Map<String, dynamic>.from(profile)));
   }
 
-  /// Sets the zoom factor for the device's camera, adjusting the level of zoom during barcode scanning.
+  /// Limits how often frames are decoded, both for live scanning started with [startScanning]
+  /// and for frames passed to [scanFrame]. Can be changed at any time, also while scanning.
+  /// Android only.
   ///
-  /// [zoomFactor]: The zoom factor to set.
+  /// Frames passed to [scanFrame] that are over the limit are skipped before any conversion and
+  /// [scanFrame] completes with null.
+  ///
+  /// The SDK decodes every camera frame of a live session and can't skip single ones, so live
+  /// scanning is paused and resumed instead: once per period (the longer of 1 / [maxDecodesPerSecond]
+  /// and [decodeEveryNthFrame] camera frames at 30 fps) scanning runs for two frames or until the
+  /// first result, and is paused for the rest of the period. Periods shorter than three frames
+  /// (more than 10 decodes per second, or every 2nd frame) leave live scanning unthrottled.
+  /// The throttle ends with [stopScanning], [pauseScanning] or a result that closes the session.
+  ///
+  /// [maxDecodesPerSecond]: Maximum number of decoded frames per second, 0 for no limit.
+  /// [decodeEveryNthFrame]: Only every Nth frame is considered for decoding, 1 for every frame.
   ///
   /// Example usage:
   /// ```dart
-  /// double zoom = 2.0;
-  /// await setZoomFactor(zoom);
-  /// print('Zoom factor set to: $zoom');
+  /// await _barkoder.setDecodeRateLimit(maxDecodesPerSecond: 8);
+  /// print('Frames are decoded at most 8 times per second');
   /// ```
-  Future<void> setZoomFactor(double zoomFactor) {
+  Future<void> setDecodeRateLimit(
+      {int maxDecodesPerSecond = 0, int decodeEveryNthFrame = 1}) {
     if (_isBarkoderViewNotMounted) {
       return Future.error(PlatformException(
           code: BarkoderErrors.barkoderViewNotMounted,
           message: BarkoderErrors.barkodeViewNotMountedDesc));
     }
 
-    return _methodChannel.invokeMethod('setZoomFactor', zoomFactor);
+    return _methodChannel.invokeMethod('setDecodeRateLimit', {
+      'maxDecodesPerSecond': maxDecodesPerSecond,
+      'decodeEveryNthFrame': decodeEveryNthFrame,
+    });
   }
 
-  /// Checks whether the device has a built-in flash (torch) that can be used for illumination during barcode scanning.
+  /// Retrieves how many frames passed to [scanFrame] were decoded, skipped by the decode rate limit
+  /// or dropped because the previous frame was still being decoded, and how many frames of live
+  /// scanning were decoded or skipped. Android only.
   ///
-  /// Returns a [Future] that completes with a boolean indicating whether the flash is available.
+  /// Returns a [Future] that completes with the [DecodeRateStats].
   ///
   /// Example usage:
   /// ```dart
-  /// bool flashAvailable = await _barkoder.isFlashAvailable();
-  /// print('Flash available: $flashAvailable');
+  /// DecodeRateStats stats = await _barkoder.getDecodeRateStats();
+  /// print('Decoded: ${stats.decodedFrames}, skipped: ${stats.skippedFrames}');
+  /// print('Live decoded: ${stats.liveDecodedFrames}, skipped: ${stats.liveSkippedFrames}');
   /// ```
-  Future<bool> isFlashAvailable() {
+  Future<DecodeRateStats> getDecodeRateStats() {
     if (_isBarkoderViewNotMounted) {
       return Future.error(PlatformException(
           code: BarkoderErrors.barkoderViewNotMounted,
           message: BarkoderErrors.barkodeViewNotMountedDesc));
     }
 
-    return _methodChannel
-        .invokeMethod('isFlashAvailable')
-        .then((isAvailable) => isAvailable as bool);
+    return _methodChannel.invokeMethod('getDecodeRateStats').then(
+        (stats) => DecodeRateStats.fromMap(Map<String, dynamic>.from(stats)));
   }
 
-  /// Enables or disables the device's flash (torch) for illumination during barcode scanning.
-  ///
-  /// [enabled]: A boolean indicating whether to enable the flash.
+  /// Resets the decoded, skipped and dropped frame counters, including the live scanning ones. Android only.
   ///
   /// Example usage:
   /// ```dart
-  /// bool flashEnabled = true;
-  /// await _barkoder.setFlashEnabled(flashEnabled);
-  /// print('Flash enabled: $flashEnabled');
+  /// await _barkoder.resetDecodeRateStats();
+  /// print('Decode rate stats reset');
   /// ```
-  Future<void> setFlashEnabled(bool enabled) {
+  Future<void> resetDecodeRateStats() {
     if (_isBarkoderViewNotMounted) {
       return Future.error(PlatformException(
           code: BarkoderErrors.barkoderViewNotMounted,
           message: BarkoderErrors.barkodeViewNotMountedDesc));
     }
 
-    return _methodChannel.invokeMethod('setFlashEnabled', enabled);
+    return _methodChannel.invokeMethod('resetDecodeRateStats');
   }
 
-  /// Starts the camera.
+  /// Sets how location points are sent with the results. Android only.
+  ///
+  /// The packed encodings send all corners of a result as one base64 block, which is decoded to
+  /// [DecoderResult.locationPointsPacked]. That's much less to allocate and parse per frame in AR and
+  /// multi-code modes. Applies to scanning, [scanImage] and [scanFrame].
+  ///
+  /// [encoding]: The location points encoding.
   ///
   /// Example usage:
   /// ```dart
-  /// await _barkoder.startCamera();
-  /// print('Camera started successfully');
+  /// await _barkoder.setLocationPointsEncoding(LocationPointsEncoding.float32);
+  /// print('Location points are packed');
   /// ```
-  Future<void> startCamera() {
+  Future<void> setLocationPointsEncoding(LocationPointsEncoding encoding) {
     if (_isBarkoderViewNotMounted) {
       return Future.error(PlatformException(
           code: BarkoderErrors.barkoderViewNotMounted,
           message: BarkoderErrors.barkodeViewNotMountedDesc));
     }
 
-    return _methodChannel.invokeMethod('startCamera');
+    return _methodChannel.invokeMethod(
+        'setLocationPointsEncoding', encoding.index);
   }
 
-  /// Initiates the barcode scanning process, allowing the application to detect and decode barcodes from the device's camera feed.
-  ///
-  /// [resultsCallback]: A function to handle the scanning results.
+  /// Retrieves how location points are sent with the results. Android only.
   ///
   /// Example usage:
   /// ```dart
-  /// _barkoder.startScanning((result) {
-  ///   _updateState(result, false);
-  /// });
-  /// print('Scanning started');
+  /// LocationPointsEncoding encoding = await _barkoder.getLocationPointsEncoding();
+  /// print('Location points encoding: $encoding');
   /// ```
-  Future<void> startScanning(void Function(BarkoderResult) resultsCallback) {
+  Future<LocationPointsEncoding> getLocationPointsEncoding() {
     if (_isBarkoderViewNotMounted) {
       return Future.error(PlatformException(
           code: BarkoderErrors.barkoderViewNotMounted,
           message: BarkoderErrors.barkodeViewNotMountedDesc));
     }
 
-    _clearScanningResultsStreamSubscription();
-    _scanningResultsStreamSubscription =
-        _scanningResultsStream.listen((result) {
-      BarkoderResult barkoderResult =
-          BarkoderResult.fromJson(json.decode(result));
-      resultsCallback(
-          barkoderResult); // Pass the BarkoderResult to the callback
-    });
-
-    return _methodChannel.invokeMethod('startScanning');
+    return _methodChannel
+        .invokeMethod('getLocationPointsEncoding')
+        .then((index) => LocationPointsEncoding.values[index]);
   }
 
-  /// Halts the barcode scanning process, stopping the camera from capturing and processing barcode information.
+  /// Sets the size and format of the barcode thumbnails, and whether they're sent after the result.
+  /// Android only.
+  ///
+  /// Thumbnails are only produced with [setBarcodeThumbnailOnResultEnabled]. By default they're
+  /// sent inline at full size as PNG. With [BarkoderThumbnailOptions.deferred], live scanning
+  /// results are sent right away without thumbnails and the thumbnails follow to the
+  /// `thumbnailsCallback` of [startScanning], linked by [BarkoderResult.resultId].
+  /// [scanImage] and [scanFrame] use the size and format, but always send thumbnails inline.
+  ///
+  /// [options]: The thumbnail options.
   ///
   /// Example usage:
   /// ```dart
-  /// await _barkoder.stopScanning();
-  /// print('Scanning stopped');
+  /// await _barkoder.setThumbnailOptions(BarkoderThumbnailOptions(
+  ///     maxSize: 64, format: BarkoderImageFormat.jpeg, quality: 80, deferred: true));
+  /// print('Thumbnail options set');
   /// ```
-  Future<void> stopScanning() {
+  Future<void> setThumbnailOptions(BarkoderThumbnailOptions options) {
     if (_isBarkoderViewNotMounted) {
       return Future.error(PlatformException(
           code: BarkoderErrors.barkoderViewNotMounted,
           message: BarkoderErrors.barkodeViewNotMountedDesc));
     }
 
-    _clearScanningResultsStreamSubscription();
-    return _methodChannel.invokeMethod('stopScanning');
+    return _methodChannel.invokeMethod('setThumbnailOptions', options.toMap());
   }
 
-  /// Temporarily suspends the barcode scanning process, pausing the camera feed without completely stopping the scanning session.
+  /// Retrieves the size and format of the barcode thumbnails. Android only.
   ///
   /// Example usage:
   /// ```dart
-  /// await _barkoder.pauseScanning();
-  /// print('Scanning paused');
+  /// BarkoderThumbnailOptions options = await _barkoder.getThumbnailOptions();
+  /// print('Thumbnail options: $options');
   /// ```
-  Future<void> pauseScanning() {
+  Future<BarkoderThumbnailOptions> getThumbnailOptions() {
     if (_isBarkoderViewNotMounted) {
       return Future.error(PlatformException(
           code: BarkoderErrors.barkoderViewNotMounted,
           message: BarkoderErrors.barkodeViewNotMountedDesc));
     }
 
-    _clearScanningResultsStreamSubscription();
-    return _methodChannel.invokeMethod('pauseScanning');
+    return _methodChannel.invokeMethod('getThumbnailOptions').then((options) =>
+        BarkoderThumbnailOptions.fromMap(Map<String, dynamic>.from(options)));
   }
 
-  /// Freezes the current AR scanning session by capturing a still image from the camera feed.
-  /// Use only when AR mode is enabled to temporarily freeze the view while keeping overlays visible.
+  /// Sets what is sent of the result image when image results are enabled. Android only.
+  ///
+  /// In [BarkoderResultImageMode.cropped] mode every result gets a crop of the frame around its
+  /// location in [DecoderResult.imageCrop] and the full frame isn't sent, which is a small
+  /// fraction of the image bytes per event.
+  ///
+  /// [mode]: The result image mode.
+  /// [margin]: Margin around the location on each side, relative to its longest side (0 - 1).
+  /// [deskew]: Whether locations with four corners are straightened to an upright rectangle.
   ///
   /// Example usage:
   /// ```dart
-  /// await _barkoder.freezeScanning();
-  /// print('Scanning frozen');
+  /// await _barkoder.setResultImageMode(BarkoderResultImageMode.cropped, margin: 0.2, deskew: true);
+  /// print('Result images are cropped');
   /// ```
-  Future<void> freezeScanning() {
+  Future<void> setResultImageMode(BarkoderResultImageMode mode,
+      {double margin = 0.1, bool deskew = false}) {
     if (_isBarkoderViewNotMounted) {
       return Future.error(PlatformException(
           code: BarkoderErrors.barkoderViewNotMounted,
           message: BarkoderErrors.barkodeViewNotMountedDesc));
     }
 
-    return _methodChannel.invokeMethod('freezeScanning');
+    return _methodChannel.invokeMethod('setResultImageMode',
+        {'mode': mode.index, 'margin': margin, 'deskew': deskew});
   }
 
-  /// Unfreezes the AR scanning session by removing the still image and reactivating the camera and overlays.
-  /// Use only when AR mode is enabled to restore the live AR view and continue scanning.
+  /// Sets how results are sent when [setAREmitResultsAtSessionEndOnly] is enabled, so a large
+  /// session doesn't arrive as one huge result. Applies from the next [startScanning]. Android only.
+  ///
+  /// [mode]: The export mode, [BarkoderSessionEndExportMode.off] by default.
+  /// [chunkSize]: Maximum number of decoder results per [BarkoderResult] in chunked mode.
   ///
   /// Example usage:
   /// ```dart
-  /// await _barkoder.unfreezeScanning();
-  /// print('Scanning unfrozen');
+  /// await _barkoder.setSessionEndExport(BarkoderSessionEndExportMode.chunked, chunkSize: 50);
+  /// print('Session end results are sent in chunks');
   /// ```
-  Future<void> unfreezeScanning() {
+  Future<void> setSessionEndExport(BarkoderSessionEndExportMode mode,
+      {int chunkSize = 20}) {
     if (_isBarkoderViewNotMounted) {
       return Future.error(PlatformException(
           code: BarkoderErrors.barkoderViewNotMounted,
           message: BarkoderErrors.barkodeViewNotMountedDesc));
     }
 
-    return _methodChannel.invokeMethod('unfreezeScanning');
+    return _methodChannel.invokeMethod(
+        'setSessionEndExport', {'mode': mode.index, 'chunkSize': chunkSize});
   }
 
-  /// Captures the latest camera frame
+  /// Sets the memory budget for results that are in flight, shared by all scanner views.
+  /// When results and their images approach the budget, they are sent lighter, step by step:
+  /// images with reduced quality, then without thumbnails, then without any images. The same
+  /// happens for a while when the system reports low memory. Android only.
+  ///
+  /// The budget is a hard cap for held images: images that don't fit are not held and their
+  /// results are sent without images. A serialized result waits for room while earlier results
+  /// of the same view are still waiting for delivery, so the budget is exceeded by at most one
+  /// result per view.
+  ///
+  /// [maxBytes]: The budget in bytes, 32 MB by default.
   ///
   /// Example usage:
   /// ```dart
-  /// await _barkoder.captureImage();
-  /// print('Image captured');
+  /// await _barkoder.setMemoryBudget(16 * 1024 * 1024);
+  /// print('Memory budget set');
   /// ```
-  Future<void> captureImage() {
+  Future<void> setMemoryBudget(int maxBytes) {
     if (_isBarkoderViewNotMounted) {
       return Future.error(PlatformException(
           code: BarkoderErrors.barkoderViewNotMounted,
           message: BarkoderErrors.barkodeViewNotMountedDesc));
     }
 
-    return _methodChannel.invokeMethod('captureImage');
+    return _methodChannel.invokeMethod('setMemoryBudget', {'maxBytes': maxBytes});
   }
 
-  /// Scan from base64 image string.
+  /// Retrieves the usage of the memory budget, see [setMemoryBudget]. Android only.
+  ///
+  /// Returns a [Future] that completes with the [MemoryBudgetStats].
   ///
   /// Example usage:
   /// ```dart
-  /// _barkoder.scanImage((result) {
-  ///   _updateState(result, false);
-  /// });
-  /// print('Scan image called');
+  /// MemoryBudgetStats stats = await _barkoder.getMemoryBudgetStats();
+  /// print('In flight: ${stats.usedBytes} of ${stats.maxBytes} bytes');
   /// ```
-  Future<void> scanImage(
-    void Function(BarkoderResult) resultsCallback,
-    String base64image,
-  ) async {
+  Future<MemoryBudgetStats> getMemoryBudgetStats() {
     if (_isBarkoderViewNotMounted) {
       return Future.error(PlatformException(
-        code: BarkoderErrors.barkoderViewNotMounted,
-        message: BarkoderErrors.barkodeViewNotMountedDesc,
-      ));
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
     }
 
-    _clearScanningResultsStreamSubscription();
-    _scanningResultsStreamSubscription =
-        _scanningResultsStream.listen((result) {
-      BarkoderResult barkoderResult =
-          BarkoderResult.fromJson(json.decode(result));
-      resultsCallback(
-          barkoderResult); // Pass the BarkoderResult to the callback
-    });
-
-    await _methodChannel.invokeMethod('scanImage', base64image);
+    return _methodChannel.invokeMethod('getMemoryBudgetStats').then(
+        (stats) => MemoryBudgetStats.fromMap(Map<String, dynamic>.from(stats)));
   }
 
   /// Retrieves the hexadecimal color code representing the line color used to indicate the location of detected barcodes.
@@ -690,6 +1432,64 @@ class Barkoder {
         {'left': left, 'top': top, 'width': width, 'height': height});
   }
 
+  /// Enables or disables the auto region of interest. Android only.
+  ///
+  /// Once a barcode is found, the region of interest is shrunk to the location of the recent
+  /// detections plus [marginPercent], so the following frames only decode that area.
+  /// The region set with [setRegionOfInterest] is restored after [maxMisses] frames without a result,
+  /// or [missTimeoutMs] after the last detection. Live scanning doesn't report frames without results,
+  /// so its misses are counted from the time it has been scanning, at 30 frames per second.
+  /// Without [setImageResultEnabled], live detections are placed on a frame of the configured
+  /// [BarkoderResolution].
+  ///
+  /// [enabled]: Whether the region of interest follows detections.
+  /// [marginPercent]: Margin around the detections, in percent of the frame.
+  /// [maxMisses]: Frames without a result before the full region is restored.
+  /// [missTimeoutMs]: Time without a result before the full region is restored.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// await _barkoder.setAutoRegionOfInterest(enabled: true, marginPercent: 15);
+  /// print('Auto region of interest enabled');
+  /// ```
+  Future<void> setAutoRegionOfInterest(
+      {required bool enabled,
+      double marginPercent = 10,
+      int maxMisses = 10,
+      int missTimeoutMs = 1000}) {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
+    }
+
+    return _methodChannel.invokeMethod('setAutoRegionOfInterest', {
+      'enabled': enabled,
+      'marginPercent': marginPercent,
+      'maxMisses': maxMisses,
+      'missTimeoutMs': missTimeoutMs,
+    });
+  }
+
+  /// Checks if the auto region of interest is enabled. Android only.
+  ///
+  /// Returns a [Future] that completes with a boolean indicating whether the auto region of interest is enabled.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// bool autoRoiEnabled = await _barkoder.isAutoRegionOfInterestEnabled();
+  /// print('Auto region of interest enabled: $autoRoiEnabled');
+  /// ```
+  Future<bool> isAutoRegionOfInterestEnabled() async {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
+    }
+
+    return await _methodChannel.invokeMethod('isAutoRegionOfInterestEnabled');
+  }
+
   /// Retrieves the threads limit.
   ///
   /// Returns a [Future] that completes with an integer representing the threads limit.
@@ -729,6 +1529,125 @@ class Barkoder {
     return _methodChannel.invokeMethod('setThreadsLimit', threadsLimit);
   }
 
+  /// Enables or disables adaptive tuning of the threads limit. Android only.
+  ///
+  /// While enabled, decode latency of [scanImage] and [scanFrame] calls is measured and the
+  /// threads limit is moved one thread at a time, between 1 and the number of CPU cores,
+  /// to reach [targetLatencyMs]. Threads that don't make decoding faster are given back.
+  /// Calling [setThreadsLimit] disables adaptive tuning.
+  ///
+  /// Live scanning started with [startScanning] doesn't report decode times, so it is not
+  /// measured and isn't tuned. The tuned limit is applied only while [scanImage] or [scanFrame]
+  /// decodes are running; live scanning keeps the limit set with [setThreadsLimit] (or the default).
+  /// Live frames that are decoded while such a call is running share its limit, since the limit is
+  /// global. Measured latency includes the hand-over of the result to the main thread.
+  ///
+  /// [enabled]: Whether the threads limit is tuned automatically.
+  /// [targetLatencyMs]: Decode latency per frame that the tuning aims for.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// await _barkoder.setAdaptiveThreadsLimit(enabled: true, targetLatencyMs: 40);
+  /// print('Adaptive threads limit enabled');
+  /// ```
+  Future<void> setAdaptiveThreadsLimit(
+      {required bool enabled, int targetLatencyMs = 50}) {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
+    }
+
+    return _methodChannel.invokeMethod('setAdaptiveThreadsLimit', {
+      'enabled': enabled,
+      'targetLatencyMs': targetLatencyMs,
+    });
+  }
+
+  /// Retrieves the state of adaptive threads limit tuning, including the currently chosen limit.
+  /// Android only.
+  ///
+  /// Returns a [Future] that completes with the [AdaptiveThreadsLimitState].
+  ///
+  /// Example usage:
+  /// ```dart
+  /// AdaptiveThreadsLimitState state = await _barkoder.getAdaptiveThreadsLimitState();
+  /// print('Threads limit: ${state.threadsLimit}, latency: ${state.averageLatencyMs} ms');
+  /// ```
+  Future<AdaptiveThreadsLimitState> getAdaptiveThreadsLimitState() {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
+    }
+
+    return _methodChannel.invokeMethod('getAdaptiveThreadsLimitState').then(
+        (state) => AdaptiveThreadsLimitState.fromMap(Map<String, dynamic>.from(state)));
+  }
+
+  /// Enables or disables the frame budget governor. Android only.
+  ///
+  /// While enabled, decode time and success rate of [scanFrame] and [scanImage] calls are
+  /// measured and their [DecodingSpeed] is moved along a ladder from fast to slow.
+  /// The governor steps down when decoding exceeds [frameBudgetMs] (e.g. once the device
+  /// throttles) and steps up when there is headroom and fewer than [targetSuccessRate] of the
+  /// frames are decoded. A step needs two agreeing measurement windows, so the speed doesn't
+  /// oscillate. Changing the decoding speed with [setDecodingSpeed] or [configureBarkoder]
+  /// disables the governor.
+  ///
+  /// Live scanning started with [startScanning] doesn't report decode times, so it is not
+  /// governed: the chosen speed is only used for [scanFrame] and [scanImage] decodes (without
+  /// escalation) and the live session keeps the configured speed. [BarkoderResolution] isn't
+  /// governed, since it only sets the camera capture size.
+  ///
+  /// [enabled]: Whether the decoding speed of [scanFrame] and [scanImage] is governed.
+  /// [frameBudgetMs]: Maximum average decode time per frame.
+  /// [targetSuccessRate]: Fraction of frames (0 - 1) that should produce a result.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// await _barkoder.setFrameBudgetGovernor(
+  ///     enabled: true, frameBudgetMs: 80, targetSuccessRate: 0.6);
+  /// print('Frame budget governor enabled');
+  /// ```
+  Future<void> setFrameBudgetGovernor(
+      {required bool enabled,
+      int frameBudgetMs = 100,
+      double targetSuccessRate = 0.5}) {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
+    }
+
+    return _methodChannel.invokeMethod('setFrameBudgetGovernor', {
+      'enabled': enabled,
+      'frameBudgetMs': frameBudgetMs,
+      'targetSuccessRate': targetSuccessRate,
+    });
+  }
+
+  /// Retrieves the state of the frame budget governor and the decoding speed it currently applies.
+  /// Android only.
+  ///
+  /// Returns a [Future] that completes with the [FrameBudgetGovernorState].
+  ///
+  /// Example usage:
+  /// ```dart
+  /// FrameBudgetGovernorState state = await _barkoder.getFrameBudgetGovernorState();
+  /// print('Level ${state.level}: ${state.decodingSpeed}');
+  /// ```
+  Future<FrameBudgetGovernorState> getFrameBudgetGovernorState() {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
+    }
+
+    return _methodChannel.invokeMethod('getFrameBudgetGovernorState').then(
+        (state) => FrameBudgetGovernorState.fromMap(Map<String, dynamic>.from(state)));
+  }
+
   /// Checks if location in preview is enabled.
   ///
   /// Returns a [Future] that completes with a boolean indicating whether location in preview is enabled.
@@ -2750,7 +3669,7 @@ class Barkoder {
   /// [cornerRadius]: Corner radius.
   /// [padding]: Inner padding around the glyph.
   /// [useCustomIcon]: Set true to use the provided custom icon.
-  /// [customIcon]: Custom icon as a Base64-encoded image string.
+  /// [customIcon]: Custom icon as a Base64-encoded image string or a [BarkoderIcon] reference (Android only).
   ///
   Future<void> configureCloseButton({
     required bool visible,
@@ -2797,8 +3716,8 @@ class Barkoder {
   /// [cornerRadius]: Corner radius.
   /// [padding]: Inner padding around the glyph.
   /// [useCustomIcon]: Set true to use the provided custom icons.
-  /// [customIconFlashOn]: ON-state icon as a Base64-encoded image string.
-  /// [customIconFlashOff]: OFF-state icon as a Base64-encoded image string.
+  /// [customIconFlashOn]: ON-state icon as a Base64-encoded image string or a [BarkoderIcon] reference (Android only).
+  /// [customIconFlashOff]: OFF-state icon as a Base64-encoded image string or a [BarkoderIcon] reference (Android only).
   ///
   Future<void> configureFlashButton({
     required bool visible,
@@ -2847,8 +3766,8 @@ class Barkoder {
   /// [cornerRadius]: Corner radius.
   /// [padding]: Inner padding around the glyph.
   /// [useCustomIcon]: Set true to use the provided custom icons.
-  /// [customIconZoomedIn]: Zoomed-in state icon as a Base64-encoded image string.
-  /// [customIconZoomedOut]: Zoomed-out state icon as a Base64-encoded image string.
+  /// [customIconZoomedIn]: Zoomed-in state icon as a Base64-encoded image string or a [BarkoderIcon] reference (Android only).
+  /// [customIconZoomedOut]: Zoomed-out state icon as a Base64-encoded image string or a [BarkoderIcon] reference (Android only).
   /// [zoomedInFactor]: Zoom factor to apply when toggled in (e.g., 2.0).
   /// [zoomedOutFactor]: Zoom factor to apply when toggled out (e.g., 1.0).
   ///`
@@ -2891,6 +3810,56 @@ class Barkoder {
     });
   }
 
+  /// Decodes an icon once and keeps it under [id], so the button configuration calls can use
+  /// `BarkoderIcon.registered(id)` instead of sending the image again. Android only.
+  ///
+  /// Registered icons are kept for all Barkoder views until [unregisterIcon] is called.
+  ///
+  /// [id]: The id of the icon.
+  /// [icon]: The icon as a Base64-encoded image string or a [BarkoderIcon.asset] reference.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// await _barkoder.registerIcon('flashOn', BarkoderIcon.asset('assets/flash_on.png'));
+  /// _barkoder.configureFlashButton(
+  ///   ...
+  ///   customIconFlashOn: BarkoderIcon.registered('flashOn'),
+  ///   ...
+  /// );
+  /// ```
+  Future<void> registerIcon(String id, String icon) {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
+    }
+
+    return _methodChannel.invokeMethod('registerIcon', {'id': id, 'icon': icon});
+  }
+
+  /// Removes an icon that was registered with [registerIcon]. Android only.
+  ///
+  /// Returns a [Future] that completes with whether the icon was registered.
+  ///
+  /// [id]: The id of the icon.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// bool removed = await _barkoder.unregisterIcon('flashOn');
+  /// print('Icon removed: $removed');
+  /// ```
+  Future<bool> unregisterIcon(String id) {
+    if (_isBarkoderViewNotMounted) {
+      return Future.error(PlatformException(
+          code: BarkoderErrors.barkoderViewNotMounted,
+          message: BarkoderErrors.barkodeViewNotMountedDesc));
+    }
+
+    return _methodChannel
+        .invokeMethod('unregisterIcon', id)
+        .then((removed) => removed as bool);
+  }
+
   /// Selects all barcodes that are currently visible in AR mode..
   ///
   /// Example usage:
@@ -3366,5 +4335,6 @@ class Barkoder {
   void _clearScanningResultsStreamSubscription() {
     _scanningResultsStreamSubscription?.cancel();
     _scanningResultsStreamSubscription = null;
+    _binaryResultsChannel.setMessageHandler(null);
   }
 }
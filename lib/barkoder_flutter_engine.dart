@@ -0,0 +1,122 @@
+import 'dart:async';
+import 'dart:convert';
+
+import 'package:flutter/services.dart';
+
+import 'barkoder_flutter_models.dart';
+
+/// Headless scanning engine that decodes still images and raw camera frames without a [BarkoderView] on screen.
+/// It can be used from background isolates (after `BackgroundIsolateBinaryMessenger.ensureInitialized`)
+/// and from background engines such as WorkManager tasks.
+/// Android only.
+class BarkoderEngine {
+  static const MethodChannel _methodChannel =
+      MethodChannel('barkoder_flutter_engine');
+
+  /// Initializes the engine with the license key. Must be called before any other method.
+  ///
+  /// [licenseKey]: The barKoder license key.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// final engine = BarkoderEngine();
+  /// await engine.initialize('LICENSE_KEY');
+  /// print('Engine initialized');
+  /// ```
+  Future<void> initialize(String licenseKey) {
+    return _methodChannel
+        .invokeMethod('initialize', {'licenseKey': licenseKey});
+  }
+
+  /// Configures the engine's decoder with the provided configuration.
+  ///
+  /// [barkoderConfig]: The configuration to apply.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// await engine.configureBarkoder(BarkoderConfig(
+  ///   decoder: DekoderConfig(ean13: BarcodeConfig(enabled: true)),
+  /// ));
+  /// print('Engine configured');
+  /// ```
+  Future<void> configureBarkoder(BarkoderConfig barkoderConfig) {
+    return _methodChannel.invokeMethod(
+        'configureBarkoder', jsonEncode(barkoderConfig));
+  }
+
+  /// Scans a base64 encoded image.
+  ///
+  /// [base64image]: The image to scan.
+  ///
+  /// Returns a [Future] that completes with the [BarkoderResult].
+  ///
+  /// Example usage:
+  /// ```dart
+  /// BarkoderResult result = await engine.scanImage(base64image);
+  /// print('Found: ${result.decoderResults.length}');
+  /// ```
+  Future<BarkoderResult> scanImage(String base64image) async {
+    final String result =
+        await _methodChannel.invokeMethod('scanImage', base64image);
+    return BarkoderResult.fromJson(json.decode(result));
+  }
+
+  /// Scans a batch of base64 encoded images one after another.
+  ///
+  /// [base64images]: The images to scan.
+  ///
+  /// Returns a [Future] that completes with one [BarkoderResult] per image, in the same order.
+  /// Images that can't be decoded have a null entry.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// List<BarkoderResult?> results = await engine.scanImages([image1, image2]);
+  /// print('Scanned: ${results.length}');
+  /// ```
+  Future<List<BarkoderResult?>> scanImages(List<String> base64images) async {
+    final List<dynamic> results =
+        await _methodChannel.invokeMethod('scanImages', base64images);
+    return results
+        .map((result) =>
+            result != null ? BarkoderResult.fromJson(json.decode(result)) : null)
+        .toList();
+  }
+
+  /// Scans a raw camera frame, e.g. from the camera plugin's image stream, without a [BarkoderView].
+  /// The frame is decoded with the engine's configuration without encoding it to JPEG/PNG first.
+  /// Only one frame is decoded at a time; frames submitted while the previous one is still being decoded are skipped.
+  ///
+  /// [frame]: The raw frame to scan.
+  ///
+  /// Returns a [Future] that completes with the [BarkoderResult], or with null if the frame was skipped.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// BarkoderResult? result = await engine.scanFrame(BarkoderFrame(
+  ///   bytes: image.planes[0].bytes,
+  ///   width: image.width,
+  ///   height: image.height,
+  ///   format: BarkoderFrameFormat.yuv420888,
+  ///   rowStride: image.planes[0].bytesPerRow,
+  ///   pixelStride: image.planes[0].bytesPerPixel ?? 1,
+  ///   rotation: 90,
+  /// ));
+  /// print('Frame scanned: ${result?.decoderResults.length}');
+  /// ```
+  Future<BarkoderResult?> scanFrame(BarkoderFrame frame) async {
+    final String? result =
+        await _methodChannel.invokeMethod('scanFrame', frame.toMap());
+    return result != null ? BarkoderResult.fromJson(json.decode(result)) : null;
+  }
+
+  /// Releases the engine's configuration. [initialize] must be called again before the next scan.
+  ///
+  /// Example usage:
+  /// ```dart
+  /// await engine.release();
+  /// print('Engine released');
+  /// ```
+  Future<void> release() {
+    return _methodChannel.invokeMethod('release');
+  }
+}
@@ -6,10 +6,28 @@ class BarkoderResult {
   List<Uint8List>? resultThumbnails;
   Uint8List? resultImage;
 
+  /// Step of the scan image escalation ladder that produced this result (0 is the fastest).
+  /// Only set when the escalation mode is enabled.
+  int? escalationStep;
+
+  /// Links the result to its [BarkoderResultThumbnails] when thumbnails are deferred.
+  int? resultId;
+
+  /// Position of this chunk in a session-end result set exported in
+  /// [BarkoderSessionEndExportMode.chunked], starting at 0.
+  int? sessionChunkIndex;
+
+  /// Number of chunks of the session-end result set.
+  int? sessionChunkCount;
+
   BarkoderResult({
     required this.decoderResults,
     this.resultThumbnails,
     this.resultImage,
+    this.escalationStep,
+    this.resultId,
+    this.sessionChunkIndex,
+    this.sessionChunkCount,
   });
 
   factory BarkoderResult.fromJson(Map<String, dynamic> json) {
@@ -26,6 +44,10 @@ class BarkoderResult {
       resultImage: json['resultImageAsBase64'] != null
           ? Base64Decoder().convert(json['resultImageAsBase64'])
           : null,
+      escalationStep: json['escalationStep'],
+      resultId: json['resultId'],
+      sessionChunkIndex: json['sessionChunk']?['index'],
+      sessionChunkCount: json['sessionChunk']?['count'],
     );
   }
 
@@ -44,8 +66,14 @@ class DecoderResult {
   Map<String, dynamic>? extra;
   List<MRZImage>? mrzImages;
   List<Map<String, double>>? locationPoints;
+
+  /// Interleaved x, y coordinates, set instead of [locationPoints] with a packed [LocationPointsEncoding].
+  Float32List? locationPointsPacked;
   Uint8List? sadlImage;
 
+  /// Crop of the frame around this result, set in [BarkoderResultImageMode.cropped].
+  Uint8List? imageCrop;
+
   DecoderResult({
     required this.barcodeType,
     required this.barcodeTypeName,
@@ -55,7 +83,9 @@ class DecoderResult {
     this.extra,
     this.mrzImages,
     this.locationPoints,
+    this.locationPointsPacked,
     this.sadlImage,
+    this.imageCrop,
   });
 
   DecoderResult.fromJson(Map<String, dynamic> resultMap) {
@@ -79,12 +109,17 @@ class DecoderResult {
               })
           .toList();
     }
+    locationPointsPacked = _packedLocationPointsFromJson(resultMap);
 
     if (resultMap.containsKey('sadlImageAsBase64')) {
       sadlImage = resultMap['sadlImageAsBase64'] != null
           ? Base64Decoder().convert(resultMap['sadlImageAsBase64'])
           : null;
     }
+
+    if (resultMap['imageCropAsBase64'] != null) {
+      imageCrop = Base64Decoder().convert(resultMap['imageCropAsBase64']);
+    }
   }
 
   static List<DecoderResult> fromJsonString(String jsonString) {
@@ -100,6 +135,442 @@ class DecoderResult {
   }
 }
 
+/// References to icons for the custom button icons that don't send the image itself. Android only.
+class BarkoderIcon {
+  /// An icon registered with `Barkoder.registerIcon`.
+  static String registered(String id) => 'id:$id';
+
+  /// An image from the Flutter assets of the app, e.g. `assets/flash_on.png`.
+  static String asset(String assetKey) => 'asset:$assetKey';
+}
+
+class BarkoderThumbnailOptions {
+  /// Longest side of the thumbnails in pixels, 0 keeps the original size.
+  final int maxSize;
+  final BarkoderImageFormat format;
+
+  /// Compression quality 0 - 100, ignored by [BarkoderImageFormat.png].
+  final int quality;
+
+  /// Whether thumbnails are sent after the result, see [BarkoderResultThumbnails].
+  final bool deferred;
+
+  BarkoderThumbnailOptions({
+    this.maxSize = 0,
+    this.format = BarkoderImageFormat.png,
+    this.quality = 100,
+    this.deferred = false,
+  });
+
+  factory BarkoderThumbnailOptions.fromMap(Map<String, dynamic> map) {
+    return BarkoderThumbnailOptions(
+      maxSize: map['maxSize'],
+      format: BarkoderImageFormat.values[map['format']],
+      quality: map['quality'],
+      deferred: map['deferred'],
+    );
+  }
+
+  Map<String, dynamic> toMap() {
+    return {
+      'maxSize': maxSize,
+      'format': format.index,
+      'quality': quality,
+      'deferred': deferred,
+    };
+  }
+
+  @override
+  String toString() {
+    return '{maxSize: $maxSize, format: $format, quality: $quality, deferred: $deferred}';
+  }
+}
+
+class BarkoderFrameCaptureOptions {
+  /// Longest side of the frame in pixels, 0 keeps the preview size.
+  final int maxSize;
+  final BarkoderImageFormat format;
+
+  /// Compression quality 0 - 100, ignored by [BarkoderImageFormat.png].
+  final int quality;
+
+  /// Whether the frame is written to a file in the cache directory instead of being returned as bytes.
+  final bool asFile;
+
+  BarkoderFrameCaptureOptions({
+    this.maxSize = 0,
+    this.format = BarkoderImageFormat.jpeg,
+    this.quality = 90,
+    this.asFile = false,
+  });
+
+  Map<String, dynamic> toMap() {
+    return {
+      'maxSize': maxSize,
+      'format': format.index,
+      'quality': quality,
+      'asFile': asFile,
+    };
+  }
+}
+
+class BarkoderCapturedFrame {
+  final int width;
+  final int height;
+
+  /// Encoded image, set unless [BarkoderFrameCaptureOptions.asFile] was used.
+  final Uint8List? bytes;
+
+  /// Path of the encoded image, set if [BarkoderFrameCaptureOptions.asFile] was used.
+  final String? filePath;
+
+  BarkoderCapturedFrame({
+    required this.width,
+    required this.height,
+    this.bytes,
+    this.filePath,
+  });
+
+  factory BarkoderCapturedFrame.fromMap(Map<String, dynamic> map) {
+    return BarkoderCapturedFrame(
+      width: map['width'],
+      height: map['height'],
+      bytes: map['bytes'],
+      filePath: map['filePath'],
+    );
+  }
+
+  @override
+  String toString() {
+    return '{width: $width, height: $height, bytes: ${bytes?.length}, filePath: $filePath}';
+  }
+}
+
+class BarkoderResultThumbnails {
+  /// Same as [BarkoderResult.resultId] of the result they belong to.
+  final int resultId;
+  final List<Uint8List> thumbnails;
+
+  BarkoderResultThumbnails({
+    required this.resultId,
+    required this.thumbnails,
+  });
+
+  factory BarkoderResultThumbnails.fromJson(Map<String, dynamic> json) {
+    return BarkoderResultThumbnails(
+      resultId: json['resultId'],
+      thumbnails: (json['resultThumbnailsAsBase64'] as List<dynamic>)
+          .whereType<String>()
+          .map((thumbnail) => Base64Decoder().convert(thumbnail))
+          .toList(),
+    );
+  }
+
+  @override
+  String toString() {
+    return '{$resultId, $thumbnails}';
+  }
+}
+
+class BarkoderSessionExport {
+  /// JSON file with the whole session-end result set, in the same format as a [BarkoderResult].
+  /// The file is in the app cache and is not deleted by the plugin.
+  final String filePath;
+  final int resultCount;
+
+  BarkoderSessionExport({
+    required this.filePath,
+    required this.resultCount,
+  });
+
+  factory BarkoderSessionExport.fromJson(Map<String, dynamic> json) {
+    return BarkoderSessionExport(
+      filePath: json['filePath'],
+      resultCount: json['resultCount'],
+    );
+  }
+
+  @override
+  String toString() {
+    return '{filePath: $filePath, resultCount: $resultCount}';
+  }
+}
+
+/// A result batch received as a binary frame, see [Barkoder.startScanningBinary].
+class BarkoderBinaryFrame {
+  static const int magic = 0x31524B42; // "BKR1"
+  static const int version = 1;
+
+  /// Size of the camera frame the location points refer to. Without image results enabled, it's
+  /// the capture size of the configured [BarkoderResolution] in the orientation of the view.
+  final int frameWidth;
+  final int frameHeight;
+  final List<BarkoderBinaryResult> results;
+
+  BarkoderBinaryFrame({
+    required this.frameWidth,
+    required this.frameHeight,
+    required this.results,
+  });
+
+  /// Reference parser of the frame layout. All numbers are little endian.
+  ///
+  /// ```
+  /// frame:  u32 magic "BKR1", u16 version, u16 result count,
+  ///         u32 frame width, u32 frame height, result[result count]
+  /// result: u16 barcode type ordinal,
+  ///         u32 binary data length + bytes,
+  ///         u32 textual data length + UTF-8 bytes,
+  ///         u16 location point count + (f32 x, f32 y) per point
+  /// ```
+  ///
+  /// Throws a [FormatException] if the data isn't a frame of a known version.
+  factory BarkoderBinaryFrame.parse(ByteData data) {
+    if (data.lengthInBytes < 16 || data.getUint32(0, Endian.little) != magic) {
+      throw const FormatException('Not a Barkoder binary frame');
+    }
+    if (data.getUint16(4, Endian.little) != version) {
+      throw FormatException(
+          'Unknown Barkoder binary frame version ${data.getUint16(4, Endian.little)}');
+    }
+
+    int resultCount = data.getUint16(6, Endian.little);
+    int frameWidth = data.getUint32(8, Endian.little);
+    int frameHeight = data.getUint32(12, Endian.little);
+    int offset = 16;
+
+    List<BarkoderBinaryResult> results = [];
+    for (int r = 0; r < resultCount; r++) {
+      int barcodeType = data.getUint16(offset, Endian.little);
+      offset += 2;
+
+      int binaryLength = data.getUint32(offset, Endian.little);
+      offset += 4;
+      Uint8List binaryData =
+          Uint8List.sublistView(data, offset, offset + binaryLength);
+      offset += binaryLength;
+
+      int textLength = data.getUint32(offset, Endian.little);
+      offset += 4;
+      String textualData =
+          utf8.decode(Uint8List.sublistView(data, offset, offset + textLength));
+      offset += textLength;
+
+      int pointCount = data.getUint16(offset, Endian.little);
+      offset += 2;
+      // Not 4-byte aligned in the frame, so the points are copied
+      Float32List locationPoints = Float32List(pointCount * 2);
+      for (int i = 0; i < locationPoints.length; i++) {
+        locationPoints[i] = data.getFloat32(offset, Endian.little);
+        offset += 4;
+      }
+
+      results.add(BarkoderBinaryResult(
+        barcodeType: barcodeType,
+        binaryData: binaryData,
+        textualData: textualData,
+        locationPoints: locationPoints,
+      ));
+    }
+
+    return BarkoderBinaryFrame(
+      frameWidth: frameWidth,
+      frameHeight: frameHeight,
+      results: results,
+    );
+  }
+
+  @override
+  String toString() {
+    return '{frameWidth: $frameWidth, frameHeight: $frameHeight, results: $results}';
+  }
+}
+
+class BarkoderBinaryResult {
+  /// Index of the barcode type in [BarcodeType].
+  final int barcodeType;
+  final Uint8List binaryData;
+  final String textualData;
+
+  /// Interleaved x, y pixel coordinates.
+  final Float32List locationPoints;
+
+  BarkoderBinaryResult({
+    required this.barcodeType,
+    required this.binaryData,
+    required this.textualData,
+    required this.locationPoints,
+  });
+
+  @override
+  String toString() {
+    return '{$barcodeType, $textualData}';
+  }
+}
+
+class BarkoderARDelta {
+  /// Barcodes that appeared since the previous delta.
+  final List<BarkoderARDeltaItem> added;
+
+  /// Barcodes whose location or selection state changed since the previous delta.
+  final List<BarkoderARDeltaUpdate> updated;
+
+  /// Ids of barcodes that are no longer tracked.
+  final List<int> removed;
+
+  BarkoderARDelta({
+    required this.added,
+    required this.updated,
+    required this.removed,
+  });
+
+  factory BarkoderARDelta.fromJson(Map<String, dynamic> json) {
+    return BarkoderARDelta(
+      added: (json['added'] as List)
+          .map((item) => BarkoderARDeltaItem.fromJson(item))
+          .toList(),
+      updated: (json['updated'] as List)
+          .map((item) => BarkoderARDeltaUpdate.fromJson(item))
+          .toList(),
+      removed: List<int>.from(json['removed']),
+    );
+  }
+
+  @override
+  String toString() {
+    return '{added: $added, updated: $updated, removed: $removed}';
+  }
+}
+
+class BarkoderARDeltaItem {
+  /// Stable id of the barcode for as long as it is tracked.
+  final int id;
+  final int barcodeType;
+  final String barcodeTypeName;
+  final String binaryDataAsBase64;
+  final String textualData;
+  final String? characterSet;
+  final List<Map<String, double>>? locationPoints;
+  final Float32List? locationPointsPacked;
+
+  /// Whether the barcode is selected. The SDK doesn't report the selection of single barcodes:
+  /// in the interactive [BarkoderARMode]s only selected barcodes are reported, so every tracked
+  /// barcode is selected and a deselected one is reported as removed, in
+  /// [BarkoderARMode.nonInteractive] none is.
+  final bool selected;
+
+  /// Only set if images were requested when scanning was started.
+  final Uint8List? thumbnail;
+
+  BarkoderARDeltaItem({
+    required this.id,
+    required this.barcodeType,
+    required this.barcodeTypeName,
+    required this.binaryDataAsBase64,
+    required this.textualData,
+    this.characterSet,
+    this.locationPoints,
+    this.locationPointsPacked,
+    required this.selected,
+    this.thumbnail,
+  });
+
+  factory BarkoderARDeltaItem.fromJson(Map<String, dynamic> json) {
+    return BarkoderARDeltaItem(
+      id: json['id'],
+      barcodeType: json['barcodeType'],
+      barcodeTypeName: json['barcodeTypeName'],
+      binaryDataAsBase64: json['binaryDataAsBase64'],
+      textualData: json['textualData'],
+      characterSet: json['characterSet'],
+      locationPoints: _locationPointsFromJson(json['locationPoints']),
+      locationPointsPacked: _packedLocationPointsFromJson(json),
+      selected: json['selected'] ?? false,
+      thumbnail: json['thumbnailAsBase64'] != null
+          ? Base64Decoder().convert(json['thumbnailAsBase64'])
+          : null,
+    );
+  }
+
+  @override
+  String toString() {
+    return '{$id, $barcodeType, $barcodeTypeName, $textualData, $locationPoints, $selected}';
+  }
+}
+
+class BarkoderARDeltaUpdate {
+  final int id;
+  final List<Map<String, double>>? locationPoints;
+  final Float32List? locationPointsPacked;
+
+  /// See [BarkoderARDeltaItem.selected].
+  final bool selected;
+
+  BarkoderARDeltaUpdate({
+    required this.id,
+    this.locationPoints,
+    this.locationPointsPacked,
+    required this.selected,
+  });
+
+  factory BarkoderARDeltaUpdate.fromJson(Map<String, dynamic> json) {
+    return BarkoderARDeltaUpdate(
+      id: json['id'],
+      locationPoints: _locationPointsFromJson(json['locationPoints']),
+      locationPointsPacked: _packedLocationPointsFromJson(json),
+      selected: json['selected'] ?? false,
+    );
+  }
+
+  @override
+  String toString() {
+    return '{$id, $locationPoints, $selected}';
+  }
+}
+
+List<Map<String, double>>? _locationPointsFromJson(dynamic locationPoints) {
+  if (locationPoints is! List) return null;
+
+  return locationPoints
+      .whereType<Map>()
+      .map((p) => {
+            'x': (p['x'] as num).toDouble(),
+            'y': (p['y'] as num).toDouble(),
+          })
+      .toList();
+}
+
+/// Decodes the packed location points to pixel coordinates, see [LocationPointsEncoding].
+Float32List? _packedLocationPointsFromJson(Map<String, dynamic> json) {
+  if (json['locationPointsFloat32AsBase64'] != null) {
+    ByteData bytes = ByteData.sublistView(
+        base64Decode(json['locationPointsFloat32AsBase64']));
+    Float32List points = Float32List(bytes.lengthInBytes ~/ 4);
+    for (int i = 0; i < points.length; i++) {
+      points[i] = bytes.getFloat32(i * 4, Endian.little);
+    }
+    return points;
+  }
+
+  if (json['locationPointsInt16AsBase64'] != null) {
+    ByteData bytes = ByteData.sublistView(
+        base64Decode(json['locationPointsInt16AsBase64']));
+    double scaleX = (json['frameWidth'] as num) / _int16LocationScale;
+    double scaleY = (json['frameHeight'] as num) / _int16LocationScale;
+    Float32List points = Float32List(bytes.lengthInBytes ~/ 2);
+    for (int i = 0; i < points.length; i++) {
+      points[i] = bytes.getInt16(i * 2, Endian.little) *
+          (i.isEven ? scaleX : scaleY);
+    }
+    return points;
+  }
+
+  return null;
+}
+
+// Frame width or height in the int16 encoding
+const int _int16LocationScale = 32767;
+
 class MRZImage {
   final String name;
   final Uint8List value;
@@ -114,6 +585,410 @@ class MRZImage {
   }
 }
 
+class ScanImageCacheStats {
+  final int hits;
+  final int misses;
+  final int evictions;
+  final int size;
+
+  ScanImageCacheStats({
+    required this.hits,
+    required this.misses,
+    required this.evictions,
+    required this.size,
+  });
+
+  factory ScanImageCacheStats.fromMap(Map<String, dynamic> map) {
+    return ScanImageCacheStats(
+      hits: map['hits'],
+      misses: map['misses'],
+      evictions: map['evictions'],
+      size: map['size'],
+    );
+  }
+
+  @override
+  String toString() {
+    return '{hits: $hits, misses: $misses, evictions: $evictions, size: $size}';
+  }
+}
+
+class MemoryBudgetStats {
+  final int maxBytes;
+
+  /// Bitmaps and serialized results that are currently in flight.
+  final int usedBytes;
+  final int peakBytes;
+
+  /// Level forced by system memory pressure, 0 if there is none.
+  /// 1: reduced image quality, 2: no thumbnails, 3: text only.
+  final int pressureLevel;
+
+  /// Number of decodes whose results were sent lighter because of the budget.
+  final int degradedDecodes;
+
+  MemoryBudgetStats({
+    required this.maxBytes,
+    required this.usedBytes,
+    required this.peakBytes,
+    required this.pressureLevel,
+    required this.degradedDecodes,
+  });
+
+  factory MemoryBudgetStats.fromMap(Map<String, dynamic> map) {
+    return MemoryBudgetStats(
+      maxBytes: map['maxBytes'],
+      usedBytes: map['usedBytes'],
+      peakBytes: map['peakBytes'],
+      pressureLevel: map['pressureLevel'],
+      degradedDecodes: map['degradedDecodes'],
+    );
+  }
+
+  @override
+  String toString() {
+    return '{maxBytes: $maxBytes, usedBytes: $usedBytes, peakBytes: $peakBytes, '
+        'pressureLevel: $pressureLevel, degradedDecodes: $degradedDecodes}';
+  }
+}
+
+class AdaptiveThreadsLimitState {
+  final bool enabled;
+
+  /// Threads limit that scanImage and scanFrame decodes run with.
+  final int threadsLimit;
+
+  /// Upper bound of the tuning, the number of CPU cores.
+  final int maxThreadsLimit;
+
+  /// Average decode latency of the last measured window, 0 if nothing was measured yet.
+  final int averageLatencyMs;
+
+  AdaptiveThreadsLimitState({
+    required this.enabled,
+    required this.threadsLimit,
+    required this.maxThreadsLimit,
+    required this.averageLatencyMs,
+  });
+
+  factory AdaptiveThreadsLimitState.fromMap(Map<String, dynamic> map) {
+    return AdaptiveThreadsLimitState(
+      enabled: map['enabled'],
+      threadsLimit: map['threadsLimit'],
+      maxThreadsLimit: map['maxThreadsLimit'],
+      averageLatencyMs: map['averageLatencyMs'],
+    );
+  }
+
+  @override
+  String toString() {
+    return '{enabled: $enabled, threadsLimit: $threadsLimit, maxThreadsLimit: $maxThreadsLimit, averageLatencyMs: $averageLatencyMs}';
+  }
+}
+
+class FrameBudgetGovernorState {
+  final bool enabled;
+
+  /// Current step of the governor ladder, 0 being the cheapest.
+  final int level;
+  final int levelCount;
+
+  /// Speed of scanFrame and scanImage decodes, the configured one while the governor is disabled.
+  final DecodingSpeed decodingSpeed;
+
+  FrameBudgetGovernorState({
+    required this.enabled,
+    required this.level,
+    required this.levelCount,
+    required this.decodingSpeed,
+  });
+
+  factory FrameBudgetGovernorState.fromMap(Map<String, dynamic> map) {
+    return FrameBudgetGovernorState(
+      enabled: map['enabled'],
+      level: map['level'],
+      levelCount: map['levelCount'],
+      decodingSpeed: DecodingSpeed.values[map['decodingSpeed']],
+    );
+  }
+
+  @override
+  String toString() {
+    return '{enabled: $enabled, level: $level, levelCount: $levelCount, decodingSpeed: $decodingSpeed}';
+  }
+}
+
+class DecodeRateStats {
+  final int maxDecodesPerSecond;
+  final int decodeEveryNthFrame;
+  /// Frames passed to scanFrame that were decoded.
+  final int decodedFrames;
+
+  /// Frames passed to scanFrame that were skipped by the decode rate limit.
+  final int skippedFrames;
+
+  /// Frames dropped because the previous frame was still being decoded, or because they were not valid.
+  final int droppedFrames;
+
+  /// Live scanning frames that were scanned. The SDK doesn't report live frames, so this is
+  /// estimated from the time live scanning ran, at 30 fps.
+  final int liveDecodedFrames;
+
+  /// Live scanning frames skipped by the decode rate limit, estimated from the time live scanning
+  /// was paused, at 30 fps.
+  final int liveSkippedFrames;
+
+  DecodeRateStats({
+    required this.maxDecodesPerSecond,
+    required this.decodeEveryNthFrame,
+    required this.decodedFrames,
+    required this.skippedFrames,
+    required this.droppedFrames,
+    required this.liveDecodedFrames,
+    required this.liveSkippedFrames,
+  });
+
+  factory DecodeRateStats.fromMap(Map<String, dynamic> map) {
+    return DecodeRateStats(
+      maxDecodesPerSecond: map['maxDecodesPerSecond'],
+      decodeEveryNthFrame: map['decodeEveryNthFrame'],
+      decodedFrames: map['decodedFrames'],
+      skippedFrames: map['skippedFrames'],
+      droppedFrames: map['droppedFrames'],
+      liveDecodedFrames: map['liveDecodedFrames'],
+      liveSkippedFrames: map['liveSkippedFrames'],
+    );
+  }
+
+  @override
+  String toString() {
+    return '{maxDecodesPerSecond: $maxDecodesPerSecond, decodeEveryNthFrame: $decodeEveryNthFrame, decodedFrames: $decodedFrames, skippedFrames: $skippedFrames, droppedFrames: $droppedFrames, liveDecodedFrames: $liveDecodedFrames, liveSkippedFrames: $liveSkippedFrames}';
+  }
+}
+
+class SymbologyProfile {
+  final bool learning;
+
+  /// Whether the suggested profile is currently applied to the config.
+  final bool applied;
+
+  /// Whether all originally enabled types are temporarily enabled for a probe.
+  final bool probing;
+  final int learningDurationMs;
+  final Map<BarcodeType, int> decodedCounts;
+  final List<BarcodeType> suggestedTypes;
+
+  SymbologyProfile({
+    required this.learning,
+    required this.applied,
+    required this.probing,
+    required this.learningDurationMs,
+    required this.decodedCounts,
+    required this.suggestedTypes,
+  });
+
+  factory SymbologyProfile.fromMap(Map<String, dynamic> map) {
+    return SymbologyProfile(
+      learning: map['learning'],
+      applied: map['applied'],
+      probing: map['probing'],
+      learningDurationMs: map['learningDurationMs'],
+      decodedCounts: Map<String, dynamic>.from(map['decodedCounts']).map(
+          (ordinal, count) => MapEntry(BarcodeType.values[int.parse(ordinal)], count as int)),
+      suggestedTypes: List<int>.from(map['suggestedTypes'])
+          .map((ordinal) => BarcodeType.values[ordinal])
+          .toList(),
+    );
+  }
+
+  @override
+  String toString() {
+    return '{learning: $learning, applied: $applied, probing: $probing, learningDurationMs: $learningDurationMs, decodedCounts: $decodedCounts, suggestedTypes: $suggestedTypes}';
+  }
+}
+
+class LatencyStats {
+  final int count;
+  final double meanMs;
+
+  /// Percentiles are computed over the most recent 512 samples.
+  final double p50Ms;
+  final double p90Ms;
+  final double p99Ms;
+  final double maxMs;
+
+  LatencyStats({
+    required this.count,
+    required this.meanMs,
+    required this.p50Ms,
+    required this.p90Ms,
+    required this.p99Ms,
+    required this.maxMs,
+  });
+
+  factory LatencyStats.fromMap(Map<String, dynamic> map) {
+    return LatencyStats(
+      count: map['count'],
+      meanMs: map['meanMs'],
+      p50Ms: map['p50Ms'],
+      p90Ms: map['p90Ms'],
+      p99Ms: map['p99Ms'],
+      maxMs: map['maxMs'],
+    );
+  }
+
+  @override
+  String toString() {
+    return '{count: $count, meanMs: $meanMs, p50Ms: $p50Ms, p90Ms: $p90Ms, p99Ms: $p99Ms, maxMs: $maxMs}';
+  }
+}
+
+class SessionStats {
+  final int durationMs;
+  final Map<String, int> resultsByType;
+  final int totalResults;
+
+  /// Results whose barcode type and text were already reported in this session.
+  final int duplicateResults;
+
+  /// Time between [Barkoder.startScanning] and each result.
+  final LatencyStats timeToResult;
+  final LatencyStats scanImageLatency;
+
+  /// Time spent serializing results, including image encoding.
+  final LatencyStats encodeTime;
+  final int payloadBytes;
+  final int eventsDelivered;
+
+  /// Results that couldn't be delivered, e.g. because nobody was listening.
+  final int eventsDropped;
+
+  SessionStats({
+    required this.durationMs,
+    required this.resultsByType,
+    required this.totalResults,
+    required this.duplicateResults,
+    required this.timeToResult,
+    required this.scanImageLatency,
+    required this.encodeTime,
+    required this.payloadBytes,
+    required this.eventsDelivered,
+    required this.eventsDropped,
+  });
+
+  factory SessionStats.fromMap(Map<String, dynamic> map) {
+    return SessionStats(
+      durationMs: map['durationMs'],
+      resultsByType: Map<String, int>.from(map['resultsByType']),
+      totalResults: map['totalResults'],
+      duplicateResults: map['duplicateResults'],
+      timeToResult: LatencyStats.fromMap(Map<String, dynamic>.from(map['timeToResult'])),
+      scanImageLatency: LatencyStats.fromMap(Map<String, dynamic>.from(map['scanImageLatency'])),
+      encodeTime: LatencyStats.fromMap(Map<String, dynamic>.from(map['encodeTime'])),
+      payloadBytes: map['payloadBytes'],
+      eventsDelivered: map['eventsDelivered'],
+      eventsDropped: map['eventsDropped'],
+    );
+  }
+
+  @override
+  String toString() {
+    return '{durationMs: $durationMs, resultsByType: $resultsByType, totalResults: $totalResults, duplicateResults: $duplicateResults, timeToResult: $timeToResult, scanImageLatency: $scanImageLatency, encodeTime: $encodeTime, payloadBytes: $payloadBytes, eventsDelivered: $eventsDelivered, eventsDropped: $eventsDropped}';
+  }
+}
+
+class BarkoderMetrics {
+  /// Actual length of the interval the snapshot covers.
+  final int intervalMs;
+  final double decodesPerSecond;
+
+  /// Average over the decodes with a known duration ([Barkoder.scanImage] and [Barkoder.scanFrame]).
+  final double averageDecodeLatencyMs;
+
+  /// Results waiting to be delivered to the scanning results stream.
+  final int queueDepth;
+  final double payloadBytesPerSecond;
+  final int droppedEvents;
+  final int threadsLimit;
+  final BarkoderResolution? barkoderResolution;
+  final DecodingSpeed? decodingSpeed;
+
+  BarkoderMetrics({
+    required this.intervalMs,
+    required this.decodesPerSecond,
+    required this.averageDecodeLatencyMs,
+    required this.queueDepth,
+    required this.payloadBytesPerSecond,
+    required this.droppedEvents,
+    required this.threadsLimit,
+    this.barkoderResolution,
+    this.decodingSpeed,
+  });
+
+  factory BarkoderMetrics.fromMap(Map<String, dynamic> map) {
+    return BarkoderMetrics(
+      intervalMs: map['intervalMs'],
+      decodesPerSecond: map['decodesPerSecond'],
+      averageDecodeLatencyMs: map['averageDecodeLatencyMs'],
+      queueDepth: map['queueDepth'],
+      payloadBytesPerSecond: map['payloadBytesPerSecond'],
+      droppedEvents: map['droppedEvents'],
+      threadsLimit: map['threadsLimit'],
+      barkoderResolution: map['barkoderResolution'] != null
+          ? BarkoderResolution.values[map['barkoderResolution']]
+          : null,
+      decodingSpeed: map['decodingSpeed'] != null
+          ? DecodingSpeed.values[map['decodingSpeed']]
+          : null,
+    );
+  }
+
+  @override
+  String toString() {
+    return '{intervalMs: $intervalMs, decodesPerSecond: $decodesPerSecond, averageDecodeLatencyMs: $averageDecodeLatencyMs, queueDepth: $queueDepth, payloadBytesPerSecond: $payloadBytesPerSecond, droppedEvents: $droppedEvents, threadsLimit: $threadsLimit, barkoderResolution: $barkoderResolution, decodingSpeed: $decodingSpeed}';
+  }
+}
+
+class BarkoderFrame {
+  /// NV21 buffer, or the Y (luminance) plane of a YUV_420_888 image.
+  /// Chroma planes are not needed for decoding and don't have to be sent.
+  final Uint8List bytes;
+  final int width;
+  final int height;
+  final BarkoderFrameFormat format;
+
+  /// Bytes per row of the Y plane. Only used for [BarkoderFrameFormat.yuv420888].
+  final int? rowStride;
+
+  /// Bytes between two neighbouring Y samples. Only used for [BarkoderFrameFormat.yuv420888].
+  final int? pixelStride;
+
+  /// Clockwise rotation in degrees (0, 90, 180 or 270) that makes the frame upright.
+  final int rotation;
+
+  BarkoderFrame({
+    required this.bytes,
+    required this.width,
+    required this.height,
+    this.format = BarkoderFrameFormat.nv21,
+    this.rowStride,
+    this.pixelStride,
+    this.rotation = 0,
+  });
+
+  Map<String, dynamic> toMap() {
+    return {
+      'bytes': bytes,
+      'width': width,
+      'height': height,
+      'format': format.index,
+      'rowStride': rowStride,
+      'pixelStride': pixelStride,
+      'rotation': rotation,
+    };
+  }
+}
+
 enum BarcodeType {
   aztec,
   aztecCompact,
@@ -180,6 +1055,8 @@ enum BarkoderCameraPosition { BACK, FRONT }
 
 enum BarkoderResolution { HD, FHD, UHD }
 
+enum BarkoderFrameFormat { nv21, yuv420888 }
+
 enum BarkoderARMode { off, interactiveDisabled, interactiveEnabled, nonInteractive }
 
 enum BarkoderAROverlayRefresh { smooth, normal }
@@ -188,6 +1065,30 @@ enum BarkoderARLocationType { none, tight, boundingBox }
 
 enum BarkoderARHeaderShowMode { never, always, onSelected }
 
+enum BarkoderImageFormat { png, jpeg, webp }
+
+/// What is sent of the result image when image results are enabled.
+///
+/// [full]: The whole frame once per result event in [BarkoderResult.resultImage].
+/// [cropped]: A crop around each result in [DecoderResult.imageCrop] instead of the whole frame.
+enum BarkoderResultImageMode { full, cropped }
+
+/// How results are sent when AR mode emits them only at the end of the session.
+///
+/// [off]: All results in one [BarkoderResult].
+/// [chunked]: Several [BarkoderResult]s with a limited number of results each,
+/// see [BarkoderResult.sessionChunkIndex].
+/// [file]: Written to a JSON file, reported as a [BarkoderSessionExport].
+enum BarkoderSessionEndExportMode { off, chunked, file }
+
+/// How location points are sent with the results.
+///
+/// [objects]: A list of `{'x': .., 'y': ..}` maps in [DecoderResult.locationPoints].
+/// [float32]: Interleaved x, y pixel coordinates in [DecoderResult.locationPointsPacked].
+/// [int16]: Like [float32], but sent as 16-bit fixed point relative to the frame size,
+/// which costs a fraction of a pixel in precision.
+enum LocationPointsEncoding { objects, float32, int16 }
+
 class BarkoderErrors {
   static const String barkodeViewNotMountedDesc = "Barkoder is not mounted";
   static const String barkoderViewNotMounted = "0";